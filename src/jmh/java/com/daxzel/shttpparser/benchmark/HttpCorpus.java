@@ -0,0 +1,145 @@
+package com.daxzel.shttpparser.benchmark;
+
+import com.daxzel.shttpparser.message.Consts;
+
+/**
+ * Request corpus shared by the benchmarks. Every scenario is a complete
+ * byte stream as it would arrive on a connection, together with the number
+ * of requests it holds.
+ */
+public final class HttpCorpus {
+
+    /** Names of the available scenarios */
+    public static final String MINIMAL = "minimal";
+    public static final String BROWSER = "browser";
+    public static final String POST = "post";
+    public static final String CHUNKED = "chunked";
+    public static final String PIPELINED = "pipelined";
+    public static final String LONG_LINES = "longlines";
+
+    static final String MINIMAL_GET = "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n";
+
+    static final String BROWSER_GET = "GET /catalog/search?q=running+shoes&page=2 HTTP/1.1\r\n" +
+            "Host: shop.example.com\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Cache-Control: max-age=0\r\n" +
+            "sec-ch-ua: \"Chromium\";v=\"118\", \"Google Chrome\";v=\"118\", \"Not=A?Brand\";v=\"99\"\r\n" +
+            "sec-ch-ua-mobile: ?0\r\n" +
+            "sec-ch-ua-platform: \"macOS\"\r\n" +
+            "Upgrade-Insecure-Requests: 1\r\n" +
+            "User-Agent: Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 " +
+            "(KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp," +
+            "image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7\r\n" +
+            "Sec-Fetch-Site: same-origin\r\n" +
+            "Sec-Fetch-Mode: navigate\r\n" +
+            "Sec-Fetch-User: ?1\r\n" +
+            "Sec-Fetch-Dest: document\r\n" +
+            "Referer: https://shop.example.com/catalog\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Accept-Language: en-US,en;q=0.9,ru;q=0.8\r\n" +
+            "If-None-Match: W/\"5e15153d-120f\"\r\n" +
+            "If-Modified-Since: Wed, 11 Oct 2023 09:41:27 GMT\r\n" +
+            "DNT: 1\r\n" +
+            "Cookie: session=7f3a9c2e4b1d8f6a0e5c3b2a1d9f8e7c; _ga=GA1.2.1234567890.1697000000; " +
+            "_gid=GA1.2.987654321.1697000000; cart=eyJpdGVtcyI6WzEsMiwzXX0; theme=dark\r\n" +
+            "\r\n";
+
+    static final String JSON_BODY = "[{\"changed_aspect\": \"media\", \"object\": \"tag\", " +
+            "\"object_id\": \"moscow\", \"time\": 1450899676, \"subscription_id\": 21359349, \"data\": {}}]";
+
+    static final String POST_HEAD = "POST /moscow/ HTTP/1.1\r\n" +
+            "Host: www.chin-news.com:8000\r\n" +
+            "Content-Length: " + JSON_BODY.length() + "\r\n" +
+            "x-hub-signature: c1581f33c90deccac4ec125051b14c97ff7989c9\r\n" +
+            "content-type: application/json\r\n" +
+            "accept-encoding: gzip, deflate\r\n" +
+            "user-agent: Python-httplib2/0.8 (gzip)\r\n" +
+            "\r\n";
+
+    private HttpCorpus() {
+    }
+
+    /**
+     * Returns the bytes of the given scenario.
+     */
+    public static byte[] data(final String scenario) {
+        return text(scenario).getBytes(Consts.ISO_8859_1);
+    }
+
+    /**
+     * Returns the number of requests in the given scenario.
+     */
+    public static int messages(final String scenario) {
+        return PIPELINED.equals(scenario) ? 16 : 1;
+    }
+
+    private static String text(final String scenario) {
+        if (MINIMAL.equals(scenario)) {
+            return MINIMAL_GET;
+        } else if (BROWSER.equals(scenario)) {
+            return BROWSER_GET;
+        } else if (POST.equals(scenario)) {
+            return POST_HEAD + JSON_BODY;
+        } else if (CHUNKED.equals(scenario)) {
+            return chunked();
+        } else if (PIPELINED.equals(scenario)) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < messages(scenario); i++) {
+                sb.append("GET /api/items/").append(i).append(" HTTP/1.1\r\n")
+                        .append("Host: api.example.com\r\n")
+                        .append("Accept: application/json\r\n")
+                        .append("Connection: keep-alive\r\n")
+                        .append("\r\n");
+            }
+            return sb.toString();
+        } else if (LONG_LINES.equals(scenario)) {
+            return longLines();
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    }
+
+    /**
+     * A 16 KB upload sent in 1 KB chunks as mobile clients do.
+     */
+    private static String chunked() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("POST /upload/photo HTTP/1.1\r\n")
+                .append("Host: media.example.com\r\n")
+                .append("User-Agent: ExampleApp/4.2 (iPhone; iOS 17.0; Scale/3.00)\r\n")
+                .append("Content-Type: application/octet-stream\r\n")
+                .append("Transfer-Encoding: chunked\r\n")
+                .append("\r\n");
+        final char[] chunk = new char[1024];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (char) ('a' + i % 26);
+        }
+        for (int i = 0; i < 16; i++) {
+            sb.append("400\r\n").append(chunk).append("\r\n");
+        }
+        sb.append("0\r\n\r\n");
+        return sb.toString();
+    }
+
+    /**
+     * A request with an 8 KB URI and 4 KB cookie and referer headers.
+     */
+    private static String longLines() {
+        final StringBuilder query = new StringBuilder();
+        while (query.length() < 8192) {
+            query.append("&filter").append(query.length()).append("=value");
+        }
+        final StringBuilder cookie = new StringBuilder();
+        while (cookie.length() < 4096) {
+            cookie.append("; tracking").append(cookie.length()).append("=0123456789abcdef");
+        }
+        return "GET /search?q=x" + query + " HTTP/1.1\r\n" +
+                "Host: www.example.com\r\n" +
+                "Referer: https://www.example.com/search?q=y" + query.substring(0, 4096) + "\r\n" +
+                "Cookie: session=1" + cookie + "\r\n" +
+                "\r\n";
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.daxzel.shttpparser.benchmark;
+
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.HTTP;
+import com.daxzel.shttpparser.util.ByteSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte-at-a-time LF search formerly used by
+ * {@code SessionInputBufferImpl.readLine} with {@link ByteSearch} on
+ * realistic request heads. Each operation splits the whole head into lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineScanBenchmark {
+
+    @Param({"minimal", "browser", "api"})
+    public String head;
+
+    private byte[] data;
+    private ByteBuffer view;
+
+    @Setup
+    public void setup() {
+        final String text;
+        if ("minimal".equals(head)) {
+            text = HttpCorpus.MINIMAL_GET;
+        } else if ("browser".equals(head)) {
+            text = HttpCorpus.BROWSER_GET;
+        } else {
+            text = HttpCorpus.POST_HEAD;
+        }
+        this.data = text.getBytes(Consts.ASCII);
+        this.view = ByteSearch.view(this.data);
+    }
+
+    @Benchmark
+    public int scalar() {
+        final byte[] b = this.data;
+        int lines = 0;
+        int pos = 0;
+        while (pos < b.length) {
+            int lf = -1;
+            for (int i = pos; i < b.length; i++) {
+                if (b[i] == HTTP.LF) {
+                    lf = i;
+                    break;
+                }
+            }
+            if (lf == -1) {
+                break;
+            }
+            lines++;
+            pos = lf + 1;
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public int swar() {
+        final int len = this.data.length;
+        int lines = 0;
+        int pos = 0;
+        while (pos < len) {
+            final int lf = ByteSearch.indexOf(this.view, pos, len, (byte) HTTP.LF);
+            if (lf == -1) {
+                break;
+            }
+            lines++;
+            pos = lf + 1;
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.daxzel.shttpparser.benchmark;
+
+import com.daxzel.shttpparser.DefaultHttpRequestParser;
+import com.daxzel.shttpparser.HttpException;
+import com.daxzel.shttpparser.message.HttpEntity;
+import com.daxzel.shttpparser.message.HttpEntityEnclosingRequest;
+import com.daxzel.shttpparser.message.HttpRequest;
+import com.daxzel.shttpparser.message.HttpTransportMetricsImpl;
+import com.daxzel.shttpparser.message.RecyclableHttpRequest;
+import com.daxzel.shttpparser.message.SessionInputBufferImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DefaultHttpRequestParser} on the {@link HttpCorpus}
+ * scenarios. Each operation parses every request of the scenario and drains
+ * its entity, if any.
+ * <p>
+ * {@code stream} reads through {@link SessionInputBufferImpl} bound to an
+ * input stream, as a blocking server would; {@code inMemory} parses in place
+ * from the byte array. {@code recycled} reads through a long lived
+ * {@link SessionInputBufferImpl} into a single {@link RecyclableHttpRequest},
+ * as a keep-alive connection would in steady state. Run with {@code -prof gc} to report the bytes
+ * allocated per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestParserBenchmark {
+
+    @Param({
+            HttpCorpus.MINIMAL,
+            HttpCorpus.BROWSER,
+            HttpCorpus.POST,
+            HttpCorpus.CHUNKED,
+            HttpCorpus.PIPELINED,
+            HttpCorpus.LONG_LINES})
+    public String scenario;
+
+    private byte[] data;
+    private int messages;
+    private byte[] drain;
+
+    private ByteArrayInputStream recycledInput;
+    private DefaultHttpRequestParser recycledParser;
+    private RecyclableHttpRequest recycledRequest;
+
+    @Setup
+    public void setup() {
+        this.data = HttpCorpus.data(this.scenario);
+        this.messages = HttpCorpus.messages(this.scenario);
+        this.drain = new byte[4096];
+        this.recycledInput = new ByteArrayInputStream(this.data);
+        final SessionInputBufferImpl inbuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 8 * 1024);
+        inbuffer.bind(this.recycledInput);
+        this.recycledParser = new DefaultHttpRequestParser(inbuffer);
+        this.recycledRequest = new RecyclableHttpRequest();
+    }
+
+    @Benchmark
+    public void stream(final Blackhole bh) throws IOException, HttpException {
+        final SessionInputBufferImpl inbuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 8 * 1024);
+        inbuffer.bind(new ByteArrayInputStream(this.data));
+        parseAll(new DefaultHttpRequestParser(inbuffer), bh);
+    }
+
+    @Benchmark
+    public void inMemory(final Blackhole bh) throws IOException, HttpException {
+        parseAll(DefaultHttpRequestParser.create(this.data), bh);
+    }
+
+    @Benchmark
+    public void recycled(final Blackhole bh) throws IOException, HttpException {
+        this.recycledInput.reset();
+        for (int i = 0; i < this.messages; i++) {
+            final RecyclableHttpRequest request = this.recycledParser.parse(this.recycledRequest);
+            drain(request, bh);
+        }
+    }
+
+    private void parseAll(
+            final DefaultHttpRequestParser parser, final Blackhole bh) throws IOException, HttpException {
+        for (int i = 0; i < this.messages; i++) {
+            final HttpRequest request = parser.parse();
+            drain(request, bh);
+        }
+    }
+
+    private void drain(final HttpRequest request, final Blackhole bh) throws IOException {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null) {
+                final InputStream content = entity.getContent();
+                int l;
+                while ((l = content.read(this.drain)) != -1) {
+                    bh.consume(l);
+                }
+            }
+        }
+        bh.consume(request);
+    }
+
+}
@@ -29,6 +29,7 @@ package com.daxzel.shttpparser;
 
 import com.daxzel.shttpparser.io.SessionInputBuffer;
 import com.daxzel.shttpparser.message.*;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
 import com.daxzel.shttpparser.util.CharArrayBuffer;
 
 import java.io.IOException;
@@ -43,12 +44,65 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
 
     private final SessionInputBuffer sessionBuffer;
     private final MessageConstraints messageConstraints;
-    private final List<CharArrayBuffer> headerLines;
     protected final LineParser lineParser;
 
-    private final EntityDeserializer entitydeserializer = new EntityDeserializer();
+    private final EntityDeserializer entitydeserializer;
 
+    private int state;
     private T message;
+    private HeaderSectionState headState;
+
+    /**
+     * Intermediate results of parsing a header section. Passing the same
+     * instance to subsequent calls of
+     * {@link AbstractMessageParser#parseHeaders(SessionInputBuffer, int, int,
+     * LineParser, HeaderSectionState, HeaderInterest)} or
+     * {@link AbstractMessageParser#parseHeaderSlices(SessionInputBuffer, int, int,
+     * HeaderSectionState, HeaderInterest)} makes it possible to resume parsing
+     * in case of a {@link java.io.InterruptedIOException}, including in the
+     * middle of a dropped header. The state is reset once the header section
+     * is complete.
+     *
+     * @since 0.6
+     */
+    public static final class HeaderSectionState {
+
+        // header lines decoded into chars
+        private final List<CharArrayBuffer> lines;
+        // header lines kept as bytes, allocated on first use
+        private ByteArrayBuffer headbuffer;
+        // start and end offsets of the header lines within the head buffer
+        private int[] bounds;
+        private int count;
+        private boolean skipping;
+        private int skipped;
+        // unfolded length of the header being dropped
+        private int skippedLength;
+
+        public HeaderSectionState() {
+            this(new ArrayList<CharArrayBuffer>());
+        }
+
+        private HeaderSectionState(final List<CharArrayBuffer> lines) {
+            super();
+            this.lines = lines;
+        }
+
+        /**
+         * Discards the intermediate results.
+         */
+        public void reset() {
+            this.lines.clear();
+            if (this.headbuffer != null) {
+                this.headbuffer.clear();
+            }
+            this.count = 0;
+            this.skipping = false;
+            this.skipped = 0;
+            this.skippedLength = 0;
+        }
+
+    }
 
     /**
      * Creates an instance of AbstractMessageParser.
@@ -67,8 +121,9 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
         super();
         this.sessionBuffer = buffer;
         this.messageConstraints = HttpParamConfig.getMessageConstraints(params);
+        this.entitydeserializer = new EntityDeserializer(this.messageConstraints);
         this.lineParser = (parser != null) ? parser : BasicLineParser.INSTANCE;
-        this.headerLines = new ArrayList<CharArrayBuffer>();
+        this.state = HEAD_LINE;
     }
 
     /**
@@ -85,11 +140,33 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
             final SessionInputBuffer buffer,
             final LineParser lineParser,
             final MessageConstraints constraints) {
+        this(buffer, lineParser, constraints, null);
+    }
+
+    /**
+     * Creates new instance of AbstractMessageParser.
+     *
+     * @param buffer      the session input buffer.
+     * @param lineParser  the line parser. If {@code null} {@link BasicLineParser#INSTANCE}
+     *                    will be used.
+     * @param constraints the message constraints. If {@code null}
+     *                    {@link MessageConstraints#DEFAULT} will be used.
+     * @param entityDeserializer the entity deserializer. If {@code null} a
+     *                    deserializer applying the message constraints will be used.
+     * @since 0.6
+     */
+    public AbstractMessageParser(
+            final SessionInputBuffer buffer,
+            final LineParser lineParser,
+            final MessageConstraints constraints,
+            final EntityDeserializer entityDeserializer) {
         super();
         this.sessionBuffer = buffer;
         this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
         this.messageConstraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
-        this.headerLines = new ArrayList<CharArrayBuffer>();
+        this.entitydeserializer = entityDeserializer != null ? entityDeserializer :
+                new EntityDeserializer(this.messageConstraints);
+        this.state = HEAD_LINE;
     }
 
     /**
@@ -148,8 +225,54 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
             final int maxLineLen,
             final LineParser parser,
             final List<CharArrayBuffer> headerLines) throws HttpException, IOException {
+        return parseLines(inbuffer, maxHeaderCount, maxLineLen, parser,
+                new HeaderSectionState(headerLines), null);
+    }
+
+    /**
+     * Parses HTTP headers from the data receiver stream according to the generic
+     * format as given in Section 3.1 of RFC 822, RFC-2616 Section 4 and 19.3,
+     * keeping only the headers of the given interest set. The lines of other
+     * headers are validated and dropped while still in the line buffer.
+     *
+     * @param inbuffer       Session input buffer
+     * @param maxHeaderCount maximum number of headers allowed, dropped headers
+     *                       included. Setting this parameter to a negative value
+     *                       or zero will disable the check.
+     * @param maxLineLen     maximum number of characters for a header line,
+     *                       including the continuation lines. Setting this parameter to a negative
+     *                       value or zero will disable the check.
+     * @param parser         line parser to use.
+     * @param state          intermediate results. This makes it possible to resume parsing
+     *                       of headers in case of a {@link java.io.InterruptedIOException}.
+     * @param interest       the headers to keep or {@code null} to keep all headers.
+     * @return array of HTTP headers
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    public static Header[] parseHeaders(
+            final SessionInputBuffer inbuffer,
+            final int maxHeaderCount,
+            final int maxLineLen,
+            final LineParser parser,
+            final HeaderSectionState state,
+            final HeaderInterest interest) throws HttpException, IOException {
+        final Header[] headers = parseLines(inbuffer, maxHeaderCount, maxLineLen, parser, state, interest);
+        state.reset();
+        return headers;
+    }
+
+    private static Header[] parseLines(
+            final SessionInputBuffer inbuffer,
+            final int maxHeaderCount,
+            final int maxLineLen,
+            final LineParser parser,
+            final HeaderSectionState state,
+            final HeaderInterest interest) throws HttpException, IOException {
+        final List<CharArrayBuffer> headerLines = state.lines;
         CharArrayBuffer current = null;
-        CharArrayBuffer previous = null;
+        CharArrayBuffer previous = headerLines.isEmpty() ? null : headerLines.get(headerLines.size() - 1);
         for (; ; ) {
             if (current == null) {
                 current = new CharArrayBuffer(64);
@@ -168,9 +291,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
                 break;
             }
 
-            if ((current.charAt(0) == ' ' || current.charAt(0) == '\t') && previous != null) {
-                // we have continuation folded header
-                // so append value
+            if ((current.charAt(0) == ' ' || current.charAt(0) == '\t') && (previous != null || state.skipping)) {
                 int i = 0;
                 while (i < current.length()) {
                     final char ch = current.charAt(i);
@@ -179,18 +300,34 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
                     }
                     i++;
                 }
+                if (state.skipping) {
+                    // continuation of a dropped header, limited like any other
+                    state.skippedLength += 1 + current.length() - i;
+                    if (maxLineLen > 0 && state.skippedLength > maxLineLen) {
+                        throw new MessageConstraintException("Maximum line length limit exceeded");
+                    }
+                    continue;
+                }
+                // we have continuation folded header
+                // so append value
                 if (maxLineLen > 0
                         && previous.length() + 1 + current.length() - i > maxLineLen) {
                     throw new MessageConstraintException("Maximum line length limit exceeded");
                 }
                 previous.append(' ');
                 previous.append(current, i, current.length() - i);
+            } else if (interest != null && !includes(interest, current)) {
+                // the buffer is reused for the next line
+                state.skipping = true;
+                state.skipped++;
+                state.skippedLength = current.length();
             } else {
+                state.skipping = false;
                 headerLines.add(current);
                 previous = current;
                 current = null;
             }
-            if (maxHeaderCount > 0 && headerLines.size() >= maxHeaderCount) {
+            if (maxHeaderCount > 0 && headerLines.size() + state.skipped >= maxHeaderCount) {
                 throw new MessageConstraintException("Maximum header count exceeded");
             }
         }
@@ -206,30 +343,262 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
         return headers;
     }
 
-    protected abstract T parseHead(SessionInputBuffer sessionBuffer)
-            throws IOException, HttpException, ParseException;
+    /**
+     * Parses HTTP headers from the data receiver stream without decoding
+     * them into chars. All header lines of the message head are collected
+     * in a single byte array and every header is represented by a
+     * {@link ByteSliceHeader} referring to its name and value within that
+     * array. Folded continuation lines are unfolded in place.
+     *
+     * @param inbuffer       Session input buffer
+     * @param maxHeaderCount maximum number of headers allowed. If the number
+     *                       of headers received from the data stream exceeds maxCount value, an
+     *                       IOException will be thrown. Setting this parameter to a negative value
+     *                       or zero will disable the check.
+     * @param maxLineLen     maximum number of bytes for a header line,
+     *                       including the continuation lines. Setting this parameter to a negative
+     *                       value or zero will disable the check.
+     * @param state          intermediate results. This makes it possible to resume parsing
+     *                       of headers in case of a {@link java.io.InterruptedIOException}.
+     * @return array of HTTP headers
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    public static Header[] parseHeaderSlices(
+            final SessionInputBuffer inbuffer,
+            final int maxHeaderCount,
+            final int maxLineLen,
+            final HeaderSectionState state) throws HttpException, IOException {
+        return parseHeaderSlices(inbuffer, maxHeaderCount, maxLineLen, state, null);
+    }
 
-    public T parse() throws IOException, HttpException {
+    /**
+     * Parses HTTP headers from the data receiver stream without decoding
+     * them into chars, keeping only the headers of the given interest set.
+     * The lines of other headers are validated and removed from the head
+     * buffer as soon as they have been read.
+     *
+     * @param inbuffer       Session input buffer
+     * @param maxHeaderCount maximum number of headers allowed, dropped headers
+     *                       included. Setting this parameter to a negative value
+     *                       or zero will disable the check.
+     * @param maxLineLen     maximum number of bytes for a header line,
+     *                       including the continuation lines. Setting this parameter to a negative
+     *                       value or zero will disable the check.
+     * @param state          intermediate results. This makes it possible to resume parsing
+     *                       of headers in case of a {@link java.io.InterruptedIOException}.
+     * @param interest       the headers to keep or {@code null} to keep all headers.
+     * @return array of HTTP headers
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    public static Header[] parseHeaderSlices(
+            final SessionInputBuffer inbuffer,
+            final int maxHeaderCount,
+            final int maxLineLen,
+            final HeaderSectionState state,
+            final HeaderInterest interest) throws HttpException, IOException {
+        if (state.headbuffer == null) {
+            state.headbuffer = new ByteArrayBuffer(1024);
+            state.bounds = new int[32];
+        }
+        final ByteArrayBuffer headbuffer = state.headbuffer;
+        for (; ; ) {
+            final int start = headbuffer.length();
+            final int l = inbuffer.readLine(headbuffer);
+            if (l == -1 || l < 1) {
+                break;
+            }
+            final int first = headbuffer.byteAt(start);
+            // Detect LWS-char see HTTP/1.0 or HTTP/1.1 Section 2.2
+            // discussion on folded headers
+            if (first == ' ' && l == 1) {
+                headbuffer.setLength(start);
+                break;
+            }
+            if ((first == ' ' || first == '\t') && (state.count > 0 || state.skipping)) {
+                final byte[] b = headbuffer.buffer();
+                final int end = start + l;
+                int i = start;
+                while (i < end && (b[i] == ' ' || b[i] == '\t')) {
+                    i++;
+                }
+                if (state.skipping) {
+                    // continuation of a dropped header, limited like any other
+                    headbuffer.setLength(start);
+                    state.skippedLength += 1 + end - i;
+                    if (maxLineLen > 0 && state.skippedLength > maxLineLen) {
+                        throw new MessageConstraintException("Maximum line length limit exceeded");
+                    }
+                    continue;
+                }
+                // we have continuation folded header
+                // so append value to the previous line, which ends right here
+                final int previousStart = state.bounds[(state.count - 1) << 1];
+                if (maxLineLen > 0 && start - previousStart + 1 + end - i > maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+                b[start] = ' ';
+                System.arraycopy(b, i, b, start + 1, end - i);
+                headbuffer.setLength(start + 1 + end - i);
+                state.bounds[((state.count - 1) << 1) + 1] = headbuffer.length();
+            } else if (interest != null && !includes(interest, headbuffer.buffer(), start, start + l)) {
+                headbuffer.setLength(start);
+                state.skipping = true;
+                state.skipped++;
+                state.skippedLength = l;
+            } else {
+                state.skipping = false;
+                if ((state.count << 1) == state.bounds.length) {
+                    final int[] newbounds = new int[state.bounds.length << 1];
+                    System.arraycopy(state.bounds, 0, newbounds, 0, state.bounds.length);
+                    state.bounds = newbounds;
+                }
+                state.bounds[state.count << 1] = start;
+                state.bounds[(state.count << 1) + 1] = start + l;
+                state.count++;
+            }
+            if (maxHeaderCount > 0 && state.count + state.skipped >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+        }
+        // the head is shared by all headers of the message
+        final byte[] head = headbuffer.toByteArray();
+        final int count = state.count;
+        final int[] bounds = state.bounds;
+        state.reset();
+        final Header[] headers = new Header[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                headers[i] = ByteSliceHeader.parse(head, bounds[i << 1], bounds[(i << 1) + 1]);
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage());
+            }
+        }
+        return headers;
+    }
+
+    private static boolean includes(
+            final HeaderInterest interest, final CharArrayBuffer line) throws ProtocolException {
         try {
-            this.message = parseHead(this.sessionBuffer);
-        } catch (final ParseException px) {
-            throw new ProtocolException(px.getMessage(), px);
+            return interest.includes(line.buffer(), 0, line.length());
+        } catch (final ParseException ex) {
+            throw new ProtocolException(ex.getMessage());
         }
-        final Header[] headers = AbstractMessageParser.parseHeaders(
-                this.sessionBuffer,
-                this.messageConstraints.getMaxHeaderCount(),
-                this.messageConstraints.getMaxLineLength(),
-                this.lineParser,
-                this.headerLines);
-        this.message.setHeaders(headers);
-        final T result = this.message;
+    }
+
+    private static boolean includes(
+            final HeaderInterest interest,
+            final byte[] line, final int from, final int to) throws ProtocolException {
+        try {
+            return interest.includes(line, from, to);
+        } catch (final ParseException ex) {
+            throw new ProtocolException(ex.getMessage());
+        }
+    }
+
+    /**
+     * @since 0.6
+     */
+    protected SessionInputBuffer getSessionBuffer() {
+        return this.sessionBuffer;
+    }
+
+    /**
+     * @since 0.6
+     */
+    protected MessageConstraints getMessageConstraints() {
+        return this.messageConstraints;
+    }
+
+    protected abstract T parseHead(SessionInputBuffer sessionBuffer)
+            throws IOException, HttpException, ParseException;
+
+    /**
+     * Attaches the entity of the message once its head has been parsed.
+     * The default implementation deserializes the entity of
+     * {@link HttpEntityEnclosingRequest}s.
+     *
+     * @param message the message with all its headers.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    protected void parseEntity(final T message) throws IOException, HttpException {
         if (message instanceof HttpEntityEnclosingRequest) {
-            final HttpEntity entity = this.entitydeserializer.deserialize(sessionBuffer, message);
-            ((HttpEntityEnclosingRequest) message).setEntity(entity);
+            ((HttpEntityEnclosingRequest) message).setEntity(deserializeEntity(message));
+        }
+    }
+
+    /**
+     * Creates the entity of the message whose length is determined by
+     * its {@code Transfer-Encoding} and {@code Content-Length} headers.
+     *
+     * @param message the message with all its headers.
+     * @return the entity reading from the session buffer.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    protected HttpEntity deserializeEntity(final T message) throws IOException, HttpException {
+        return this.entitydeserializer.deserialize(this.sessionBuffer, message);
+    }
+
+    /**
+     * Parses the next message from the session buffer.
+     * <p>
+     * The parser keeps track of the message head parsed so far. If the
+     * underlying buffer throws an {@link java.io.InterruptedIOException}
+     * (for instance a socket timeout), a subsequent call resumes parsing
+     * from the request line or the header section where it stopped.
+     *
+     * @return HTTP message
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     */
+    public T parse() throws IOException, HttpException {
+        final int st = this.state;
+        switch (st) {
+            case HEAD_LINE:
+                try {
+                    this.message = parseHead(this.sessionBuffer);
+                } catch (final ParseException px) {
+                    throw new ProtocolException(px.getMessage(), px);
+                }
+                this.state = HEADERS;
+                //$FALL-THROUGH$
+            case HEADERS:
+                final Header[] headers;
+                if (this.headState == null) {
+                    this.headState = new HeaderSectionState();
+                }
+                if (this.messageConstraints.isZeroCopyHeaders()) {
+                    headers = AbstractMessageParser.parseHeaderSlices(
+                            this.sessionBuffer,
+                            this.messageConstraints.getMaxHeaderCount(),
+                            this.messageConstraints.getMaxLineLength(),
+                            this.headState,
+                            this.messageConstraints.getHeaderInterest());
+                } else {
+                    headers = AbstractMessageParser.parseHeaders(
+                            this.sessionBuffer,
+                            this.messageConstraints.getMaxHeaderCount(),
+                            this.messageConstraints.getMaxLineLength(),
+                            this.lineParser,
+                            this.headState,
+                            this.messageConstraints.getHeaderInterest());
+                }
+                this.message.setHeaders(headers);
+                final T result = this.message;
+                this.message = null;
+                this.state = HEAD_LINE;
+                parseEntity(result);
+                return result;
+            default:
+                throw new IllegalStateException("Inconsistent parser state");
         }
-        this.message = null;
-        this.headerLines.clear();
-        return result;
     }
 
 }
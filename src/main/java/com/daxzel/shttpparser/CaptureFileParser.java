@@ -0,0 +1,322 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.ByteBufferSessionInputBuffer;
+import com.daxzel.shttpparser.message.EntityDeserializer;
+import com.daxzel.shttpparser.message.HttpEntity;
+import com.daxzel.shttpparser.message.HttpEntityEnclosingRequest;
+import com.daxzel.shttpparser.message.HttpRequest;
+import com.daxzel.shttpparser.message.MessageConstraintException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses a file of back-to-back raw HTTP requests, such as a traffic
+ * capture, by memory mapping it and running {@link DefaultHttpRequestParser}
+ * in place over the mapped pages through a
+ * {@link ByteBufferSessionInputBuffer}. Request content is never copied into
+ * a heap buffer.
+ * <p>
+ * Files larger than a mapping can address are mapped one region at a time.
+ * A request running past the end of a region is parsed again from a region
+ * starting at the request, so every request must fit into a single region.
+ * <p>
+ * Every request is returned along with its offset and length in the file.
+ * The entity of a request, if any, reads directly from the mapped file and
+ * stays readable after the parser has moved on to later requests.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class CaptureFileParser implements Iterator<CaptureFileParser.CapturedRequest>, Closeable {
+
+    /**
+     * Default size of the mapped regions.
+     */
+    public static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final MessageConstraints constraints;
+    private final EntityDeserializer entityDeserializer;
+    private final int regionSize;
+
+    private long regionStart;
+    private MappedByteBuffer region;
+    private ByteBufferSessionInputBuffer sessionBuffer;
+    private DefaultHttpRequestParser parser;
+    private CapturedRequest next;
+
+    /**
+     * Opens the given capture file.
+     *
+     * @param file the file to parse.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param regionSize the maximum size of a mapped region, which limits
+     *   the size of a single request. Must be positive.
+     * @throws IOException in case of an I/O error
+     */
+    public CaptureFileParser(
+            final File file,
+            final MessageConstraints constraints,
+            final int regionSize) throws IOException {
+        super();
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size may not be negative or zero");
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            this.channel = raf.getChannel();
+            this.fileSize = this.channel.size();
+        } catch (final IOException ex) {
+            raf.close();
+            throw ex;
+        }
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.entityDeserializer = new EntityDeserializer(this.constraints);
+        this.regionSize = regionSize;
+    }
+
+    public CaptureFileParser(final File file, final MessageConstraints constraints) throws IOException {
+        this(file, constraints, DEFAULT_REGION_SIZE);
+    }
+
+    public CaptureFileParser(final File file) throws IOException {
+        this(file, null, DEFAULT_REGION_SIZE);
+    }
+
+    private void map(final long start) throws IOException {
+        final long size = Math.min(this.regionSize, this.fileSize - start);
+        this.regionStart = start;
+        this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        this.sessionBuffer = new ByteBufferSessionInputBuffer(this.region, null, this.constraints);
+        this.parser = new DefaultHttpRequestParser(this.sessionBuffer, this.constraints);
+    }
+
+    private boolean isLastRegion() {
+        return this.regionStart + this.region.limit() >= this.fileSize;
+    }
+
+    /**
+     * Parses the next request of the file.
+     *
+     * @return the next request or {@code null} at the end of the file.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     */
+    public CapturedRequest parseNext() throws IOException, HttpException {
+        if (this.next != null) {
+            final CapturedRequest request = this.next;
+            this.next = null;
+            return request;
+        }
+        if (this.region == null) {
+            if (this.fileSize == 0) {
+                return null;
+            }
+            map(0);
+        }
+        for (;;) {
+            final int start = this.sessionBuffer.position();
+            final long offset = this.regionStart + start;
+            if (!this.sessionBuffer.hasBufferedData()) {
+                if (isLastRegion()) {
+                    return null;
+                }
+                map(offset);
+                continue;
+            }
+            final HttpRequest request;
+            final int bodyStart;
+            final int end;
+            try {
+                request = this.parser.parse();
+                bodyStart = this.sessionBuffer.position();
+                consumeEntity(request);
+                end = this.sessionBuffer.position();
+            } catch (final IOException ex) {
+                if (isLastRegion() || start == 0) {
+                    throw ex;
+                }
+                // possibly cut off by the end of the region
+                map(offset);
+                continue;
+            } catch (final HttpException ex) {
+                if (isLastRegion() || start == 0) {
+                    throw ex;
+                }
+                map(offset);
+                continue;
+            }
+            if (end == this.region.limit() && !isLastRegion()) {
+                if (start == 0) {
+                    throw new MessageConstraintException(
+                            "Request at offset " + offset + " exceeds the region size");
+                }
+                map(offset);
+                continue;
+            }
+            if (bodyStart < end) {
+                attachEntity(request, bodyStart, end);
+            }
+            return new CapturedRequest(offset, end - start, request);
+        }
+    }
+
+    private void consumeEntity(final HttpRequest request) throws IOException {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity != null) {
+                final InputStream content = entity.getContent();
+                while (content.skip(Long.MAX_VALUE) > 0) {
+                    // discard
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the consumed entity of the request with an entity reading the
+     * given range of the mapped region.
+     */
+    private void attachEntity(
+            final HttpRequest request, final int from, final int to) throws IOException, HttpException {
+        final ByteBuffer body = this.region.duplicate();
+        body.limit(to);
+        body.position(from);
+        final HttpEntity entity = this.entityDeserializer.deserialize(
+                new ByteBufferSessionInputBuffer(body.slice(), null, this.constraints), request);
+        ((HttpEntityEnclosingRequest) request).setEntity(entity);
+    }
+
+    public boolean hasNext() {
+        if (this.next == null) {
+            this.next = parseUnchecked();
+        }
+        return this.next != null;
+    }
+
+    public CapturedRequest next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final CapturedRequest request = this.next;
+        this.next = null;
+        return request;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private CapturedRequest parseUnchecked() {
+        try {
+            return parseNext();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (final HttpException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns the remaining requests of the file as a sequential ordered
+     * stream. I/O errors are rethrown as {@link UncheckedIOException}s and
+     * protocol violations as {@link IllegalStateException}s.
+     */
+    public Stream<CapturedRequest> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Closes the file. Mapped regions are released once they are no longer
+     * referenced, including by the entities of returned requests.
+     */
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * A request read from a capture file.
+     */
+    public static final class CapturedRequest {
+
+        private final long offset;
+        private final int length;
+        private final HttpRequest request;
+
+        CapturedRequest(final long offset, final int length, final HttpRequest request) {
+            this.offset = offset;
+            this.length = length;
+            this.request = request;
+        }
+
+        /**
+         * Returns the position of the first byte of the request in the file.
+         */
+        public long getOffset() {
+            return this.offset;
+        }
+
+        /**
+         * Returns the number of bytes of the request, including its body.
+         */
+        public int getLength() {
+            return this.length;
+        }
+
+        public HttpRequest getRequest() {
+            return this.request;
+        }
+
+        @Override
+        public String toString() {
+            return this.offset + "+" + this.length + " " + this.request;
+        }
+
+    }
+
+}
@@ -29,11 +29,21 @@ package com.daxzel.shttpparser;
 
 import com.daxzel.shttpparser.message.BasicHttpEntityEnclosingRequest;
 import com.daxzel.shttpparser.message.BasicHttpRequest;
+import com.daxzel.shttpparser.message.HttpMethods;
 import com.daxzel.shttpparser.message.HttpRequest;
 import com.daxzel.shttpparser.message.RequestLine;
 
 /**
  * Default factory for creating {@link HttpRequest} objects.
+ * <p>
+ * By default the factory supports the methods of RFC 2616 other than
+ * extension methods. Further methods, such as {@code PATCH} or the WebDAV
+ * methods, can be registered with a factory built by {@link #custom()}.
+ * Supported methods are kept in a table indexed by the first char and the
+ * length of the method name, ignoring case, like {@link HttpMethods}. No
+ * two standard methods share a slot, so recognizing one takes a single
+ * comparison regardless of the number of methods registered. Names outside
+ * of that scheme share an overflow slot.
  *
  * @since 4.0
  *
@@ -41,65 +51,190 @@ import com.daxzel.shttpparser.message.RequestLine;
  */
 public class DefaultHttpRequestFactory implements HttpRequestFactory {
 
-    public static final DefaultHttpRequestFactory INSTANCE = new DefaultHttpRequestFactory();
-
     private static final String[] RFC2616_COMMON_METHODS = {
-            "GET"
+            HttpMethods.GET
     };
 
     private static final String[] RFC2616_ENTITY_ENC_METHODS = {
-            "POST",
-            "PUT"
+            HttpMethods.POST,
+            HttpMethods.PUT
     };
 
     private static final String[] RFC2616_SPECIAL_METHODS = {
-            "HEAD",
-            "OPTIONS",
-            "DELETE",
-            "TRACE",
-            "CONNECT"
+            HttpMethods.HEAD,
+            HttpMethods.OPTIONS,
+            HttpMethods.DELETE,
+            HttpMethods.TRACE,
+            HttpMethods.CONNECT
     };
 
+    private static final int MAX_LENGTH = 16;
+    /** One slot per first letter and length plus the overflow slot */
+    private static final int SLOTS = 26 * MAX_LENGTH + 1;
+
+    public static final DefaultHttpRequestFactory INSTANCE = new DefaultHttpRequestFactory();
+
+    private final Method[] table;
 
     public DefaultHttpRequestFactory() {
+        this(defaults().methods);
+    }
+
+    DefaultHttpRequestFactory(final Method[] table) {
         super();
+        this.table = table;
     }
 
-    private static boolean isOneOf(final String[] methods, final String method) {
-        for (final String method2 : methods) {
-            if (method2.equalsIgnoreCase(method)) {
-                return true;
+    static int slot(final String method) {
+        final int len = method.length();
+        if (len == 0 || len >= MAX_LENGTH) {
+            return SLOTS - 1;
+        }
+        char first = method.charAt(0);
+        if (first >= 'a' && first <= 'z') {
+            first -= 'a' - 'A';
+        }
+        if (first < 'A' || first > 'Z') {
+            return SLOTS - 1;
+        }
+        return (first - 'A') * MAX_LENGTH + len;
+    }
+
+    private Method find(final String method) {
+        Method m = this.table[slot(method)];
+        while (m != null) {
+            if (m.name.length() == method.length() && m.name.equalsIgnoreCase(method)) {
+                return m;
             }
+            m = m.next;
         }
-        return false;
+        return null;
     }
 
     public HttpRequest newHttpRequest(final RequestLine requestline)
             throws MethodNotSupportedException {
         final String method = requestline.getMethod();
-        if (isOneOf(RFC2616_COMMON_METHODS, method)) {
-            return new BasicHttpRequest(requestline);
-        } else if (isOneOf(RFC2616_ENTITY_ENC_METHODS, method)) {
+        final Method m = find(method);
+        if (m == null) {
+            throw new MethodNotSupportedException(method +  " method not supported");
+        }
+        if (m.entityEnclosing) {
             return new BasicHttpEntityEnclosingRequest(requestline);
-        } else if (isOneOf(RFC2616_SPECIAL_METHODS, method)) {
-            return new BasicHttpRequest(requestline);
         } else {
-            throw new MethodNotSupportedException(method +  " method not supported");
+            return new BasicHttpRequest(requestline);
         }
     }
 
     public HttpRequest newHttpRequest(final String method, final String uri)
             throws MethodNotSupportedException {
-        if (isOneOf(RFC2616_COMMON_METHODS, method)) {
-            return new BasicHttpRequest(method, uri);
-        } else if (isOneOf(RFC2616_ENTITY_ENC_METHODS, method)) {
-            return new BasicHttpEntityEnclosingRequest(method, uri);
-        } else if (isOneOf(RFC2616_SPECIAL_METHODS, method)) {
-            return new BasicHttpRequest(method, uri);
-        } else {
+        final Method m = find(method);
+        if (m == null) {
             throw new MethodNotSupportedException(method
                     + " method not supported");
         }
+        if (m.entityEnclosing) {
+            return new BasicHttpEntityEnclosingRequest(method, uri);
+        } else {
+            return new BasicHttpRequest(method, uri);
+        }
+    }
+
+    /**
+     * Returns a builder initialized with the methods supported by
+     * {@link #INSTANCE}.
+     *
+     * @since 0.6
+     */
+    public static Builder custom() {
+        return defaults();
+    }
+
+    private static Builder defaults() {
+        final Builder builder = new Builder();
+        for (final String method : RFC2616_COMMON_METHODS) {
+            builder.register(method, false);
+        }
+        for (final String method : RFC2616_ENTITY_ENC_METHODS) {
+            builder.register(method, true);
+        }
+        for (final String method : RFC2616_SPECIAL_METHODS) {
+            builder.register(method, false);
+        }
+        return builder;
+    }
+
+    static final class Method {
+
+        final String name;
+        final boolean entityEnclosing;
+        final Method next;
+
+        Method(final String name, final boolean entityEnclosing, final Method next) {
+            this.name = name;
+            this.entityEnclosing = entityEnclosing;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * @since 0.6
+     */
+    public static class Builder {
+
+        private final Method[] methods;
+
+        Builder() {
+            this.methods = new Method[SLOTS];
+        }
+
+        /**
+         * Adds a supported method. Registering a method again replaces the
+         * previous registration.
+         *
+         * @param method the method name, matched ignoring case.
+         * @param entityEnclosing whether requests with this method are
+         *   created as {@link BasicHttpEntityEnclosingRequest}s.
+         */
+        public Builder register(final String method, final boolean entityEnclosing) {
+            final int slot = slot(method);
+            Method chain = null;
+            for (Method m = this.methods[slot]; m != null; m = m.next) {
+                if (!m.name.equalsIgnoreCase(method)) {
+                    chain = new Method(m.name, m.entityEnclosing, chain);
+                }
+            }
+            this.methods[slot] = new Method(method, entityEnclosing, chain);
+            return this;
+        }
+
+        /**
+         * Adds the {@code PATCH} method of RFC 5789.
+         */
+        public Builder registerPatch() {
+            return register(HttpMethods.PATCH, true);
+        }
+
+        /**
+         * Adds the methods of WebDAV (RFC 4918).
+         */
+        public Builder registerWebDav() {
+            register(HttpMethods.PROPFIND, true);
+            register(HttpMethods.PROPPATCH, true);
+            register(HttpMethods.MKCOL, true);
+            register(HttpMethods.LOCK, true);
+            register(HttpMethods.COPY, false);
+            register(HttpMethods.MOVE, false);
+            register(HttpMethods.UNLOCK, false);
+            return this;
+        }
+
+        public DefaultHttpRequestFactory build() {
+            final Method[] table = new Method[SLOTS];
+            System.arraycopy(this.methods, 0, table, 0, SLOTS);
+            return new DefaultHttpRequestFactory(table);
+        }
+
     }
 
 }
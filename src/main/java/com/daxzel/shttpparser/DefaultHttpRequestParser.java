@@ -32,6 +32,7 @@ import com.daxzel.shttpparser.message.*;
 import com.daxzel.shttpparser.util.CharArrayBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * HTTP request parser that obtain its input from an instance
@@ -76,7 +77,33 @@ public class DefaultHttpRequestParser extends AbstractMessageParser<HttpRequest>
             final LineParser lineParser,
             final HttpRequestFactory requestFactory,
             final MessageConstraints constraints) {
-        super(buffer, lineParser, constraints);
+        this(buffer, lineParser, requestFactory, constraints, null);
+    }
+
+    /**
+     * Creates an instance of this class.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If {@code null}
+     *   {@link BasicLineParser#INSTANCE} will be used.
+     * @param requestFactory the factory to use to create
+     *    {@link HttpRequest}s. If {@code null}
+     *   {@link DefaultHttpRequestFactory#INSTANCE} will be used.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param entityDeserializer the entity deserializer, for instance one
+     *   decoding compressed content. If {@code null} a plain deserializer
+     *   will be used.
+     *
+     * @since 0.6
+     */
+    public DefaultHttpRequestParser(
+            final SessionInputBuffer buffer,
+            final LineParser lineParser,
+            final HttpRequestFactory requestFactory,
+            final MessageConstraints constraints,
+            final EntityDeserializer entityDeserializer) {
+        super(buffer, lineParser, constraints, entityDeserializer);
         this.requestFactory = requestFactory != null ? requestFactory :
                 DefaultHttpRequestFactory.INSTANCE;
         this.lineBuf = new CharArrayBuffer(128);
@@ -98,6 +125,73 @@ public class DefaultHttpRequestParser extends AbstractMessageParser<HttpRequest>
         this(buffer, null, null, MessageConstraints.DEFAULT);
     }
 
+    /**
+     * Creates a parser that reads requests in place from the given buffer.
+     * Bytes between the position and the limit of the buffer are parsed; the
+     * buffer itself is not modified.
+     *
+     * @param src         the data to parse.
+     * @param constraints the message constraints. If {@code null}
+     *                    {@link MessageConstraints#DEFAULT} will be used.
+     * @return new parser.
+     * @see ByteBufferSessionInputBuffer
+     * @since 0.6
+     */
+    public static DefaultHttpRequestParser create(
+            final ByteBuffer src,
+            final MessageConstraints constraints) {
+        return new DefaultHttpRequestParser(
+                new ByteBufferSessionInputBuffer(src, null, constraints), constraints);
+    }
+
+    /**
+     * @since 0.6
+     */
+    public static DefaultHttpRequestParser create(final ByteBuffer src) {
+        return create(src, null);
+    }
+
+    /**
+     * Creates a parser that reads requests in place from the given array.
+     *
+     * @param b   the data to parse.
+     * @param off the offset of the first byte to parse.
+     * @param len the number of bytes to parse.
+     * @return new parser.
+     * @since 0.6
+     */
+    public static DefaultHttpRequestParser create(final byte[] b, final int off, final int len) {
+        return create(ByteBuffer.wrap(b, off, len), null);
+    }
+
+    /**
+     * @since 0.6
+     */
+    public static DefaultHttpRequestParser create(final byte[] b) {
+        return create(ByteBuffer.wrap(b), null);
+    }
+
+    /**
+     * Parses the next request into the given request instance instead of
+     * creating a new one. Reusing the same instance for all requests of a
+     * connection makes steady state parsing free of allocations.
+     * <p>
+     * Unlike {@link #parse()} this method cannot resume after an
+     * {@link java.io.InterruptedIOException} and must not be mixed with
+     * {@link #parse()} calls interrupted that way.
+     *
+     * @param request the request to fill. Its previous content is discarded.
+     * @return the given request
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     * @since 0.6
+     */
+    public RecyclableHttpRequest parse(
+            final RecyclableHttpRequest request) throws IOException, HttpException {
+        request.parse(getSessionBuffer(), this.lineParser, getMessageConstraints());
+        return request;
+    }
+
     @Override
     protected HttpRequest parseHead(
             final SessionInputBuffer sessionBuffer)
@@ -0,0 +1,206 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.message.*;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * HTTP response parser that obtain its input from an instance
+ * of {@link SessionInputBuffer}.
+ * <p>
+ * Whether a response has a message body depends on the request it answers.
+ * Responses to {@code HEAD} requests, {@code 1xx} (informational),
+ * {@code 204} (No Content) and {@code 304} (Not Modified) responses and
+ * {@code 2xx} responses to {@code CONNECT} requests never have a body.
+ * Use {@link #parse(HttpRequest)} to let the parser know the request a
+ * response belongs to. Other responses have a body delimited by chunked
+ * transfer coding, by their {@code Content-Length} or, when neither is
+ * given, by the end of the connection.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class DefaultHttpResponseParser extends AbstractMessageParser<HttpResponse> {
+
+    private final HttpResponseFactory responseFactory;
+    private final CharArrayBuffer lineBuf;
+
+    private String requestMethod;
+
+    /**
+     * Creates new instance of DefaultHttpResponseParser.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If {@code null}
+     *   {@link BasicLineParser#INSTANCE} will be used
+     * @param responseFactory the response factory. If {@code null}
+     *   {@link DefaultHttpResponseFactory#INSTANCE} will be used.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public DefaultHttpResponseParser(
+            final SessionInputBuffer buffer,
+            final LineParser lineParser,
+            final HttpResponseFactory responseFactory,
+            final MessageConstraints constraints) {
+        this(buffer, lineParser, responseFactory, constraints, null);
+    }
+
+    /**
+     * Creates new instance of DefaultHttpResponseParser.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If {@code null}
+     *   {@link BasicLineParser#INSTANCE} will be used
+     * @param responseFactory the response factory. If {@code null}
+     *   {@link DefaultHttpResponseFactory#INSTANCE} will be used.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param entityDeserializer the entity deserializer, for instance one
+     *   decoding compressed content. If {@code null} a plain deserializer
+     *   will be used.
+     *
+     * @since 0.6
+     */
+    public DefaultHttpResponseParser(
+            final SessionInputBuffer buffer,
+            final LineParser lineParser,
+            final HttpResponseFactory responseFactory,
+            final MessageConstraints constraints,
+            final EntityDeserializer entityDeserializer) {
+        super(buffer, lineParser, constraints, entityDeserializer);
+        this.responseFactory = responseFactory != null ? responseFactory :
+                DefaultHttpResponseFactory.INSTANCE;
+        this.lineBuf = new CharArrayBuffer(128);
+    }
+
+    public DefaultHttpResponseParser(
+            final SessionInputBuffer buffer,
+            final MessageConstraints constraints) {
+        this(buffer, null, null, constraints);
+    }
+
+    public DefaultHttpResponseParser(final SessionInputBuffer buffer) {
+        this(buffer, null, null, MessageConstraints.DEFAULT);
+    }
+
+    /**
+     * Creates a parser that reads responses in place from the given buffer.
+     * Bytes between the position and the limit of the buffer are parsed; the
+     * buffer itself is not modified.
+     *
+     * @param src         the data to parse.
+     * @param constraints the message constraints. If {@code null}
+     *                    {@link MessageConstraints#DEFAULT} will be used.
+     * @return new parser.
+     * @see ByteBufferSessionInputBuffer
+     */
+    public static DefaultHttpResponseParser create(
+            final ByteBuffer src,
+            final MessageConstraints constraints) {
+        return new DefaultHttpResponseParser(
+                new ByteBufferSessionInputBuffer(src, null, constraints), constraints);
+    }
+
+    public static DefaultHttpResponseParser create(final ByteBuffer src) {
+        return create(src, null);
+    }
+
+    public static DefaultHttpResponseParser create(final byte[] b, final int off, final int len) {
+        return create(ByteBuffer.wrap(b, off, len), null);
+    }
+
+    public static DefaultHttpResponseParser create(final byte[] b) {
+        return create(ByteBuffer.wrap(b), null);
+    }
+
+    /**
+     * Parses the response to the given request. The request method decides
+     * whether the response can have a message body.
+     *
+     * @param request the request the response belongs to.
+     * @return HTTP response
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     */
+    public HttpResponse parse(final HttpRequest request) throws IOException, HttpException {
+        this.requestMethod = request != null ? request.getRequestLine().getMethod() : null;
+        return parse();
+    }
+
+    @Override
+    protected HttpResponse parseHead(
+            final SessionInputBuffer sessionBuffer)
+            throws IOException, HttpException, ParseException {
+
+        this.lineBuf.clear();
+        final int i = sessionBuffer.readLine(this.lineBuf);
+        if (i == -1) {
+            throw new ConnectionClosedException("The target server failed to respond");
+        }
+        final ParserCursor cursor = new ParserCursor(0, this.lineBuf.length());
+        final StatusLine statusline = this.lineParser.parseStatusLine(this.lineBuf, cursor);
+        return this.responseFactory.newHttpResponse(statusline);
+    }
+
+    @Override
+    protected void parseEntity(final HttpResponse response) throws IOException, HttpException {
+        final String method = this.requestMethod;
+        this.requestMethod = null;
+        if (canResponseHaveBody(method, response.getStatusLine().getStatusCode())) {
+            response.setEntity(deserializeEntity(response));
+        }
+    }
+
+    /**
+     * Decides whether a response with the given status code to a request
+     * with the given method can have a message body.
+     *
+     * @param method the request method or {@code null} if unknown.
+     * @param status the status code of the response.
+     * @return {@code true} if the response can have a message body.
+     */
+    protected boolean canResponseHaveBody(final String method, final int status) {
+        if ("HEAD".equalsIgnoreCase(method)) {
+            return false;
+        }
+        if ("CONNECT".equalsIgnoreCase(method) && status >= 200 && status < 300) {
+            // the connection turns into a tunnel
+            return false;
+        }
+        // 1xx informational, 204 No Content, 304 Not Modified
+        return status >= 200 && status != 204 && status != 304;
+    }
+
+}
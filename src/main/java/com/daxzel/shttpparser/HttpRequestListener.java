@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.util.CharSlice;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+
+import java.io.IOException;
+
+/**
+ * Receives the elements of HTTP requests from a
+ * {@link StreamingHttpRequestParser} as they are parsed.
+ * <p>
+ * Protocol elements are passed as {@link CharSlice}s of the parser buffers
+ * and body content as ranges of a parser owned byte array. Both are only
+ * valid for the duration of the callback; implementations that need to
+ * keep them must copy them, for instance with {@link CharSlice#toString()}.
+ *
+ * @since 0.6
+ */
+public interface HttpRequestListener {
+
+    /**
+     * Called once the request line has been parsed.
+     *
+     * @param method  the request method.
+     * @param target  the request target.
+     * @param version the protocol version.
+     * @throws HttpException to reject the request.
+     */
+    void onRequestLine(CharSlice method, CharSlice target, ProtocolVersion version) throws HttpException;
+
+    /**
+     * Called for every header, in the order of the request. Folded
+     * continuation lines have been unfolded.
+     *
+     * @param name  the header name.
+     * @param value the header value without surrounding whitespace.
+     * @throws HttpException to reject the request.
+     */
+    void onHeader(CharSlice name, CharSlice value) throws HttpException;
+
+    /**
+     * Called at the end of the header section.
+     *
+     * @throws HttpException to reject the request.
+     */
+    void onHeadersComplete() throws HttpException;
+
+    /**
+     * Called for every piece of the message body, after the chunked transfer
+     * coding, if any, has been removed.
+     *
+     * @param b   the buffer holding the content.
+     * @param off the offset of the content.
+     * @param len the length of the content.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException to reject the request.
+     */
+    void onBody(byte[] b, int off, int len) throws IOException, HttpException;
+
+    /**
+     * Called once the whole request, including its body, has been parsed.
+     *
+     * @throws HttpException to reject the request.
+     */
+    void onMessageComplete() throws HttpException;
+
+}
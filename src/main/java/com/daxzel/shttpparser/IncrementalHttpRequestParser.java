@@ -0,0 +1,538 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.io.EmptyInputStream;
+import com.daxzel.shttpparser.message.*;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ByteSearch;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Push style HTTP request parser intended for non-blocking I/O. Instead of
+ * pulling data from a {@link com.daxzel.shttpparser.io.SessionInputBuffer}
+ * the parser is fed with {@link ByteBuffer} fragments as they arrive from
+ * the network. Partially received request lines, header lines and message
+ * bodies are retained between calls to {@link #feed(ByteBuffer)}, so a single
+ * thread can drive any number of connections without ever blocking.
+ * <p>
+ * The parser consumes only the bytes that belong to the current message. Once
+ * {@link Result#MESSAGE_COMPLETE} is returned the source buffer is positioned
+ * at the first byte of the next (pipelined) message, if any. The next call to
+ * {@link #feed(ByteBuffer)} starts parsing a new message.
+ * <p>
+ * Message bodies delimited by {@code Content-Length} or by chunked transfer
+ * coding are accumulated in memory, up to
+ * {@link MessageConstraints#getMaxBodySize()} bytes, and exposed as the
+ * entity of the request once complete. Trailer headers of chunk coded bodies are available through
+ * {@link #getTrailers()}. Bodies delimited by
+ * the end of the connection are completed by {@link #endOfInput()}.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class IncrementalHttpRequestParser {
+
+    /**
+     * Outcome of a single {@link #feed(ByteBuffer)} call.
+     */
+    public enum Result {
+
+        /** The input has been consumed and the message is still incomplete. */
+        NEED_MORE_DATA,
+
+        /**
+         * The message head has been parsed and is available through
+         * {@link #getRequest()}. The message body has yet to be received.
+         */
+        HEAD_COMPLETE,
+
+        /** The message, including its body if any, has been fully parsed. */
+        MESSAGE_COMPLETE
+
+    }
+
+    private static final int REQUEST_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int BODY = 2;
+    private static final int CHUNK_HEADER = 3;
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_END = 5;
+    private static final int TRAILERS = 6;
+    private static final int COMPLETE = 7;
+
+    private static final Header[] EMPTY = new Header[] {};
+
+    /** Largest body an array can hold */
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final LineParser lineParser;
+    private final HttpRequestFactory requestFactory;
+    private final MessageConstraints constraints;
+    private final long maxBodySize;
+    private final ContentLengthStrategy lenStrategy;
+    private final ByteArrayBuffer linebuffer;
+    private final List<CharArrayBuffer> headerLines;
+
+    private int state;
+    private HttpRequest request;
+    private ByteArrayBuffer content;
+    private long contentLength;
+    private boolean chunked;
+    private Header[] trailers;
+    private boolean skipping;
+    private int skipped;
+
+    /**
+     * Creates new instance of IncrementalHttpRequestParser.
+     *
+     * @param lineParser     the line parser. If {@code null}
+     *                       {@link BasicLineParser#INSTANCE} will be used.
+     * @param requestFactory the factory to use to create {@link HttpRequest}s.
+     *                       If {@code null} {@link DefaultHttpRequestFactory#INSTANCE}
+     *                       will be used.
+     * @param constraints    the message constraints. If {@code null}
+     *                       {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public IncrementalHttpRequestParser(
+            final LineParser lineParser,
+            final HttpRequestFactory requestFactory,
+            final MessageConstraints constraints) {
+        super();
+        this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
+        this.requestFactory = requestFactory != null ? requestFactory :
+                DefaultHttpRequestFactory.INSTANCE;
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        final long max = this.constraints.getMaxBodySize();
+        this.maxBodySize = max > 0 ? Math.min(max, MAX_ARRAY_SIZE) : MAX_ARRAY_SIZE;
+        this.lenStrategy = StrictContentLengthStrategy.INSTANCE;
+        this.linebuffer = new ByteArrayBuffer(128);
+        this.headerLines = new ArrayList<CharArrayBuffer>();
+        this.state = REQUEST_LINE;
+        this.trailers = EMPTY;
+    }
+
+    public IncrementalHttpRequestParser(final MessageConstraints constraints) {
+        this(null, null, constraints);
+    }
+
+    public IncrementalHttpRequestParser() {
+        this(null, null, MessageConstraints.DEFAULT);
+    }
+
+    /**
+     * Consumes bytes from the given buffer and advances the parser state.
+     * <p>
+     * The method returns as soon as the message head or the entire message
+     * becomes available, leaving the remaining bytes in the buffer untouched.
+     *
+     * @param src the buffer holding newly received data.
+     * @return parsing progress.
+     * @throws IOException   in case of a message constraint violation
+     * @throws HttpException in case of HTTP protocol violation
+     */
+    public Result feed(final ByteBuffer src) throws IOException, HttpException {
+        if (this.state == COMPLETE) {
+            reset();
+        }
+        while (src.hasRemaining()) {
+            switch (this.state) {
+                case REQUEST_LINE:
+                    if (!fillLine(src)) {
+                        return Result.NEED_MORE_DATA;
+                    }
+                    parseRequestLine();
+                    this.state = HEADERS;
+                    break;
+                case HEADERS:
+                    if (!fillLine(src)) {
+                        return Result.NEED_MORE_DATA;
+                    }
+                    if (!addHeaderLine()) {
+                        return completeHead();
+                    }
+                    break;
+                case BODY:
+                    fillContent(src);
+                    if (this.contentLength == 0) {
+                        return completeMessage();
+                    }
+                    break;
+                case CHUNK_HEADER:
+                    if (!fillLine(src)) {
+                        return Result.NEED_MORE_DATA;
+                    }
+                    final long chunkSize = ChunkedInputStream.parseChunkSize(
+                            this.linebuffer.buffer(), 0, lineLength());
+                    this.linebuffer.clear();
+                    if (chunkSize > 0) {
+                        checkBodySize(chunkSize);
+                        this.contentLength = chunkSize;
+                        this.state = CHUNK_DATA;
+                    } else {
+                        this.state = TRAILERS;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    fillContent(src);
+                    if (this.contentLength == 0) {
+                        this.state = CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (!fillLine(src)) {
+                        return Result.NEED_MORE_DATA;
+                    }
+                    if (lineLength() != 0) {
+                        throw new MalformedChunkCodingException("Unexpected content at the end of chunk");
+                    }
+                    this.linebuffer.clear();
+                    this.state = CHUNK_HEADER;
+                    break;
+                case TRAILERS:
+                    if (!fillLine(src)) {
+                        return Result.NEED_MORE_DATA;
+                    }
+                    if (!addHeaderLine()) {
+                        this.trailers = parseHeaderLines();
+                        return completeMessage();
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Inconsistent parser state");
+            }
+        }
+        return Result.NEED_MORE_DATA;
+    }
+
+    /**
+     * Signals the end of the input stream. Completes a message whose body
+     * is delimited by the end of connection.
+     *
+     * @return {@link Result#MESSAGE_COMPLETE} if the current message has been
+     *   completed by the end of input.
+     * @throws IOException if the input ended in the middle of a message.
+     */
+    public Result endOfInput() throws IOException {
+        if (this.state == BODY && this.contentLength == ContentLengthStrategy.IDENTITY) {
+            return completeMessage();
+        }
+        if (this.state == COMPLETE) {
+            return Result.MESSAGE_COMPLETE;
+        }
+        if (this.state == REQUEST_LINE && this.linebuffer.isEmpty()) {
+            throw new ConnectionClosedException("Client closed connection");
+        }
+        throw new ConnectionClosedException("Premature end of HTTP message");
+    }
+
+    /**
+     * Returns the request being parsed. The request is available once
+     * {@link Result#HEAD_COMPLETE} or {@link Result#MESSAGE_COMPLETE}
+     * has been returned.
+     *
+     * @return the request or {@code null} if its head has not been parsed yet.
+     */
+    public HttpRequest getRequest() {
+        return this.state >= BODY ? this.request : null;
+    }
+
+    /**
+     * Returns the trailer headers of a chunk coded message body. The array
+     * is empty until {@link Result#MESSAGE_COMPLETE} has been returned.
+     *
+     * @return the trailer headers
+     */
+    public Header[] getTrailers() {
+        return this.state == COMPLETE ? this.trailers.clone() : EMPTY;
+    }
+
+    /**
+     * Discards any partially parsed message.
+     */
+    public void reset() {
+        this.state = REQUEST_LINE;
+        this.request = null;
+        this.content = null;
+        this.contentLength = 0;
+        this.chunked = false;
+        this.trailers = EMPTY;
+        this.linebuffer.clear();
+        this.headerLines.clear();
+        this.skipping = false;
+        this.skipped = 0;
+    }
+
+    /**
+     * Transfers bytes up to and including the next LF into the line buffer.
+     *
+     * @return {@code true} if a complete line is available.
+     */
+    private boolean fillLine(final ByteBuffer src) throws IOException {
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        final int from = src.position();
+        final int to = src.limit();
+        final int pos = ByteSearch.indexOf(src, from, to, (byte) HTTP.LF);
+        final int chunk = (pos != -1 ? pos + 1 : to) - from;
+        if (maxLineLen > 0 && this.linebuffer.length() + chunk - (pos != -1 ? 1 : 0) >= maxLineLen) {
+            throw new MessageConstraintException("Maximum line length limit exceeded");
+        }
+        final int len = this.linebuffer.length();
+        this.linebuffer.ensureCapacity(chunk);
+        src.get(this.linebuffer.buffer(), len, chunk);
+        this.linebuffer.setLength(len + chunk);
+        return pos != -1;
+    }
+
+    /**
+     * Moves the line buffer content without the line delimiter into a new
+     * char buffer.
+     */
+    private CharArrayBuffer takeLine() {
+        final int len = lineLength();
+        final CharArrayBuffer line = new CharArrayBuffer(Math.max(len, 16));
+        line.append(this.linebuffer, 0, len);
+        this.linebuffer.clear();
+        return line;
+    }
+
+    /**
+     * Returns the length of the line buffer content without the line
+     * delimiter.
+     */
+    private int lineLength() {
+        int len = this.linebuffer.length();
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.LF) {
+            len--;
+        }
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.CR) {
+            len--;
+        }
+        return len;
+    }
+
+    private void parseRequestLine() throws HttpException {
+        final CharArrayBuffer line = takeLine();
+        try {
+            final ParserCursor cursor = new ParserCursor(0, line.length());
+            final RequestLine requestline = this.lineParser.parseRequestLine(line, cursor);
+            this.request = this.requestFactory.newHttpRequest(requestline);
+        } catch (final ParseException px) {
+            throw new ProtocolException(px.getMessage(), px);
+        }
+    }
+
+    /**
+     * Adds the buffered header line to the header section, unfolding
+     * continuation lines.
+     *
+     * @return {@code false} if the line terminates the header section.
+     */
+    private boolean addHeaderLine() throws IOException, HttpException {
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        final int maxHeaderCount = this.constraints.getMaxHeaderCount();
+        if (skipHeaderLine()) {
+            this.linebuffer.clear();
+            if (maxHeaderCount > 0 && this.headerLines.size() + this.skipped >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+            return true;
+        }
+        final CharArrayBuffer current = takeLine();
+        if (current.length() < 1) {
+            return false;
+        }
+        // same tolerance as AbstractMessageParser#parseHeaders
+        if (current.charAt(0) == ' ' && current.length() == 1) {
+            return false;
+        }
+        final int count = this.headerLines.size();
+        if ((current.charAt(0) == ' ' || current.charAt(0) == '\t') && count > 0) {
+            final CharArrayBuffer previous = this.headerLines.get(count - 1);
+            int i = 0;
+            while (i < current.length()) {
+                final char ch = current.charAt(i);
+                if (ch != ' ' && ch != '\t') {
+                    break;
+                }
+                i++;
+            }
+            if (maxLineLen > 0
+                    && previous.length() + 1 + current.length() - i > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            previous.append(' ');
+            previous.append(current, i, current.length() - i);
+        } else {
+            this.headerLines.add(current);
+        }
+        if (maxHeaderCount > 0 && this.headerLines.size() + this.skipped >= maxHeaderCount) {
+            throw new MessageConstraintException("Maximum header count exceeded");
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the buffered header line belongs to a header
+     * outside of the {@link MessageConstraints#getHeaderInterest() interest
+     * set}. The name is matched in the raw line buffer, so dropped lines are
+     * never copied.
+     */
+    private boolean skipHeaderLine() throws ProtocolException {
+        final HeaderInterest interest = this.constraints.getHeaderInterest();
+        if (interest == null) {
+            return false;
+        }
+        final int len = lineLength();
+        if (len < 1) {
+            return false;
+        }
+        final int first = this.linebuffer.byteAt(0);
+        if (first == ' ' && len == 1) {
+            return false;
+        }
+        if ((first == ' ' || first == '\t') && (this.skipping || !this.headerLines.isEmpty())) {
+            // continuation lines share the fate of their header
+            return this.skipping;
+        }
+        try {
+            this.skipping = !interest.includes(this.linebuffer.buffer(), 0, len);
+        } catch (final ParseException ex) {
+            throw new ProtocolException(ex.getMessage());
+        }
+        if (this.skipping) {
+            this.skipped++;
+        }
+        return this.skipping;
+    }
+
+    private Header[] parseHeaderLines() throws ProtocolException {
+        final Header[] headers = new Header[this.headerLines.size()];
+        for (int i = 0; i < this.headerLines.size(); i++) {
+            try {
+                headers[i] = this.lineParser.parseHeader(this.headerLines.get(i));
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage());
+            }
+        }
+        this.headerLines.clear();
+        this.skipping = false;
+        this.skipped = 0;
+        return headers;
+    }
+
+    private Result completeHead() throws IOException, HttpException {
+        this.request.setHeaders(parseHeaderLines());
+        if (!(this.request instanceof HttpEntityEnclosingRequest)) {
+            return completeMessage();
+        }
+        final long len = this.lenStrategy.determineLength(this.request);
+        if (len == ContentLengthStrategy.CHUNKED) {
+            this.chunked = true;
+            this.content = new ByteArrayBuffer(1024);
+            this.state = CHUNK_HEADER;
+            return Result.HEAD_COMPLETE;
+        }
+        if (len == 0) {
+            return completeMessage();
+        }
+        if (len > 0) {
+            checkBodySize(len);
+        }
+        this.contentLength = len;
+        this.content = new ByteArrayBuffer(len > 0 ? (int) Math.min(len, 4096) : 1024);
+        this.state = BODY;
+        return Result.HEAD_COMPLETE;
+    }
+
+    private void fillContent(final ByteBuffer src) throws MessageConstraintException {
+        int chunk = src.remaining();
+        if (this.contentLength >= 0) {
+            if (chunk > this.contentLength) {
+                chunk = (int) this.contentLength;
+            }
+        } else {
+            // delimited by the end of the stream
+            checkBodySize(chunk);
+        }
+        final int len = this.content.length();
+        this.content.ensureCapacity(chunk);
+        src.get(this.content.buffer(), len, chunk);
+        this.content.setLength(len + chunk);
+        if (this.contentLength >= 0) {
+            this.contentLength -= chunk;
+        }
+    }
+
+    /**
+     * Checks that the given number of bytes still fits into the body buffer
+     * before any of them is buffered.
+     */
+    private void checkBodySize(final long more) throws MessageConstraintException {
+        final int buffered = this.content != null ? this.content.length() : 0;
+        if (more > this.maxBodySize - buffered) {
+            throw new MessageConstraintException("Maximum body size exceeded");
+        }
+    }
+
+    private Result completeMessage() {
+        if (this.request instanceof HttpEntityEnclosingRequest) {
+            final BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setChunked(this.chunked);
+            if (this.content != null) {
+                entity.setContentLength(this.content.length());
+                entity.setContent(new ByteArrayInputStream(
+                        this.content.buffer(), 0, this.content.length()));
+            } else {
+                entity.setContentLength(0);
+                entity.setContent(EmptyInputStream.INSTANCE);
+            }
+            final Header contentTypeHeader = this.request.getFirstHeader(HTTP.CONTENT_TYPE);
+            if (contentTypeHeader != null) {
+                entity.setContentType(contentTypeHeader);
+            }
+            final Header contentEncodingHeader = this.request.getFirstHeader(HTTP.CONTENT_ENCODING);
+            if (contentEncodingHeader != null) {
+                entity.setContentEncoding(contentEncodingHeader);
+            }
+            ((HttpEntityEnclosingRequest) this.request).setEntity(entity);
+        }
+        this.content = null;
+        this.contentLength = 0;
+        this.state = COMPLETE;
+        return Result.MESSAGE_COMPLETE;
+    }
+
+}
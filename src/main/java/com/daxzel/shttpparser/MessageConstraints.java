@@ -27,8 +27,11 @@
 
 package com.daxzel.shttpparser;
 
+import com.daxzel.shttpparser.message.HeaderInterest;
+
 /**
- * HTTP Message constraints: line length and header count.
+ * HTTP Message constraints: line length, header count and body size, along with
+ * the options controlling how message heads are represented in memory.
  * <p>
  * Please note that line length is defined in bytes and not characters.
  * This is only relevant however when using non-standard HTTP charsets
@@ -43,11 +46,26 @@ public class MessageConstraints implements Cloneable {
 
     private final int maxLineLength;
     private final int maxHeaderCount;
+    private final boolean zeroCopyHeaders;
+    private final HeaderInterest headerInterest;
+    private final long maxBodySize;
 
     MessageConstraints(final int maxLineLength, final int maxHeaderCount) {
+        this(maxLineLength, maxHeaderCount, false, null, -1);
+    }
+
+    MessageConstraints(
+            final int maxLineLength,
+            final int maxHeaderCount,
+            final boolean zeroCopyHeaders,
+            final HeaderInterest headerInterest,
+            final long maxBodySize) {
         super();
         this.maxLineLength = maxLineLength;
         this.maxHeaderCount = maxHeaderCount;
+        this.zeroCopyHeaders = zeroCopyHeaders;
+        this.headerInterest = headerInterest;
+        this.maxBodySize = maxBodySize;
     }
 
     public int getMaxLineLength() {
@@ -58,6 +76,47 @@ public class MessageConstraints implements Cloneable {
         return maxHeaderCount;
     }
 
+    /**
+     * Determines whether parsers keep the header section of a message as a
+     * single byte array with headers represented by
+     * {@link com.daxzel.shttpparser.message.ByteSliceHeader} slices into it,
+     * rather than as one char buffer per header line.
+     *
+     * @return {@code true} if byte slice headers are used.
+     *
+     * @since 0.6
+     */
+    public boolean isZeroCopyHeaders() {
+        return zeroCopyHeaders;
+    }
+
+    /**
+     * Returns the set of headers parsers keep. Header lines with other names
+     * are checked for validity and dropped without being parsed further.
+     * Headers still count towards the maximum header count.
+     *
+     * @return the header interest set or {@code null} if all headers are kept.
+     *
+     * @since 0.6
+     */
+    public HeaderInterest getHeaderInterest() {
+        return headerInterest;
+    }
+
+    /**
+     * Returns the maximum size of a message body held in memory by parsers
+     * that buffer message bodies, such as {@link IncrementalHttpRequestParser}.
+     * Streamed bodies are not limited.
+     *
+     * @return the maximum body size in bytes, or a value not greater than
+     *   {@code 0} if bodies are only limited by the size of an array.
+     *
+     * @since 0.6
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
     @Override
     protected MessageConstraints clone() throws CloneNotSupportedException {
         return (MessageConstraints) super.clone();
@@ -68,6 +127,9 @@ public class MessageConstraints implements Cloneable {
         final StringBuilder builder = new StringBuilder();
         builder.append("[maxLineLength=").append(maxLineLength)
                 .append(", maxHeaderCount=").append(maxHeaderCount)
+                .append(", zeroCopyHeaders=").append(zeroCopyHeaders)
+                .append(", headerInterest=").append(headerInterest)
+                .append(", maxBodySize=").append(maxBodySize)
                 .append("]");
         return builder.toString();
     }
@@ -83,17 +145,24 @@ public class MessageConstraints implements Cloneable {
     public static MessageConstraints.Builder copy(final MessageConstraints config) {
         return new Builder()
                 .setMaxHeaderCount(config.getMaxHeaderCount())
-                .setMaxLineLength(config.getMaxLineLength());
+                .setMaxLineLength(config.getMaxLineLength())
+                .setZeroCopyHeaders(config.isZeroCopyHeaders())
+                .setHeaderInterest(config.getHeaderInterest())
+                .setMaxBodySize(config.getMaxBodySize());
     }
 
     public static class Builder {
 
         private int maxLineLength;
         private int maxHeaderCount;
+        private boolean zeroCopyHeaders;
+        private HeaderInterest headerInterest;
+        private long maxBodySize;
 
         Builder() {
             this.maxLineLength = -1;
             this.maxHeaderCount = -1;
+            this.maxBodySize = -1;
         }
 
         public Builder setMaxLineLength(final int maxLineLength) {
@@ -106,8 +175,43 @@ public class MessageConstraints implements Cloneable {
             return this;
         }
 
+        /**
+         * @since 0.6
+         */
+        public Builder setZeroCopyHeaders(final boolean zeroCopyHeaders) {
+            this.zeroCopyHeaders = zeroCopyHeaders;
+            return this;
+        }
+
+        /**
+         * @since 0.6
+         */
+        public Builder setHeaderInterest(final HeaderInterest headerInterest) {
+            this.headerInterest = headerInterest;
+            return this;
+        }
+
+        /**
+         * Shortcut for {@code setHeaderInterest(HeaderInterest.of(names))}.
+         *
+         * @since 0.6
+         */
+        public Builder setInterestingHeaders(final String... names) {
+            this.headerInterest = HeaderInterest.of(names);
+            return this;
+        }
+
+        /**
+         * @since 0.6
+         */
+        public Builder setMaxBodySize(final long maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
         public MessageConstraints build() {
-            return new MessageConstraints(maxLineLength, maxHeaderCount);
+            return new MessageConstraints(
+                    maxLineLength, maxHeaderCount, zeroCopyHeaders, headerInterest, maxBodySize);
         }
 
     }
@@ -0,0 +1,383 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.ByteBufferSessionInputBuffer;
+import com.daxzel.shttpparser.message.ChunkedInputStream;
+import com.daxzel.shttpparser.message.HTTP;
+import com.daxzel.shttpparser.message.HttpRequest;
+import com.daxzel.shttpparser.message.WellKnownHeaders;
+import com.daxzel.shttpparser.util.ByteSearch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator over the requests held back-to-back in a byte buffer, such as
+ * a request archive or a memory mapped capture file, that can be parsed in
+ * parallel.
+ * <p>
+ * The buffer is first scanned for message boundaries: the end of each head
+ * is located and the body is skipped according to its
+ * {@code Transfer-Encoding: chunked} or {@code Content-Length} header,
+ * without parsing anything else. Splitting then hands out disjoint ranges of
+ * whole messages, and every message is parsed by its own
+ * {@link DefaultHttpRequestParser} over a {@link ByteBufferSessionInputBuffer}
+ * view of the message, so the entities of parsed requests remain readable
+ * independently of each other. Requests are reported in their original
+ * order.
+ * <p>
+ * Requests without framing headers are taken to have no body. If the scan
+ * runs into malformed framing, the remainder of the buffer is treated as one
+ * message and the error is reported when it is parsed. Parse errors are
+ * rethrown as {@link UncheckedIOException}s for I/O errors and as
+ * {@link IllegalStateException}s for protocol violations.
+ *
+ * @since 0.6
+ */
+public class RequestSpliterator implements Spliterator<HttpRequest> {
+
+    private final ByteBuffer source;
+    private final MessageConstraints constraints;
+    private final int[] bounds;
+
+    private int index;
+    private final int fence;
+
+    RequestSpliterator(
+            final ByteBuffer source,
+            final MessageConstraints constraints,
+            final int[] bounds,
+            final int index,
+            final int fence) {
+        super();
+        this.source = source;
+        this.constraints = constraints;
+        this.bounds = bounds;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Scans the content of the buffer between its position and limit for
+     * message boundaries. The buffer itself is not modified.
+     *
+     * @param src the messages.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @return the spliterator
+     */
+    public static RequestSpliterator of(final ByteBuffer src, final MessageConstraints constraints) {
+        final ByteBuffer source = src.duplicate();
+        final int[] bounds = new Scanner(source).scan();
+        return new RequestSpliterator(source,
+                constraints != null ? constraints : MessageConstraints.DEFAULT,
+                bounds, 0, bounds.length - 1);
+    }
+
+    public static RequestSpliterator of(final byte[] b) {
+        return of(ByteBuffer.wrap(b), null);
+    }
+
+    /**
+     * Returns a stream of the requests in the buffer.
+     *
+     * @param src the messages.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param parallel whether the stream is parallel.
+     * @return the stream of requests
+     */
+    public static Stream<HttpRequest> stream(
+            final ByteBuffer src, final MessageConstraints constraints, final boolean parallel) {
+        return StreamSupport.stream(of(src, constraints), parallel);
+    }
+
+    /**
+     * Returns the start of the message at the given index within the
+     * source buffer.
+     */
+    public int getOffset(final int i) {
+        return this.bounds[i];
+    }
+
+    public boolean tryAdvance(final Consumer<? super HttpRequest> action) {
+        if (this.index >= this.fence) {
+            return false;
+        }
+        action.accept(parse(this.index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super HttpRequest> action) {
+        while (this.index < this.fence) {
+            action.accept(parse(this.index++));
+        }
+    }
+
+    private HttpRequest parse(final int i) {
+        final ByteBuffer message = this.source.duplicate();
+        message.limit(this.bounds[i + 1]);
+        message.position(this.bounds[i]);
+        final DefaultHttpRequestParser parser = new DefaultHttpRequestParser(
+                new ByteBufferSessionInputBuffer(message.slice(), null, this.constraints),
+                this.constraints);
+        try {
+            return parser.parse();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (final HttpException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    public Spliterator<HttpRequest> trySplit() {
+        final int lo = this.index;
+        final int mid = (lo + this.fence) >>> 1;
+        if (lo >= mid) {
+            return null;
+        }
+        this.index = mid;
+        return new RequestSpliterator(this.source, this.constraints, this.bounds, lo, mid);
+    }
+
+    public long estimateSize() {
+        return this.fence - this.index;
+    }
+
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Locates message boundaries by their framing.
+     */
+    static final class Scanner {
+
+        private final ByteBuffer buf;
+        private final int limit;
+        private byte[] scratch;
+
+        private int lineStart;
+        private int lineEnd;
+        private int next;
+
+        Scanner(final ByteBuffer buf) {
+            this.buf = buf;
+            this.limit = buf.limit();
+            this.scratch = new byte[64];
+        }
+
+        /**
+         * @return the start offsets of the messages followed by the end of
+         *   the last message.
+         */
+        int[] scan() {
+            int[] bounds = new int[64];
+            int count = 0;
+            int pos = this.buf.position();
+            for (;;) {
+                // skip empty lines between messages
+                while (readLine(pos) && this.lineStart == this.lineEnd) {
+                    pos = this.next;
+                }
+                if (pos >= this.limit) {
+                    break;
+                }
+                if (count + 2 > bounds.length) {
+                    final int[] newbounds = new int[bounds.length << 1];
+                    System.arraycopy(bounds, 0, newbounds, 0, count);
+                    bounds = newbounds;
+                }
+                bounds[count++] = pos;
+                try {
+                    pos = skipMessage(pos);
+                } catch (final MalformedChunkCodingException ex) {
+                    pos = this.limit;
+                }
+            }
+            bounds[count] = pos;
+            final int[] result = new int[count + 1];
+            System.arraycopy(bounds, 0, result, 0, count + 1);
+            return result;
+        }
+
+        /**
+         * Reads the line starting at the given position.
+         *
+         * @return {@code false} at the end of the buffer.
+         */
+        private boolean readLine(final int pos) {
+            if (pos >= this.limit) {
+                return false;
+            }
+            final int lf = ByteSearch.indexOf(this.buf, pos, this.limit, (byte) HTTP.LF);
+            int end = lf != -1 ? lf : this.limit;
+            this.next = lf != -1 ? lf + 1 : this.limit;
+            if (lf != -1 && end > pos && this.buf.get(end - 1) == HTTP.CR) {
+                end--;
+            }
+            this.lineStart = pos;
+            this.lineEnd = end;
+            return true;
+        }
+
+        private int skipMessage(final int start) throws MalformedChunkCodingException {
+            // request line
+            readLine(start);
+            int pos = this.next;
+            long contentLength = -1;
+            boolean chunked = false;
+            while (readLine(pos)) {
+                pos = this.next;
+                if (this.lineStart == this.lineEnd) {
+                    break;
+                }
+                final int colon = ByteSearch.indexOf(this.buf, this.lineStart, this.lineEnd, (byte) ':');
+                if (colon == -1) {
+                    continue;
+                }
+                final int id = lookupName(this.lineStart, colon);
+                if (id == WellKnownHeaders.TRANSFER_ENCODING) {
+                    chunked = valueEquals(colon + 1, this.lineEnd, HTTP.CHUNK_CODING);
+                } else if (id == WellKnownHeaders.CONTENT_LENGTH && contentLength == -1) {
+                    contentLength = parseLength(colon + 1, this.lineEnd);
+                }
+            }
+            if (chunked) {
+                return skipChunks(pos);
+            }
+            if (contentLength > 0) {
+                // the declared length may exceed the buffer by far
+                return contentLength >= this.limit - pos ? this.limit : (int) (pos + contentLength);
+            }
+            return pos;
+        }
+
+        private int skipChunks(final int start) throws MalformedChunkCodingException {
+            int pos = start;
+            for (;;) {
+                if (!readLine(pos)) {
+                    return this.limit;
+                }
+                final int len = this.lineEnd - this.lineStart;
+                final byte[] line = copy(this.lineStart, len);
+                final long size = ChunkedInputStream.parseChunkSize(line, 0, len);
+                pos = this.next;
+                if (size == 0) {
+                    break;
+                }
+                if (size > this.limit - pos) {
+                    return this.limit;
+                }
+                // chunk data followed by CRLF
+                pos += (int) size;
+                if (!readLine(pos)) {
+                    return this.limit;
+                }
+                pos = this.next;
+            }
+            // trailers up to the empty line
+            while (readLine(pos)) {
+                pos = this.next;
+                if (this.lineStart == this.lineEnd) {
+                    break;
+                }
+            }
+            return pos;
+        }
+
+        private byte[] copy(final int from, final int len) {
+            if (this.scratch.length < len) {
+                this.scratch = new byte[Math.max(len, this.scratch.length << 1)];
+            }
+            final ByteBuffer dup = this.buf.duplicate();
+            dup.limit(from + len);
+            dup.position(from);
+            dup.get(this.scratch, 0, len);
+            return this.scratch;
+        }
+
+        private int lookupName(final int from, final int to) {
+            int end = to;
+            while (end > from && HTTP.isWhitespace((char) this.buf.get(end - 1))) {
+                end--;
+            }
+            if (end - from > 64) {
+                return WellKnownHeaders.UNKNOWN;
+            }
+            return WellKnownHeaders.lookup(copy(from, end - from), 0, end - from);
+        }
+
+        private boolean valueEquals(final int from, final int to, final String lower) {
+            int i = from;
+            int end = to;
+            while (i < end && HTTP.isWhitespace((char) this.buf.get(i))) {
+                i++;
+            }
+            while (end > i && HTTP.isWhitespace((char) this.buf.get(end - 1))) {
+                end--;
+            }
+            if (end - i != lower.length()) {
+                return false;
+            }
+            for (int j = 0; j < lower.length(); j++) {
+                if (Character.toLowerCase((char) this.buf.get(i + j)) != lower.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long parseLength(final int from, final int to) {
+            long len = 0;
+            boolean digits = false;
+            for (int i = from; i < to; i++) {
+                final char ch = (char) this.buf.get(i);
+                if (ch >= '0' && ch <= '9') {
+                    if (len > Integer.MAX_VALUE) {
+                        return Long.MAX_VALUE;
+                    }
+                    len = len * 10 + (ch - '0');
+                    digits = true;
+                } else if (!HTTP.isWhitespace(ch)) {
+                    return -1;
+                }
+            }
+            return digits ? len : -1;
+        }
+
+    }
+
+}
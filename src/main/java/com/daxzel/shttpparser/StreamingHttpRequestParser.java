@@ -0,0 +1,277 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.message.BasicLineParser;
+import com.daxzel.shttpparser.message.ChunkedInputStream;
+import com.daxzel.shttpparser.message.ContentLengthInputStream;
+import com.daxzel.shttpparser.message.ContentLengthStrategy;
+import com.daxzel.shttpparser.message.HeaderInterest;
+import com.daxzel.shttpparser.message.HttpMethods;
+import com.daxzel.shttpparser.message.IdentityInputStream;
+import com.daxzel.shttpparser.message.LineParser;
+import com.daxzel.shttpparser.message.MessageConstraintException;
+import com.daxzel.shttpparser.message.ParseException;
+import com.daxzel.shttpparser.message.RequestScanner;
+import com.daxzel.shttpparser.message.WellKnownHeaders;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import com.daxzel.shttpparser.util.CharSlice;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Event based HTTP request parser. Instead of building request objects this
+ * parser reports the protocol elements of every request to a
+ * {@link HttpRequestListener} as soon as they have been read, passing
+ * slices of its internal buffers. No header objects, strings or entities
+ * are created, so memory use does not depend on the number of headers and
+ * the body never needs to be held in memory.
+ * <p>
+ * The message body is delimited the same way as by
+ * {@link com.daxzel.shttpparser.message.RecyclableHttpRequest}: by a
+ * {@code Transfer-Encoding} or {@code Content-Length} header, or by the end
+ * of the stream for {@code POST} and {@code PUT} requests without either
+ * of them.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class StreamingHttpRequestParser {
+
+    private static final int BODY_BUFFER_SIZE = 4096;
+
+    private final SessionInputBuffer sessionBuffer;
+    private final MessageConstraints constraints;
+    private final LineParser lineParser;
+    private final RequestScanner scanner;
+    private final CharArrayBuffer lineBuffer;
+    private final CharSlice nameSlice;
+    private final CharSlice valueSlice;
+
+    private CharArrayBuffer pending;
+    private CharArrayBuffer current;
+    private byte[] bodyBuffer;
+
+    private ProtocolVersion version;
+    private boolean bodyAllowed;
+    private long contentLength;
+    private boolean chunked;
+    private boolean identity;
+
+    /**
+     * Creates new instance of StreamingHttpRequestParser.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser used to parse the protocol version.
+     *   If {@code null}
+     *   {@link BasicLineParser#INSTANCE} will be used.
+     * @param constraints the message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public StreamingHttpRequestParser(
+            final SessionInputBuffer buffer,
+            final LineParser lineParser,
+            final MessageConstraints constraints) {
+        super();
+        this.sessionBuffer = buffer;
+        this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.scanner = new RequestScanner();
+        this.lineBuffer = new CharArrayBuffer(128);
+        this.pending = new CharArrayBuffer(64);
+        this.current = new CharArrayBuffer(64);
+        this.nameSlice = new CharSlice();
+        this.valueSlice = new CharSlice();
+    }
+
+    public StreamingHttpRequestParser(final SessionInputBuffer buffer) {
+        this(buffer, null, null);
+    }
+
+    /**
+     * Reads the next request from the session input buffer, reporting its
+     * elements to the given listener. When this method returns normally the
+     * request has been consumed completely, including its body, and the
+     * session input buffer is positioned at the start of the next request.
+     *
+     * @param listener the listener to report to.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation or if the
+     *   listener rejects the request.
+     */
+    public void parse(final HttpRequestListener listener) throws IOException, HttpException {
+        this.lineBuffer.clear();
+        if (this.sessionBuffer.readLine(this.lineBuffer) == -1) {
+            throw new ConnectionClosedException("Client closed connection");
+        }
+        try {
+            parseRequestLine(listener);
+        } catch (final ParseException px) {
+            throw new ProtocolException(px.getMessage(), px);
+        }
+        parseHeaders(listener);
+        listener.onHeadersComplete();
+        parseBody(listener);
+        listener.onMessageComplete();
+    }
+
+    private void parseRequestLine(final HttpRequestListener listener) throws ParseException, HttpException {
+        final CharArrayBuffer buffer = this.lineBuffer;
+        final RequestScanner scanner = this.scanner;
+        scanner.scanRequestLine(buffer, this.lineParser);
+        final int methodStart = scanner.getMethodStart();
+        final int methodEnd = scanner.getMethodEnd();
+        final ProtocolVersion ver = scanner.getProtocolVersion();
+        this.version = ver;
+        final String knownMethod = HttpMethods.lookup(buffer.buffer(), methodStart, methodEnd - methodStart);
+        this.bodyAllowed = knownMethod == HttpMethods.POST || knownMethod == HttpMethods.PUT;
+        this.nameSlice.set(buffer.buffer(), methodStart, methodEnd - methodStart);
+        this.valueSlice.set(buffer.buffer(), scanner.getTargetStart(),
+                scanner.getTargetEnd() - scanner.getTargetStart());
+        listener.onRequestLine(this.nameSlice, this.valueSlice, ver);
+    }
+
+    /**
+     * Reads the header section one line ahead, so that continuation lines
+     * can be unfolded into the pending header before it is reported.
+     */
+    private void parseHeaders(final HttpRequestListener listener) throws IOException, HttpException {
+        final int maxHeaderCount = this.constraints.getMaxHeaderCount();
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        this.contentLength = -1;
+        this.chunked = false;
+        this.identity = false;
+        this.pending.clear();
+        int count = 0;
+        for (;;) {
+            this.current.clear();
+            final int l = this.sessionBuffer.readLine(this.current);
+            if (l == -1 || this.current.length() < 1) {
+                break;
+            }
+            if (this.current.charAt(0) == ' ' && this.current.length() == 1) {
+                break;
+            }
+            if ((this.current.charAt(0) == ' ' || this.current.charAt(0) == '\t') && count > 0) {
+                int i = 0;
+                while (i < this.current.length()) {
+                    final char ch = this.current.charAt(i);
+                    if (ch != ' ' && ch != '\t') {
+                        break;
+                    }
+                    i++;
+                }
+                if (maxLineLen > 0 && this.pending.length() + 1 + this.current.length() - i > maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+                this.pending.append(' ');
+                this.pending.append(this.current, i, this.current.length() - i);
+            } else {
+                if (count > 0) {
+                    emitHeader(listener, this.pending);
+                }
+                final CharArrayBuffer tmp = this.pending;
+                this.pending = this.current;
+                this.current = tmp;
+                count++;
+            }
+            if (maxHeaderCount > 0 && count >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+        }
+        if (count > 0) {
+            emitHeader(listener, this.pending);
+        }
+    }
+
+    private void emitHeader(
+            final HttpRequestListener listener, final CharArrayBuffer line) throws HttpException {
+        final int colon = line.indexOf(':');
+        if (colon == -1) {
+            throw new ProtocolException("Invalid header: " + line.toString());
+        }
+        final int nameStart = RequestScanner.skipWhitespace(line, 0, colon);
+        final int nameEnd = RequestScanner.trimWhitespace(line, nameStart, colon);
+        if (nameEnd == nameStart) {
+            throw new ProtocolException("Invalid header: " + line.toString());
+        }
+        final int valueStart = RequestScanner.skipWhitespace(line, colon + 1, line.length());
+        final int valueEnd = RequestScanner.trimWhitespace(line, valueStart, line.length());
+        final char[] chars = line.buffer();
+        final int id = WellKnownHeaders.lookup(chars, nameStart, nameEnd - nameStart);
+        if (id == WellKnownHeaders.TRANSFER_ENCODING) {
+            if (RequestScanner.parseTransferEncoding(line, valueStart, valueEnd, this.version)
+                    == ContentLengthStrategy.CHUNKED) {
+                this.chunked = true;
+            } else {
+                this.identity = true;
+            }
+        } else if (id == WellKnownHeaders.CONTENT_LENGTH && this.contentLength == -1) {
+            this.contentLength = RequestScanner.parseContentLength(line, valueStart, valueEnd);
+        }
+        final HeaderInterest interest = this.constraints.getHeaderInterest();
+        if (interest != null && !interest.includes(chars, 0, colon + 1)) {
+            return;
+        }
+        this.nameSlice.set(chars, nameStart, nameEnd - nameStart);
+        this.valueSlice.set(chars, valueStart, valueEnd - valueStart);
+        listener.onHeader(this.nameSlice, this.valueSlice);
+    }
+
+    private void parseBody(final HttpRequestListener listener) throws IOException, HttpException {
+        final InputStream content;
+        if (this.chunked) {
+            content = new ChunkedInputStream(this.sessionBuffer, this.constraints);
+        } else if (this.identity || this.contentLength == -1) {
+            if (!this.bodyAllowed) {
+                // no message body
+                return;
+            }
+            content = new IdentityInputStream(this.sessionBuffer);
+        } else if (this.contentLength > 0) {
+            content = new ContentLengthInputStream(this.sessionBuffer, this.contentLength);
+        } else {
+            return;
+        }
+        if (this.bodyBuffer == null) {
+            this.bodyBuffer = new byte[BODY_BUFFER_SIZE];
+        }
+        final byte[] b = this.bodyBuffer;
+        int l;
+        while ((l = content.read(b, 0, b.length)) != -1) {
+            if (l > 0) {
+                listener.onBody(b, 0, l);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.io;
+
+/**
+ * Source of reusable byte arrays for I/O buffers.
+ * <p>
+ * Arrays obtained from a pool may be larger than requested and hold data
+ * left by their previous user. An array must not be used any more once it
+ * has been released.
+ *
+ * @since 0.6
+ */
+public interface BufferPool {
+
+    /**
+     * Obtains an array of at least the given size.
+     *
+     * @param size the minimum size of the array.
+     * @return the array
+     */
+    byte[] acquire(int size);
+
+    /**
+     * Returns an array to the pool. Arrays the pool does not want are
+     * dropped.
+     *
+     * @param b the array, may be {@code null}.
+     */
+    void release(byte[] b);
+
+}
@@ -0,0 +1,205 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.io;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BufferPool} handing out arrays in power of two size classes.
+ * <p>
+ * Every thread caches one array per size class, so a thread that releases
+ * an array and acquires one of the same class again, as a connection
+ * handler does between connections, never touches shared state. Arrays that
+ * do not fit into the cache of the releasing thread go to a shared free
+ * list, which is striped by thread to keep contention low and holds a
+ * bounded number of arrays per stripe. A thread finding its own stripe
+ * empty on acquisition, or full on release, tries the other stripes before
+ * allocating, respectively dropping, an array. Arrays that fit nowhere, and
+ * arrays larger than the maximum pooled size, are left to the garbage
+ * collector.
+ * <p>
+ * The pool counts acquisitions served from the pool (hits) and those that
+ * had to allocate (misses).
+ *
+ * ThreadSafe
+ *
+ * @since 0.6
+ */
+public class ByteArrayPool implements BufferPool {
+
+    /**
+     * Shared pool instance with the default settings.
+     */
+    public static final ByteArrayPool INSTANCE = new ByteArrayPool();
+
+    private static final int MIN_SHIFT = 9;
+
+    private final int maxShift;
+    private final int stripes;
+    private final int slots;
+    private final ThreadLocal<byte[][]> local;
+    private final AtomicReferenceArray<byte[]> shared;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Creates new instance of ByteArrayPool.
+     *
+     * @param maxArraySize the size of the largest arrays to pool.
+     * @param slotsPerStripe the number of arrays of a size class each stripe
+     *   of the shared free list holds.
+     */
+    public ByteArrayPool(final int maxArraySize, final int slotsPerStripe) {
+        super();
+        this.maxShift = Math.max(MIN_SHIFT, shift(maxArraySize));
+        this.stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1);
+        this.slots = slotsPerStripe;
+        final int classes = this.maxShift - MIN_SHIFT + 1;
+        this.local = new ThreadLocal<byte[][]>() {
+
+            @Override
+            protected byte[][] initialValue() {
+                return new byte[classes][];
+            }
+
+        };
+        this.shared = new AtomicReferenceArray<byte[]>(classes * this.stripes * this.slots);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    public ByteArrayPool() {
+        this(1 << 20, 8);
+    }
+
+    /**
+     * Returns the smallest shift such that {@code 1 << shift >= size}.
+     */
+    private static int shift(final int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Takes an array of the given size class from the shared free list,
+     * starting with the stripe of the current thread.
+     */
+    private byte[] take(final int sizeClass) {
+        final int home = (int) Thread.currentThread().getId();
+        for (int n = 0; n < this.stripes; n++) {
+            final int base = (sizeClass * this.stripes + ((home + n) & (this.stripes - 1))) * this.slots;
+            for (int i = base; i < base + this.slots; i++) {
+                final byte[] b = this.shared.get(i);
+                if (b != null && this.shared.compareAndSet(i, b, null)) {
+                    return b;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts the array into a free slot of the shared free list, starting
+     * with the stripe of the current thread.
+     *
+     * @return {@code false} if all slots of the size class are taken.
+     */
+    private boolean put(final int sizeClass, final byte[] b) {
+        final int home = (int) Thread.currentThread().getId();
+        for (int n = 0; n < this.stripes; n++) {
+            final int base = (sizeClass * this.stripes + ((home + n) & (this.stripes - 1))) * this.slots;
+            for (int i = base; i < base + this.slots; i++) {
+                if (this.shared.get(i) == null && this.shared.compareAndSet(i, null, b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public byte[] acquire(final int size) {
+        final int shift = Math.max(MIN_SHIFT, shift(size));
+        if (shift > this.maxShift) {
+            this.misses.increment();
+            return new byte[size];
+        }
+        final int sizeClass = shift - MIN_SHIFT;
+        final byte[][] cache = this.local.get();
+        byte[] b = cache[sizeClass];
+        if (b != null) {
+            cache[sizeClass] = null;
+            this.hits.increment();
+            return b;
+        }
+        b = take(sizeClass);
+        if (b != null) {
+            this.hits.increment();
+            return b;
+        }
+        this.misses.increment();
+        return new byte[1 << shift];
+    }
+
+    public void release(final byte[] b) {
+        if (b == null) {
+            return;
+        }
+        final int len = b.length;
+        if (len < (1 << MIN_SHIFT) || len > (1 << this.maxShift) || (len & (len - 1)) != 0) {
+            // not one of ours
+            return;
+        }
+        final int sizeClass = shift(len) - MIN_SHIFT;
+        final byte[][] cache = this.local.get();
+        if (cache[sizeClass] == null) {
+            cache[sizeClass] = b;
+            return;
+        }
+        put(sizeClass, b);
+    }
+
+    /**
+     * Returns the number of acquisitions served by a pooled array.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of acquisitions that allocated a new array.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "[hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.io;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content stream able to transfer its remaining content to a channel
+ * straight from the session input buffer, without copying it through an
+ * intermediate array.
+ *
+ * @since 0.6
+ */
+public interface ChannelTransfer {
+
+    /**
+     * Transfers the remaining content of this stream to the given channel.
+     * The channel is expected to be in blocking mode.
+     *
+     * @param channel the channel to write the content to.
+     * @return the number of bytes transferred.
+     * @throws IOException in case of an I/O error
+     */
+    long transferTo(WritableByteChannel channel) throws IOException;
+
+}
@@ -28,9 +28,13 @@
 package com.daxzel.shttpparser.io;
 
 
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ChannelUtils;
 import com.daxzel.shttpparser.util.CharArrayBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Session input buffer for blocking connections. This interface is similar to
@@ -113,6 +117,38 @@ public interface SessionInputBuffer {
      */
     int readLine(CharArrayBuffer buffer) throws IOException;
 
+    /**
+     * Reads a complete line of bytes up to a line delimiter from this
+     * session buffer and appends it to the given byte buffer. The number of
+     * bytes appended is returned as an integer. The line delimiter itself is
+     * discarded. If no byte is available because the end of the stream has
+     * been reached, the value {@code -1} is returned. This method blocks until
+     * input data is available, end of file is detected, or an exception is
+     * thrown.
+     * <p>
+     * Unlike {@link #readLine(CharArrayBuffer)} no char decoding takes place,
+     * which allows protocol elements to be kept in their raw form.
+     * <p>
+     * The default implementation reads the line with
+     * {@link #readLine(CharArrayBuffer)} and narrows its chars to bytes, so
+     * it is only lossless for implementations decoding one char per byte.
+     *
+     * @param      buffer   the byte buffer to append the line to.
+     * @return     number of bytes appended
+     * @exception  IOException  if an I/O error occurs.
+     *
+     * @since 0.6
+     */
+    default int readLine(final ByteArrayBuffer buffer) throws IOException {
+        final CharArrayBuffer line = new CharArrayBuffer(64);
+        final int l = readLine(line);
+        if (l == -1) {
+            return -1;
+        }
+        buffer.append(line, 0, line.length());
+        return line.length();
+    }
+
     /**
      * Reads a complete line of characters up to a line delimiter from this
      * session buffer. The line delimiter itself is discarded. If no char is
@@ -128,6 +164,75 @@ public interface SessionInputBuffer {
      */
     String readLine() throws IOException;
 
+    /**
+     * Skips over and discards {@code n} bytes of data from this session
+     * buffer. Data already buffered is discarded in place without being
+     * copied; more data is read from the underlying stream only as needed.
+     * Fewer than {@code n} bytes are skipped only if the end of the stream
+     * is reached first. This method blocks until the bytes are skipped, end
+     * of file is detected, or an exception is thrown.
+     * <p>
+     * The default implementation reads the bytes into a scratch array and
+     * discards them.
+     *
+     * @param      n   the number of bytes to skip.
+     * @return     the number of bytes actually skipped.
+     * @exception  IOException  if an I/O error occurs.
+     *
+     * @since 0.6
+     */
+    default long skip(final long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        final byte[] tmp = new byte[(int) Math.min(n, 2048)];
+        long remaining = n;
+        while (remaining > 0) {
+            final int l = read(tmp, 0, (int) Math.min(remaining, tmp.length));
+            if (l == -1) {
+                break;
+            }
+            remaining -= l;
+        }
+        return n - remaining;
+    }
+
+    /**
+     * Transfers {@code count} bytes of data from this session buffer to the
+     * given channel. Data already buffered is written straight from the
+     * buffer; the rest is moved from the underlying stream to the channel
+     * without passing through any further intermediate array where the
+     * implementation allows. Fewer than {@code count} bytes are transferred
+     * only if the end of the stream is reached first. The channel is
+     * expected to be in blocking mode.
+     * <p>
+     * The default implementation reads the bytes into a scratch array and
+     * writes them to the channel from there.
+     *
+     * @param      channel   the channel to write to.
+     * @param      count     the number of bytes to transfer.
+     * @return     the number of bytes actually transferred.
+     * @exception  IOException  if an I/O error occurs.
+     *
+     * @since 0.6
+     */
+    default long transferTo(final WritableByteChannel channel, final long count) throws IOException {
+        if (count <= 0) {
+            return 0;
+        }
+        final byte[] tmp = new byte[(int) Math.min(count, 4096)];
+        long remaining = count;
+        while (remaining > 0) {
+            final int l = read(tmp, 0, (int) Math.min(remaining, tmp.length));
+            if (l == -1) {
+                break;
+            }
+            ChannelUtils.writeFully(channel, ByteBuffer.wrap(tmp, 0, l));
+            remaining -= l;
+        }
+        return count - remaining;
+    }
+
     /** Blocks until some data becomes available in the session buffer or the
      * given timeout period in milliseconds elapses. If the timeout value is
      * {@code 0} this method blocks indefinitely.
@@ -45,7 +45,7 @@ public abstract class AbstractHttpMessage implements HttpMessage {
     @Deprecated
     protected AbstractHttpMessage(final HttpParams params) {
         super();
-        this.headergroup = new HeaderGroup();
+        this.headergroup = new IndexedHeaderGroup();
         this.params = params;
     }
 
@@ -1,10 +1,14 @@
 package com.daxzel.shttpparser.message;
 
+import com.daxzel.shttpparser.io.ChannelTransfer;
 import com.daxzel.shttpparser.io.EmptyInputStream;
+import com.daxzel.shttpparser.util.ChannelUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A generic streamed, non-repeatable entity that obtains its content
@@ -87,6 +91,24 @@ public class BasicHttpEntity extends AbstractHttpEntity {
         }
     }
 
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        final InputStream instream = getContent();
+        try {
+            if (instream instanceof ChannelTransfer) {
+                return ((ChannelTransfer) instream).transferTo(channel);
+            }
+            long total = 0;
+            int l;
+            final byte[] tmp = new byte[OUTPUT_BUFFER_SIZE];
+            while ((l = instream.read(tmp)) != -1) {
+                total += ChannelUtils.writeFully(channel, ByteBuffer.wrap(tmp, 0, l));
+            }
+            return total;
+        } finally {
+            instream.close();
+        }
+    }
+
     public boolean isStreaming() {
         return this.content != null && this.content != EmptyInputStream.INSTANCE;
     }
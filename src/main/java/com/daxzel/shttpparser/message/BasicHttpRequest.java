@@ -42,6 +42,7 @@ public class BasicHttpRequest extends AbstractHttpMessage implements HttpRequest
     private final String uri;
 
     private RequestLine requestline;
+    private RequestTarget target;
 
     /**
      * Creates an instance of this class using the given request method
@@ -102,6 +103,20 @@ public class BasicHttpRequest extends AbstractHttpMessage implements HttpRequest
         return this.requestline;
     }
 
+    /**
+     * @since 0.6
+     */
+    public RequestTarget getRequestTarget() {
+        final RequestLine line = getRequestLine();
+        if (line instanceof BasicRequestLine) {
+            return ((BasicRequestLine) line).getRequestTarget();
+        }
+        if (this.target == null) {
+            this.target = RequestTarget.parse(line.getUri());
+        }
+        return this.target;
+    }
+
     @Override
     public String toString() {
         return this.method + ' ' + this.uri + ' ' + this.headergroup;
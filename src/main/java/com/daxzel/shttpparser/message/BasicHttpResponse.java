@@ -0,0 +1,142 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.util.ProtocolVersion;
+
+/**
+ * Basic implementation of {@link HttpResponse}.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class BasicHttpResponse extends AbstractHttpMessage implements HttpResponse {
+
+    private StatusLine statusline;
+    private ProtocolVersion ver;
+    private int code;
+    private String reasonPhrase;
+    private HttpEntity entity;
+
+    /**
+     * Creates a new response.
+     *
+     * @param statusline        the status line
+     */
+    public BasicHttpResponse(final StatusLine statusline) {
+        super();
+        this.statusline = statusline;
+        this.ver = statusline.getProtocolVersion();
+        this.code = statusline.getStatusCode();
+        this.reasonPhrase = statusline.getReasonPhrase();
+    }
+
+    /**
+     * Creates a response from elements of a status line.
+     *
+     * @param ver       the protocol version of the response
+     * @param code      the status code of the response
+     * @param reason    the reason phrase to the status code, or
+     *                  {@code null}
+     */
+    public BasicHttpResponse(final ProtocolVersion ver,
+                             final int code,
+                             final String reason) {
+        super();
+        this.statusline = null;
+        this.ver = ver;
+        this.code = code;
+        this.reasonPhrase = reason;
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return this.ver;
+    }
+
+    public StatusLine getStatusLine() {
+        if (this.statusline == null) {
+            this.statusline = new BasicStatusLine(
+                    this.ver != null ? this.ver : HttpVersion.HTTP_1_1,
+                    this.code,
+                    this.reasonPhrase);
+        }
+        return this.statusline;
+    }
+
+    public HttpEntity getEntity() {
+        return this.entity;
+    }
+
+    public void setStatusLine(final StatusLine statusline) {
+        this.statusline = statusline;
+        this.ver = statusline.getProtocolVersion();
+        this.code = statusline.getStatusCode();
+        this.reasonPhrase = statusline.getReasonPhrase();
+    }
+
+    public void setStatusLine(final ProtocolVersion ver, final int code) {
+        setStatusLine(ver, code, null);
+    }
+
+    public void setStatusLine(
+            final ProtocolVersion ver, final int code, final String reason) {
+        this.statusline = null;
+        this.ver = ver;
+        this.code = code;
+        this.reasonPhrase = reason;
+    }
+
+    public void setStatusCode(final int code) {
+        this.statusline = null;
+        this.code = code;
+    }
+
+    public void setReasonPhrase(final String reason) {
+        this.statusline = null;
+        this.reasonPhrase = reason;
+    }
+
+    public void setEntity(final HttpEntity entity) {
+        this.entity = entity;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getStatusLine());
+        sb.append(' ');
+        sb.append(this.headergroup);
+        if (this.entity != null) {
+            sb.append(' ');
+            sb.append(this.entity);
+        }
+        return sb.toString();
+    }
+
+}
@@ -69,6 +69,12 @@ public class BasicLineParser implements LineParser {
      */
     protected final ProtocolVersion protocol;
 
+    /**
+     * Whether a subclass overrides the URI based request line hook, which
+     * then takes precedence over the target based one.
+     */
+    private final boolean legacyRequestLine;
+
 
     /**
      * Creates a new line parser for the given HTTP-like protocol.
@@ -79,6 +85,19 @@ public class BasicLineParser implements LineParser {
      */
     public BasicLineParser(final ProtocolVersion proto) {
         this.protocol = proto != null? proto : HttpVersion.HTTP_1_1;
+        this.legacyRequestLine = overridesLegacyRequestLine(getClass());
+    }
+
+    private static boolean overridesLegacyRequestLine(final Class<?> clazz) {
+        for (Class<?> c = clazz; c != BasicLineParser.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("createRequestLine", String.class, String.class, ProtocolVersion.class);
+                return true;
+            } catch (final NoSuchMethodException ignore) {
+                // not declared at this level
+            }
+        }
+        return false;
     }
 
 
@@ -114,6 +133,13 @@ public class BasicLineParser implements LineParser {
 
         int i = cursor.getPos();
 
+        // fast path for "HTTP/1.1", "HTTP/1.0" and "HTTP/2.0"
+        final ProtocolVersion common = parseCommonVersion(buffer, i, indexTo);
+        if (common != null) {
+            cursor.updatePos(i + 8);
+            return common;
+        }
+
         // long enough for "HTTP/1.1"?
         if (i + protolength + 4 > indexTo) {
             throw new ParseException
@@ -173,6 +199,37 @@ public class BasicLineParser implements LineParser {
     } // parseProtocolVersion
 
 
+    /**
+     * Recognizes the protocol versions in common use without allocating.
+     *
+     * @return the protocol version or {@code null} if the input is not
+     *   exactly {@code HTTP/1.1}, {@code HTTP/1.0} or {@code HTTP/2.0}
+     *   followed by a blank or the end of the input.
+     */
+    private ProtocolVersion parseCommonVersion(
+            final CharArrayBuffer buffer, final int from, final int to) {
+        if (from + 8 > to || (from + 8 < to && buffer.charAt(from + 8) != ' ')) {
+            return null;
+        }
+        if (!HttpVersion.HTTP.equals(this.protocol.getProtocol())) {
+            return null;
+        }
+        if (buffer.charAt(from) != 'H' || buffer.charAt(from + 1) != 'T'
+                || buffer.charAt(from + 2) != 'T' || buffer.charAt(from + 3) != 'P'
+                || buffer.charAt(from + 4) != '/' || buffer.charAt(from + 6) != '.') {
+            return null;
+        }
+        final char major = buffer.charAt(from + 5);
+        final char minor = buffer.charAt(from + 7);
+        if (major == '1' && (minor == '1' || minor == '0')) {
+            return createProtocolVersion(1, minor - '0');
+        }
+        if (major == '2' && minor == '0') {
+            return createProtocolVersion(2, 0);
+        }
+        return null;
+    }
+
     /**
      * Creates a protocol version.
      * Called from {@link #parseProtocolVersion}.
@@ -268,7 +325,7 @@ public class BasicLineParser implements LineParser {
                 throw new ParseException("Invalid request line: " +
                         buffer.substring(indexFrom, indexTo));
             }
-            final String method = buffer.substringTrimmed(i, blank);
+            final String method = method(buffer, i, blank);
             cursor.updatePos(blank);
 
             skipWhitespace(buffer, cursor);
@@ -279,7 +336,7 @@ public class BasicLineParser implements LineParser {
                 throw new ParseException("Invalid request line: " +
                         buffer.substring(indexFrom, indexTo));
             }
-            final String uri = buffer.substringTrimmed(i, blank);
+            final RequestTarget target = requestTarget(buffer, i, blank);
             cursor.updatePos(blank);
 
             final ProtocolVersion ver = parseProtocolVersion(buffer, cursor);
@@ -290,7 +347,7 @@ public class BasicLineParser implements LineParser {
                         buffer.substring(indexFrom, indexTo));
             }
 
-            return createRequestLine(method, uri, ver);
+            return createRequestLine(method, target, ver);
         } catch (final IndexOutOfBoundsException e) {
             throw new ParseException("Invalid request line: " +
                     buffer.substring(indexFrom, indexTo));
@@ -298,9 +355,75 @@ public class BasicLineParser implements LineParser {
     } // parseRequestLine
 
 
+    /**
+     * Returns the method name in the given range, resolving well-known
+     * methods to the {@link HttpMethods} constants.
+     */
+    private static String method(final CharArrayBuffer buffer, final int from, final int to) {
+        int end = to;
+        while (end > from && HTTP.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        final String method = HttpMethods.lookup(buffer.buffer(), from, end - from);
+        return method != null ? method : buffer.substring(from, end);
+    }
+
+
+    /**
+     * Records the components of the request target in the given range while
+     * it is still in the line buffer.
+     */
+    private static RequestTarget requestTarget(final CharArrayBuffer buffer, final int from, final int to) {
+        int end = to;
+        while (end > from && HTTP.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        int pathEnd = -1;
+        int queryEnd = end;
+        for (int i = from; i < end; i++) {
+            final char ch = buffer.charAt(i);
+            if (ch == '?' && pathEnd == -1) {
+                pathEnd = i;
+            } else if (ch == '#') {
+                queryEnd = i;
+                break;
+            }
+        }
+        if (pathEnd == -1) {
+            pathEnd = queryEnd;
+        }
+        final int pathStart = RequestTarget.pathStart(buffer, from, pathEnd);
+        return new RequestTarget(buffer.substring(from, end),
+                pathStart - from, pathEnd - from, queryEnd - from);
+    }
+
+
+    /**
+     * Instantiates a new request line.
+     * Called from {@link #parseRequestLine}. If a subclass overrides
+     * {@link #createRequestLine(String, String, ProtocolVersion)} the
+     * default implementation delegates to that method instead.
+     *
+     * @param method    the request method
+     * @param target    the request target
+     * @param ver       the protocol version
+     *
+     * @return  a new request line with the given data
+     *
+     * @since 0.6
+     */
+    protected RequestLine createRequestLine(final String method,
+                                            final RequestTarget target,
+                                            final ProtocolVersion ver) {
+        if (this.legacyRequestLine) {
+            return createRequestLine(method, target.getUri(), ver);
+        }
+        return new BasicRequestLine(method, target, ver);
+    }
+
+
     /**
      * Instantiates a new request line.
-     * Called from {@link #parseRequestLine}.
      *
      * @param method    the request method
      * @param uri       the requested URI
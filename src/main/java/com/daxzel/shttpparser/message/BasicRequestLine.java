@@ -46,6 +46,8 @@ public class BasicRequestLine implements RequestLine, Cloneable, Serializable {
     private final String method;
     private final String uri;
 
+    private transient RequestTarget target;
+
     public BasicRequestLine(final String method,
                             final String uri,
                             final ProtocolVersion version) {
@@ -55,6 +57,19 @@ public class BasicRequestLine implements RequestLine, Cloneable, Serializable {
         this.protoversion = version;
     }
 
+    /**
+     * @since 0.6
+     */
+    public BasicRequestLine(final String method,
+                            final RequestTarget target,
+                            final ProtocolVersion version) {
+        super();
+        this.method = method;
+        this.uri = target.getUri();
+        this.protoversion = version;
+        this.target = target;
+    }
+
     public String getMethod() {
         return this.method;
     }
@@ -67,6 +82,20 @@ public class BasicRequestLine implements RequestLine, Cloneable, Serializable {
         return this.uri;
     }
 
+    /**
+     * Returns the request target split into its components. Request lines
+     * created by {@link BasicLineParser} carry the component offsets found
+     * while parsing; otherwise the URI is split on first access.
+     *
+     * @since 0.6
+     */
+    public RequestTarget getRequestTarget() {
+        if (this.target == null) {
+            this.target = RequestTarget.parse(this.uri);
+        }
+        return this.target;
+    }
+
     @Override
     public String toString() {
         // no need for non-default formatting in toString()
@@ -59,6 +59,11 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
      */
     private final int valuePos;
 
+    /**
+     * The {@link WellKnownHeaders} id of the header name.
+     */
+    private final int nameId;
+
 
     /**
      * Creates a new header from a buffer.
@@ -78,17 +83,33 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
             throw new ParseException
                     ("Invalid header: " + buffer.toString());
         }
-        final String s = buffer.substringTrimmed(0, colon);
-        if (s.length() == 0) {
+        int beginIndex = 0;
+        int endIndex = colon;
+        while (beginIndex < endIndex && HTTP.isWhitespace(buffer.charAt(beginIndex))) {
+            beginIndex++;
+        }
+        while (endIndex > beginIndex && HTTP.isWhitespace(buffer.charAt(endIndex - 1))) {
+            endIndex--;
+        }
+        if (beginIndex == endIndex) {
             throw new ParseException
                     ("Invalid header: " + buffer.toString());
         }
+        // well-known names share a canonical string instance
+        final int id = WellKnownHeaders.lookup(buffer.buffer(), beginIndex, endIndex - beginIndex);
+        final String s = id != WellKnownHeaders.UNKNOWN
+                ? WellKnownHeaders.name(id)
+                : buffer.substring(beginIndex, endIndex);
         this.buffer = buffer;
         this.name = s;
         this.valuePos = colon + 1;
+        this.nameId = id;
     }
 
-
+    /**
+     * Returns the header name, in the canonical spelling of
+     * {@link WellKnownHeaders} for well-known names.
+     */
     public String getName() {
         return this.name;
     }
@@ -103,6 +124,17 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
         return BasicHeaderValueParser.INSTANCE.parseElements(this.buffer, cursor);
     }
 
+    /**
+     * Returns the {@link WellKnownHeaders} id of the header name.
+     *
+     * @return the id or {@link WellKnownHeaders#UNKNOWN}
+     *
+     * @since 0.6
+     */
+    public int getNameId() {
+        return this.nameId;
+    }
+
     public int getValuePos() {
         return this.valuePos;
     }
@@ -0,0 +1,301 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.io.BufferPool;
+import com.daxzel.shttpparser.io.ByteArrayPool;
+import com.daxzel.shttpparser.io.ChannelTransfer;
+import com.daxzel.shttpparser.util.ChannelUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A repeatable entity holding a copy of the content of another entity.
+ * <p>
+ * Content up to the given threshold is kept in memory, in an array borrowed
+ * from a {@link BufferPool}. Larger content is spilled to a temporary file
+ * which is then memory mapped, so buffering large bodies does not grow the
+ * heap. The temporary file is deleted right after mapping where the platform
+ * allows it, and on exit otherwise.
+ * <p>
+ * The content is read completely when the entity is created, after which
+ * {@link #getContent()}, {@link #writeTo(OutputStream)} and
+ * {@link #transferTo(WritableByteChannel)} can be called any number of
+ * times. {@link #release()} hands the in-memory buffer back to the pool.
+ *
+ * NotThreadSafe
+ *
+ * @since 0.6
+ */
+public class BufferedHttpEntity extends AbstractHttpEntity {
+
+    /**
+     * Default size above which content is spilled to disk.
+     */
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private final BufferPool pool;
+
+    /** The in-memory content, {@code null} if the content has been spilled */
+    private byte[] buffer;
+
+    /** View of the content, either in memory or mapped */
+    private ByteBuffer content;
+
+    /**
+     * Creates a buffered copy of the given entity, consuming its content.
+     *
+     * @param entity the entity to buffer.
+     * @param threshold the size above which the content is spilled to disk.
+     * @param pool pool to borrow the in-memory buffer from. If {@code null}
+     *   {@link ByteArrayPool#INSTANCE} will be used.
+     * @throws IOException in case of an I/O error
+     */
+    public BufferedHttpEntity(
+            final HttpEntity entity,
+            final int threshold,
+            final BufferPool pool) throws IOException {
+        super();
+        if (entity == null) {
+            throw new IllegalArgumentException("Entity may not be null");
+        }
+        this.pool = pool != null ? pool : ByteArrayPool.INSTANCE;
+        this.contentType = entity.getContentType();
+        this.contentEncoding = entity.getContentEncoding();
+        final InputStream instream = entity.getContent();
+        if (instream == null) {
+            this.content = ByteBuffer.allocate(0);
+            return;
+        }
+        try {
+            final long len = entity.getContentLength();
+            if (len > threshold) {
+                spill(instream, null, 0, -1);
+            } else {
+                buffer(instream, len >= 0 ? (int) len : Math.min(threshold, OUTPUT_BUFFER_SIZE), threshold);
+            }
+        } finally {
+            instream.close();
+        }
+    }
+
+    public BufferedHttpEntity(final HttpEntity entity, final int threshold) throws IOException {
+        this(entity, threshold, null);
+    }
+
+    public BufferedHttpEntity(final HttpEntity entity) throws IOException {
+        this(entity, DEFAULT_THRESHOLD, null);
+    }
+
+    private void buffer(
+            final InputStream instream, final int initial, final int threshold) throws IOException {
+        byte[] b = this.pool.acquire(Math.max(initial, 1));
+        int len = 0;
+        try {
+            for (;;) {
+                // pooled arrays may be larger than requested
+                final int limit = Math.min(b.length, threshold);
+                if (len >= limit) {
+                    if (len >= threshold) {
+                        // spill only if there is more content
+                        final int next = instream.read();
+                        if (next == -1) {
+                            break;
+                        }
+                        final byte[] head = b;
+                        b = null;
+                        spill(instream, head, len, next);
+                        return;
+                    }
+                    final byte[] larger = this.pool.acquire(Math.min(threshold, len << 1));
+                    System.arraycopy(b, 0, larger, 0, len);
+                    this.pool.release(b);
+                    b = larger;
+                    continue;
+                }
+                final int l = instream.read(b, len, limit - len);
+                if (l == -1) {
+                    break;
+                }
+                len += l;
+            }
+            this.buffer = b;
+            this.content = ByteBuffer.wrap(b, 0, len);
+            b = null;
+        } finally {
+            if (b != null) {
+                this.pool.release(b);
+            }
+        }
+    }
+
+    /**
+     * Writes the given head of the content and the byte read ahead, if any,
+     * followed by the rest of the stream to a temporary file and maps it.
+     */
+    private void spill(
+            final InputStream instream, final byte[] head, final int len, final int next) throws IOException {
+        final File file = File.createTempFile("entity", ".tmp");
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final FileChannel channel = raf.getChannel();
+            if (head != null) {
+                try {
+                    ChannelUtils.writeFully(channel, ByteBuffer.wrap(head, 0, len));
+                } finally {
+                    this.pool.release(head);
+                }
+            }
+            if (next != -1) {
+                ChannelUtils.writeFully(channel, ByteBuffer.wrap(new byte[] {(byte) next}));
+            }
+            if (instream instanceof ChannelTransfer) {
+                ((ChannelTransfer) instream).transferTo(channel);
+            } else {
+                final byte[] tmp = this.pool.acquire(OUTPUT_BUFFER_SIZE);
+                try {
+                    int l;
+                    while ((l = instream.read(tmp)) != -1) {
+                        ChannelUtils.writeFully(channel, ByteBuffer.wrap(tmp, 0, l));
+                    }
+                } finally {
+                    this.pool.release(tmp);
+                }
+            }
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Entity content too large to buffer: " + size);
+            }
+            this.content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            raf.close();
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private ByteBuffer view() {
+        if (this.content == null) {
+            throw new IllegalStateException("Entity content has been released");
+        }
+        return this.content.duplicate();
+    }
+
+    public long getContentLength() {
+        return view().remaining();
+    }
+
+    /**
+     * Returns {@code true} if the content has been spilled to disk.
+     */
+    public boolean isSpilled() {
+        return this.content != null && this.buffer == null;
+    }
+
+    /**
+     * Returns a new stream reading the buffered content.
+     *
+     * @return a new content stream
+     * @throws IllegalStateException if the entity has been released
+     */
+    public InputStream getContent() {
+        return new IdentityInputStream(new ByteBufferSessionInputBuffer(view()));
+    }
+
+    /**
+     * Tells that this entity is not chunked. The length of the buffered
+     * content is always known.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    /**
+     * Tells that this entity is repeatable.
+     *
+     * @return {@code true}
+     */
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    public void writeTo(final OutputStream outstream) throws IOException {
+        final ByteBuffer src = view();
+        if (src.hasArray()) {
+            outstream.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            return;
+        }
+        final byte[] tmp = this.pool.acquire(OUTPUT_BUFFER_SIZE);
+        try {
+            while (src.hasRemaining()) {
+                final int l = Math.min(tmp.length, src.remaining());
+                src.get(tmp, 0, l);
+                outstream.write(tmp, 0, l);
+            }
+        } finally {
+            this.pool.release(tmp);
+        }
+    }
+
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        return ChannelUtils.writeFully(channel, view());
+    }
+
+    /**
+     * Tells that this entity does not depend on an underlying stream.
+     *
+     * @return {@code false}
+     */
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Hands the in-memory buffer back to the pool and drops the content.
+     * The entity must not be used afterwards.
+     */
+    public void release() {
+        if (this.buffer != null) {
+            this.pool.release(this.buffer);
+            this.buffer = null;
+        }
+        this.content = null;
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.MessageConstraints;
+import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.HttpTransportMetrics;
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ByteSearch;
+import com.daxzel.shttpparser.util.ChannelUtils;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Session input buffer over data that is already in memory. Content is read
+ * in place from the caller's byte array or {@link ByteBuffer}, which may be
+ * a direct or a memory mapped buffer, without copying it into an
+ * intermediate buffer first. The end of the data is treated as the end of
+ * the stream.
+ * <p>
+ * The source buffer itself is never modified: this class operates on a
+ * view sharing its content, positioned at the source position.
+ * <p>
+ * {@link #readLine(CharArrayBuffer)} and {@link #readLine()} methods of this
+ * class treat a lone LF as valid line delimiters in addition to CR-LF required
+ * by the HTTP specification. Protocol elements are converted from bytes to
+ * chars using simple type cast.
+ *
+ * NotThreadSafe
+ *
+ * @since 0.6
+ */
+public class ByteBufferSessionInputBuffer implements SessionInputBuffer, BufferInfo {
+
+    private final HttpTransportMetricsImpl metrics;
+    private final ByteBuffer buffer;
+    private final MessageConstraints constraints;
+
+    private ByteArrayBuffer linebuffer;
+
+    /**
+     * Creates new instance of ByteBufferSessionInputBuffer.
+     *
+     * @param src the data to read. Bytes between the position and the limit
+     *   of the buffer are read.
+     * @param metrics HTTP transport metrics. If {@code null} a new instance
+     *   of {@link HttpTransportMetricsImpl} will be used.
+     * @param constraints Message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public ByteBufferSessionInputBuffer(
+            final ByteBuffer src,
+            final HttpTransportMetricsImpl metrics,
+            final MessageConstraints constraints) {
+        this.buffer = src.duplicate();
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.metrics = metrics != null ? metrics : new HttpTransportMetricsImpl();
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+    }
+
+    public ByteBufferSessionInputBuffer(final ByteBuffer src) {
+        this(src, null, null);
+    }
+
+    public ByteBufferSessionInputBuffer(final byte[] b, final int off, final int len) {
+        this(ByteBuffer.wrap(b, off, len), null, null);
+    }
+
+    public ByteBufferSessionInputBuffer(final byte[] b) {
+        this(ByteBuffer.wrap(b), null, null);
+    }
+
+    /**
+     * Returns the absolute index within the source buffer of the next byte
+     * to be read.
+     *
+     * @return read position.
+     */
+    public int position() {
+        return this.buffer.position();
+    }
+
+    public int capacity() {
+        return this.buffer.remaining();
+    }
+
+    public int length() {
+        return this.buffer.remaining();
+    }
+
+    public int available() {
+        return 0;
+    }
+
+    public boolean hasBufferedData() {
+        return this.buffer.hasRemaining();
+    }
+
+    public int read() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        this.metrics.incrementBytesTransferred(1);
+        return this.buffer.get() & 0xff;
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (b == null) {
+            return 0;
+        }
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        final int chunk = Math.min(len, this.buffer.remaining());
+        this.buffer.get(b, off, chunk);
+        this.metrics.incrementBytesTransferred(chunk);
+        return chunk;
+    }
+
+    public long skip(final long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        final int chunk = (int) Math.min(n, this.buffer.remaining());
+        this.buffer.position(this.buffer.position() + chunk);
+        this.metrics.incrementBytesTransferred(chunk);
+        return chunk;
+    }
+
+    public long transferTo(final WritableByteChannel channel, final long count) throws IOException {
+        if (count <= 0) {
+            return 0;
+        }
+        final int chunk = (int) Math.min(count, this.buffer.remaining());
+        final int limit = this.buffer.limit();
+        this.buffer.limit(this.buffer.position() + chunk);
+        try {
+            ChannelUtils.writeFully(channel, this.buffer);
+        } finally {
+            this.buffer.limit(limit);
+        }
+        this.metrics.incrementBytesTransferred(chunk);
+        return chunk;
+    }
+
+    public int read(final byte[] b) throws IOException {
+        if (b == null) {
+            return 0;
+        }
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * Reads a complete line of characters up to a line delimiter from this
+     * session buffer into the given line buffer. The number of chars actually
+     * read is returned as an integer. The line delimiter itself is discarded.
+     * If no char is available because the end of the data has been reached,
+     * the value {@code -1} is returned.
+     * <p>
+     * This method treats a lone LF as a valid line delimiters in addition
+     * to CR-LF required by the HTTP specification.
+     *
+     * @param      charbuffer   the line buffer.
+     * @return     one line of characters
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int readLine(final CharArrayBuffer charbuffer) throws IOException {
+        final int off = this.buffer.position();
+        final int end = locateLine();
+        if (end == -1) {
+            return -1;
+        }
+        final int len = end - off;
+        if (this.buffer.hasArray()) {
+            charbuffer.append(this.buffer.array(), this.buffer.arrayOffset() + off, len);
+        } else {
+            if (this.linebuffer == null) {
+                this.linebuffer = new ByteArrayBuffer(Math.max(len, 128));
+            }
+            this.linebuffer.clear();
+            this.linebuffer.ensureCapacity(len);
+            final ByteBuffer line = this.buffer.duplicate();
+            line.limit(end);
+            line.position(off);
+            line.get(this.linebuffer.buffer(), 0, len);
+            this.linebuffer.setLength(len);
+            charbuffer.append(this.linebuffer, 0, len);
+        }
+        return len;
+    }
+
+    /**
+     * Reads a complete line of bytes up to a line delimiter from this
+     * session buffer and appends it to the given byte buffer. The line
+     * delimiter itself is discarded. If no byte is available because the end
+     * of the data has been reached, the value {@code -1} is returned.
+     *
+     * @param      bytebuffer   the byte buffer to append the line to.
+     * @return     number of bytes appended
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int readLine(final ByteArrayBuffer bytebuffer) throws IOException {
+        final int off = this.buffer.position();
+        final int end = locateLine();
+        if (end == -1) {
+            return -1;
+        }
+        final int len = end - off;
+        if (this.buffer.hasArray()) {
+            bytebuffer.append(this.buffer.array(), this.buffer.arrayOffset() + off, len);
+        } else {
+            final int oldlen = bytebuffer.length();
+            bytebuffer.ensureCapacity(len);
+            final ByteBuffer line = this.buffer.duplicate();
+            line.limit(end);
+            line.position(off);
+            line.get(bytebuffer.buffer(), oldlen, len);
+            bytebuffer.setLength(oldlen + len);
+        }
+        return len;
+    }
+
+    /**
+     * Consumes the next line and returns the end index of its content,
+     * excluding the line delimiter.
+     *
+     * @return end of the line content or {@code -1} at the end of the data.
+     */
+    private int locateLine() throws IOException {
+        final int off = this.buffer.position();
+        final int limit = this.buffer.limit();
+        if (off == limit) {
+            // indicate the end of stream
+            return -1;
+        }
+        final int pos = ByteSearch.indexOf(this.buffer, off, limit, (byte) HTTP.LF);
+        int end = pos != -1 ? pos : limit;
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        if (maxLineLen > 0 && end - off >= maxLineLen) {
+            throw new MessageConstraintException("Maximum line length limit exceeded");
+        }
+        final int next = pos != -1 ? pos + 1 : limit;
+        this.buffer.position(next);
+        this.metrics.incrementBytesTransferred(next - off);
+        if (pos != -1 && end > off && this.buffer.get(end - 1) == HTTP.CR) {
+            // skip CR if found
+            end--;
+        }
+        return end;
+    }
+
+    public String readLine() throws IOException {
+        final CharArrayBuffer charbuffer = new CharArrayBuffer(64);
+        final int l = readLine(charbuffer);
+        if (l != -1) {
+            return charbuffer.toString();
+        } else {
+            return null;
+        }
+    }
+
+    public boolean isDataAvailable(final int timeout) throws IOException {
+        return hasBufferedData();
+    }
+
+    public HttpTransportMetrics getMetrics() {
+        return this.metrics;
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.Serializable;
+
+/**
+ * This class represents a raw HTTP header as a pair of slices of a byte
+ * array shared by all headers of a message head. Name and value strings
+ * are created only when {@link #getName()} or {@link #getValue()} is
+ * called; header name comparisons can be done on the raw bytes with
+ * {@link #nameEquals(String)}. Names found in {@link WellKnownHeaders}
+ * resolve to the shared canonical name instead.
+ * <p>
+ * Bytes are converted to chars using simple type cast.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class ByteSliceHeader implements Header, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 5217632394657271532L;
+
+    /**
+     * The buffer containing the message head. Considered immutable.
+     */
+    private final byte[] buffer;
+
+    private final int nameOffset;
+    private final int nameLength;
+    private final int valueOffset;
+    private final int valueLength;
+    private final int nameId;
+
+    private String name;
+    private String value;
+
+    /**
+     * Creates a new header from the given slices. Both slices are expected
+     * to be trimmed.
+     *
+     * @param buffer      the buffer containing the header
+     * @param nameOffset  offset of the header name
+     * @param nameLength  length of the header name
+     * @param valueOffset offset of the header value
+     * @param valueLength length of the header value
+     */
+    public ByteSliceHeader(
+            final byte[] buffer,
+            final int nameOffset,
+            final int nameLength,
+            final int valueOffset,
+            final int valueLength) {
+        super();
+        this.buffer = buffer;
+        this.nameOffset = nameOffset;
+        this.nameLength = nameLength;
+        this.valueOffset = valueOffset;
+        this.valueLength = valueLength;
+        this.nameId = WellKnownHeaders.lookup(buffer, nameOffset, nameLength);
+        if (this.nameId != WellKnownHeaders.UNKNOWN) {
+            this.name = WellKnownHeaders.name(this.nameId);
+        }
+    }
+
+    /**
+     * Parses the header line in {@code buffer[from, to)}.
+     *
+     * @param buffer the buffer containing the header line
+     * @param from   the start of the line
+     * @param to     the end of the line, excluding the line delimiter
+     * @return the header
+     * @throws ParseException in case of a parse error
+     */
+    public static ByteSliceHeader parse(
+            final byte[] buffer, final int from, final int to) throws ParseException {
+        int colon = -1;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon == -1) {
+            throw new ParseException("Invalid header: " + new String(buffer, from, to - from, Consts.ISO_8859_1));
+        }
+        int nameFrom = from;
+        int nameTo = colon;
+        while (nameFrom < nameTo && isWhitespace(buffer[nameFrom])) {
+            nameFrom++;
+        }
+        while (nameTo > nameFrom && isWhitespace(buffer[nameTo - 1])) {
+            nameTo--;
+        }
+        if (nameFrom == nameTo) {
+            throw new ParseException("Invalid header: " + new String(buffer, from, to - from, Consts.ISO_8859_1));
+        }
+        int valueFrom = colon + 1;
+        int valueTo = to;
+        while (valueFrom < valueTo && isWhitespace(buffer[valueFrom])) {
+            valueFrom++;
+        }
+        while (valueTo > valueFrom && isWhitespace(buffer[valueTo - 1])) {
+            valueTo--;
+        }
+        return new ByteSliceHeader(buffer, nameFrom, nameTo - nameFrom, valueFrom, valueTo - valueFrom);
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return HTTP.isWhitespace((char) b);
+    }
+
+    /**
+     * Returns the header name, in the canonical spelling of
+     * {@link WellKnownHeaders} for well-known names.
+     */
+    public String getName() {
+        if (this.name == null) {
+            this.name = new String(this.buffer, this.nameOffset, this.nameLength, Consts.ISO_8859_1);
+        }
+        return this.name;
+    }
+
+    public String getValue() {
+        if (this.value == null) {
+            this.value = new String(this.buffer, this.valueOffset, this.valueLength, Consts.ISO_8859_1);
+        }
+        return this.value;
+    }
+
+    /**
+     * Compares the header name with the given name ignoring case, without
+     * creating a string for the header name.
+     *
+     * @param s the name to compare with
+     * @return {@code true} if the names are equal ignoring case
+     */
+    public boolean nameEquals(final String s) {
+        if (s == null || s.length() != this.nameLength) {
+            return false;
+        }
+        for (int i = 0; i < this.nameLength; i++) {
+            final char ch1 = (char) (this.buffer[this.nameOffset + i] & 0xff);
+            final char ch2 = s.charAt(i);
+            if (ch1 != ch2 && Character.toLowerCase(ch1) != Character.toLowerCase(ch2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public HeaderElement[] getElements() throws ParseException {
+        final CharArrayBuffer charbuffer = new CharArrayBuffer(this.valueLength);
+        charbuffer.append(this.buffer, this.valueOffset, this.valueLength);
+        final ParserCursor cursor = new ParserCursor(0, charbuffer.length());
+        return BasicHeaderValueParser.INSTANCE.parseElements(charbuffer, cursor);
+    }
+
+    /**
+     * Returns the {@link WellKnownHeaders} id of the header name.
+     *
+     * @return the id or {@link WellKnownHeaders#UNKNOWN}
+     */
+    public int getNameId() {
+        return this.nameId;
+    }
+
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    public int getNameOffset() {
+        return this.nameOffset;
+    }
+
+    public int getNameLength() {
+        return this.nameLength;
+    }
+
+    public int getValueOffset() {
+        return this.valueOffset;
+    }
+
+    public int getValueLength() {
+        return this.valueLength;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": " + getValue();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        // buffer is considered immutable
+        // no need to make a copy of it
+        return super.clone();
+    }
+
+}
@@ -0,0 +1,490 @@
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.MessageConstraints;
+import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.HttpTransportMetrics;
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ByteSearch;
+import com.daxzel.shttpparser.util.ChannelUtils;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Session input buffer that reads data from an arbitrary
+ * {@link ReadableByteChannel}, such as a
+ * {@link java.nio.channels.SocketChannel} or a
+ * {@link java.nio.channels.FileChannel}. Input data is buffered in a
+ * {@link ByteBuffer} that can optionally be allocated outside of the heap.
+ * <p>
+ * Line reading and buffering semantics are the same as those of
+ * {@link SessionInputBufferImpl}: a lone LF is treated as a valid line
+ * delimiter in addition to CR-LF, and reads larger than the min chunk limit
+ * bypass the internal buffer.
+ * <p>
+ * The channel is expected to operate in blocking mode. Non-blocking channels
+ * should be served by {@link com.daxzel.shttpparser.IncrementalHttpRequestParser}.
+ *
+ * NotThreadSafe
+ *
+ * @since 0.6
+ */
+public class ChannelSessionInputBuffer implements SessionInputBuffer, BufferInfo {
+
+    private static final int LINE_BUFFERED = -2;
+
+    private final HttpTransportMetricsImpl metrics;
+    private final ByteBuffer buffer;
+    private final ByteArrayBuffer linebuffer;
+    private final int minChunkLimit;
+    private final MessageConstraints constraints;
+    private final CharsetDecoder decoder;
+
+    private ReadableByteChannel channel;
+    private CharBuffer cbuf;
+
+    /**
+     * Creates new instance of ChannelSessionInputBuffer.
+     *
+     * @param metrics HTTP transport metrics.
+     * @param buffersize buffer size. Must be a positive number.
+     * @param direct if {@code true} the buffer is allocated with
+     *   {@link ByteBuffer#allocateDirect(int)}, which saves a copy inside
+     *   the channel implementation for socket and file channels.
+     * @param minChunkLimit size limit below which data chunks should be buffered in memory
+     *   in order to minimize native method invocations on the underlying channel.
+     *   If negative default chunk limited will be used.
+     * @param constraints Message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param chardecoder chardecoder to be used for decoding HTTP protocol elements.
+     *   If {@code null} simple type cast will be used for byte to char conversion.
+     */
+    public ChannelSessionInputBuffer(
+            final HttpTransportMetricsImpl metrics,
+            final int buffersize,
+            final boolean direct,
+            final int minChunkLimit,
+            final MessageConstraints constraints,
+            final CharsetDecoder chardecoder) {
+        this.metrics = metrics;
+        this.buffer = direct ? ByteBuffer.allocateDirect(buffersize) : ByteBuffer.allocate(buffersize);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        // the buffer is kept in read mode: [position, limit) holds unread data
+        this.buffer.limit(0);
+        this.minChunkLimit = minChunkLimit >= 0 ? minChunkLimit : 512;
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.linebuffer = new ByteArrayBuffer(buffersize);
+        this.decoder = chardecoder;
+    }
+
+    public ChannelSessionInputBuffer(
+            final HttpTransportMetricsImpl metrics,
+            final int buffersize,
+            final boolean direct) {
+        this(metrics, buffersize, direct, buffersize, null, null);
+    }
+
+    public void bind(final ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public boolean isBound() {
+        return this.channel != null;
+    }
+
+    public int capacity() {
+        return this.buffer.capacity();
+    }
+
+    public int length() {
+        return this.buffer.remaining();
+    }
+
+    public int available() {
+        return capacity() - length();
+    }
+
+    private int channelRead(final ByteBuffer dst) throws IOException {
+        return this.channel.read(dst);
+    }
+
+    public int fillBuffer() throws IOException {
+        // compact the buffer and switch it to write mode
+        this.buffer.compact();
+        final int l;
+        try {
+            l = channelRead(this.buffer);
+        } finally {
+            this.buffer.flip();
+        }
+        if (l == -1) {
+            return -1;
+        } else {
+            this.metrics.incrementBytesTransferred(l);
+            return l;
+        }
+    }
+
+    public boolean hasBufferedData() {
+        return this.buffer.hasRemaining();
+    }
+
+    public void clear() {
+        this.buffer.clear();
+        this.buffer.limit(0);
+    }
+
+    public int read() throws IOException {
+        int noRead;
+        while (!hasBufferedData()) {
+            noRead = fillBuffer();
+            if (noRead == -1) {
+                return -1;
+            }
+        }
+        return this.buffer.get() & 0xff;
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (b == null) {
+            return 0;
+        }
+        if (hasBufferedData()) {
+            final int chunk = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, chunk);
+            return chunk;
+        }
+        // If the remaining capacity is big enough, read directly from the
+        // underlying channel bypassing the buffer.
+        if (len > this.minChunkLimit) {
+            final int read = channelRead(ByteBuffer.wrap(b, off, len));
+            if (read > 0) {
+                this.metrics.incrementBytesTransferred(read);
+            }
+            return read;
+        } else {
+            // otherwise read to the buffer first
+            while (!hasBufferedData()) {
+                final int noRead = fillBuffer();
+                if (noRead == -1) {
+                    return -1;
+                }
+            }
+            final int chunk = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, chunk);
+            return chunk;
+        }
+    }
+
+    public long skip(final long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            if (!hasBufferedData() && fillBuffer() == -1) {
+                break;
+            }
+            final int chunk = (int) Math.min(remaining, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + chunk);
+            remaining -= chunk;
+        }
+        return n > 0 ? n - remaining : 0;
+    }
+
+    /**
+     * Transfers {@code count} bytes of data from this session buffer to the
+     * given channel. Buffered data is written first. If the target is a
+     * {@link FileChannel} the rest is moved with
+     * {@link FileChannel#transferFrom(java.nio.channels.ReadableByteChannel, long, long)},
+     * otherwise it passes through the read buffer of this session buffer.
+     *
+     * @param      channel   the channel to write to.
+     * @param      count     the number of bytes to transfer.
+     * @return     the number of bytes actually transferred.
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public long transferTo(final WritableByteChannel channel, final long count) throws IOException {
+        long remaining = count;
+        if (remaining > 0 && hasBufferedData()) {
+            remaining -= writeBuffered(channel, remaining);
+        }
+        if (channel instanceof FileChannel) {
+            final FileChannel file = (FileChannel) channel;
+            while (remaining > 0) {
+                final long position = file.position();
+                final long l = file.transferFrom(this.channel, position, remaining);
+                if (l <= 0) {
+                    break;
+                }
+                file.position(position + l);
+                this.metrics.incrementBytesTransferred(l);
+                remaining -= l;
+            }
+        }
+        while (remaining > 0) {
+            if (fillBuffer() == -1) {
+                break;
+            }
+            remaining -= writeBuffered(channel, remaining);
+        }
+        return count > 0 ? count - remaining : 0;
+    }
+
+    private int writeBuffered(final WritableByteChannel channel, final long max) throws IOException {
+        final int chunk = (int) Math.min(max, this.buffer.remaining());
+        final int limit = this.buffer.limit();
+        this.buffer.limit(this.buffer.position() + chunk);
+        try {
+            ChannelUtils.writeFully(channel, this.buffer);
+        } finally {
+            this.buffer.limit(limit);
+        }
+        return chunk;
+    }
+
+    public int read(final byte[] b) throws IOException {
+        if (b == null) {
+            return 0;
+        }
+        return read(b, 0, b.length);
+    }
+
+    private int indexOfLF() {
+        return ByteSearch.indexOf(this.buffer, this.buffer.position(), this.buffer.limit(), (byte) HTTP.LF);
+    }
+
+    private void appendToLineBuffer(final int len) {
+        final int oldlen = this.linebuffer.length();
+        this.linebuffer.ensureCapacity(len);
+        this.buffer.get(this.linebuffer.buffer(), oldlen, len);
+        this.linebuffer.setLength(oldlen + len);
+    }
+
+    /**
+     * Reads a complete line of characters up to a line delimiter from this
+     * session buffer into the given line buffer. The number of chars actually
+     * read is returned as an integer. The line delimiter itself is discarded.
+     * If no char is available because the end of the stream has been reached,
+     * the value {@code -1} is returned. This method blocks until input
+     * data is available, end of file is detected, or an exception is thrown.
+     * <p>
+     * This method treats a lone LF as a valid line delimiters in addition
+     * to CR-LF required by the HTTP specification.
+     *
+     * @param      charbuffer   the line buffer.
+     * @return     one line of characters
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int readLine(final CharArrayBuffer charbuffer) throws IOException {
+        final int pos = locateLine();
+        if (pos == -1) {
+            return -1;
+        }
+        if (pos != LINE_BUFFERED) {
+            if (this.buffer.hasArray()) {
+                return lineFromReadBuffer(charbuffer, pos);
+            }
+            appendToLineBuffer(pos + 1 - this.buffer.position());
+        }
+        return lineFromLineBuffer(charbuffer);
+    }
+
+    /**
+     * Reads a complete line of bytes up to a line delimiter from this
+     * session buffer and appends it to the given byte buffer without any
+     * char decoding. The line delimiter itself is discarded. If no byte is
+     * available because the end of the stream has been reached, the value
+     * {@code -1} is returned.
+     *
+     * @param      bytebuffer   the byte buffer to append the line to.
+     * @return     number of bytes appended
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int readLine(final ByteArrayBuffer bytebuffer) throws IOException {
+        final int pos = locateLine();
+        if (pos == -1) {
+            return -1;
+        }
+        if (pos == LINE_BUFFERED) {
+            final int len = lineLength(this.linebuffer.length());
+            bytebuffer.append(this.linebuffer.buffer(), 0, len);
+            this.linebuffer.clear();
+            return len;
+        }
+        final int off = this.buffer.position();
+        int end = pos;
+        if (end > off && this.buffer.get(end - 1) == HTTP.CR) {
+            end--;
+        }
+        final int len = end - off;
+        final int oldlen = bytebuffer.length();
+        bytebuffer.ensureCapacity(len);
+        this.buffer.get(bytebuffer.buffer(), oldlen, len);
+        bytebuffer.setLength(oldlen + len);
+        this.buffer.position(pos + 1);
+        return len;
+    }
+
+    /**
+     * Locates the end of the next line. If the entire line is present in the
+     * read buffer the position of its LF is returned. Otherwise the line is
+     * accumulated in the line buffer and {@link #LINE_BUFFERED} is returned.
+     *
+     * @return LF position, {@link #LINE_BUFFERED} or {@code -1} at the end of
+     *   the stream.
+     */
+    private int locateLine() throws IOException {
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        int noRead = 0;
+        boolean retry = true;
+        while (retry) {
+            // attempt to find end of line (LF)
+            final int pos = indexOfLF();
+
+            if (maxLineLen > 0) {
+                final int currentLen = this.linebuffer.length()
+                        + (pos > 0 ? pos : this.buffer.limit()) - this.buffer.position();
+                if (currentLen >= maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+            }
+
+            if (pos != -1) {
+                // end of line found.
+                if (this.linebuffer.isEmpty()) {
+                    // the entire line is preset in the read buffer
+                    return pos;
+                }
+                retry = false;
+                appendToLineBuffer(pos + 1 - this.buffer.position());
+            } else {
+                // end of line not found
+                if (hasBufferedData()) {
+                    appendToLineBuffer(this.buffer.remaining());
+                }
+                noRead = fillBuffer();
+                if (noRead == -1) {
+                    retry = false;
+                }
+            }
+        }
+        if (noRead == -1 && this.linebuffer.isEmpty()) {
+            // indicate the end of stream
+            return -1;
+        }
+        return LINE_BUFFERED;
+    }
+
+    /**
+     * Returns the length of the line in the line buffer without the
+     * trailing LF and CR, if present.
+     */
+    private int lineLength(final int length) {
+        int len = length;
+        // discard LF if found
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.LF) {
+            len--;
+        }
+        // discard CR if found
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.CR) {
+            len--;
+        }
+        return len;
+    }
+
+    private int lineFromLineBuffer(final CharArrayBuffer charbuffer)
+            throws IOException {
+        int len = lineLength(this.linebuffer.length());
+        if (this.decoder == null) {
+            charbuffer.append(this.linebuffer, 0, len);
+        } else {
+            final ByteBuffer bbuf =  ByteBuffer.wrap(this.linebuffer.buffer(), 0, len);
+            len = appendDecoded(charbuffer, bbuf);
+        }
+        this.linebuffer.clear();
+        return len;
+    }
+
+    private int lineFromReadBuffer(final CharArrayBuffer charbuffer, final int position)
+            throws IOException {
+        int pos = position;
+        final int off = this.buffer.position();
+        int len;
+        this.buffer.position(pos + 1);
+        if (pos > off && this.buffer.get(pos - 1) == HTTP.CR) {
+            // skip CR if found
+            pos--;
+        }
+        len = pos - off;
+        final byte[] b = this.buffer.array();
+        final int arrayOffset = this.buffer.arrayOffset();
+        if (this.decoder == null) {
+            charbuffer.append(b, arrayOffset + off, len);
+        } else {
+            final ByteBuffer bbuf =  ByteBuffer.wrap(b, arrayOffset + off, len);
+            len = appendDecoded(charbuffer, bbuf);
+        }
+        return len;
+    }
+
+    private int appendDecoded(
+            final CharArrayBuffer charbuffer, final ByteBuffer bbuf) throws IOException {
+        if (!bbuf.hasRemaining()) {
+            return 0;
+        }
+        if (this.cbuf == null) {
+            this.cbuf = CharBuffer.allocate(1024);
+        }
+        this.decoder.reset();
+        int len = 0;
+        while (bbuf.hasRemaining()) {
+            final CoderResult result = this.decoder.decode(bbuf, this.cbuf, true);
+            len += handleDecodingResult(result, charbuffer);
+        }
+        final CoderResult result = this.decoder.flush(this.cbuf);
+        len += handleDecodingResult(result, charbuffer);
+        this.cbuf.clear();
+        return len;
+    }
+
+    private int handleDecodingResult(
+            final CoderResult result,
+            final CharArrayBuffer charbuffer) throws IOException {
+        if (result.isError()) {
+            result.throwException();
+        }
+        this.cbuf.flip();
+        final int len = this.cbuf.remaining();
+        while (this.cbuf.hasRemaining()) {
+            charbuffer.append(this.cbuf.get());
+        }
+        this.cbuf.compact();
+        return len;
+    }
+
+    public String readLine() throws IOException {
+        final CharArrayBuffer charbuffer = new CharArrayBuffer(64);
+        final int l = readLine(charbuffer);
+        if (l != -1) {
+            return charbuffer.toString();
+        } else {
+            return null;
+        }
+    }
+
+    public boolean isDataAvailable(final int timeout) throws IOException {
+        return hasBufferedData();
+    }
+
+    public HttpTransportMetrics getMetrics() {
+        return this.metrics;
+    }
+
+}
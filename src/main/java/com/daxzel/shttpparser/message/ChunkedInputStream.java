@@ -0,0 +1,456 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.AbstractMessageParser;
+import com.daxzel.shttpparser.ConnectionClosedException;
+import com.daxzel.shttpparser.HttpException;
+import com.daxzel.shttpparser.MalformedChunkCodingException;
+import com.daxzel.shttpparser.MessageConstraints;
+import com.daxzel.shttpparser.TruncatedChunkException;
+import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.ChannelTransfer;
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements chunked transfer coding. The content is received in chunks
+ * and terminated by a chunk of size zero followed by optional trailer
+ * headers. See <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec3.html#sec3.6.1">RFC 2616,
+ * section 3.6.1</a>.
+ * <p>
+ * Chunk size lines are read as raw bytes, chunk extensions are ignored.
+ * Chunk data is read in bulk straight from the session input buffer.
+ * <p>
+ * Note that this class NEVER closes the underlying stream, even when close
+ * gets called.  Instead, it will read until the "end" of its chunking on
+ * close, which allows for the seamless execution of subsequent HTTP 1.1
+ * requests, while not requiring the client to remember to read the entire
+ * contents of the response.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class ChunkedInputStream extends InputStream implements ChannelTransfer {
+
+    private static final int CHUNK_LEN = 1;
+    private static final int CHUNK_DATA = 2;
+    private static final int CHUNK_CRLF = 3;
+    private static final int CHUNK_INVALID = Integer.MAX_VALUE;
+
+    /** The session input buffer */
+    private final SessionInputBuffer in;
+    private final ByteArrayBuffer buffer;
+    private final MessageConstraints constraints;
+
+    private int state;
+
+    /** The chunk size */
+    private long chunkSize;
+
+    /** The current position within the current chunk */
+    private long pos;
+
+    /** True if we've reached the end of stream */
+    private boolean eof = false;
+
+    /** True if this stream is closed */
+    private boolean closed = false;
+
+    private static final Header[] EMPTY = new Header[] {};
+
+    private Header[] footers = EMPTY;
+
+    /**
+     * Wraps session input stream and reads chunk coded input.
+     *
+     * @param in The session input buffer
+     * @param constraints Message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public ChunkedInputStream(final SessionInputBuffer in, final MessageConstraints constraints) {
+        super();
+        if (in == null) {
+            throw new IllegalArgumentException("Session input buffer may not be null");
+        }
+        this.in = in;
+        this.pos = 0L;
+        this.buffer = new ByteArrayBuffer(16);
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.state = CHUNK_LEN;
+    }
+
+    /**
+     * Wraps session input stream and reads chunk coded input.
+     *
+     * @param in The session input buffer
+     */
+    public ChunkedInputStream(final SessionInputBuffer in) {
+        this(in, null);
+    }
+
+    /**
+     * Prepares this stream to read another chunk coded entity from the
+     * same session input buffer.
+     */
+    void recycle() {
+        this.state = CHUNK_LEN;
+        this.chunkSize = 0L;
+        this.pos = 0L;
+        this.eof = false;
+        this.closed = false;
+        this.footers = EMPTY;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (this.in instanceof BufferInfo && this.state == CHUNK_DATA) {
+            final int len = ((BufferInfo) this.in).length();
+            return (int) Math.min(len, this.chunkSize - this.pos);
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * <p> Returns all the data in a chunked stream in coalesced form. A chunk
+     * is followed by a CRLF. The method returns -1 as soon as a chunksize of 0
+     * is detected.</p>
+     *
+     * <p> Trailer headers are read automatically at the end of the stream and
+     * can be obtained with the {@link #getFooters()} method.</p>
+     *
+     * @return -1 of the end of the stream has been reached or the next data
+     * byte
+     * @throws IOException in case of an I/O error
+     */
+    @Override
+    public int read() throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        if (this.eof) {
+            return -1;
+        }
+        if (this.state != CHUNK_DATA) {
+            nextChunk();
+            if (this.eof) {
+                return -1;
+            }
+        }
+        final int b = this.in.read();
+        if (b != -1) {
+            this.pos++;
+            if (this.pos >= this.chunkSize) {
+                this.state = CHUNK_CRLF;
+            }
+            return b;
+        }
+        this.eof = true;
+        throw new TruncatedChunkException("Truncated chunk (expected size: "
+                + this.chunkSize + "; actual size: " + this.pos + ")");
+    }
+
+    /**
+     * Read some bytes from the stream. The data of the current chunk is
+     * transferred from the session input buffer in a single operation.
+     *
+     * @param b The byte array that the data will be read into
+     * @param off The offset into the byte array
+     * @param len The maximum number of bytes that can be read
+     * @return The number of bytes returned or -1 if the end of stream has been
+     * reached.
+     * @throws IOException in case of an I/O error
+     */
+    @Override
+    public int read (final byte[] b, final int off, final int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        if (this.eof) {
+            return -1;
+        }
+        if (this.state != CHUNK_DATA) {
+            nextChunk();
+            if (this.eof) {
+                return -1;
+            }
+        }
+        final int bytesRead = this.in.read(b, off, (int) Math.min(len, this.chunkSize - this.pos));
+        if (bytesRead != -1) {
+            this.pos += bytesRead;
+            if (this.pos >= this.chunkSize) {
+                this.state = CHUNK_CRLF;
+            }
+            return bytesRead;
+        }
+        this.eof = true;
+        throw new TruncatedChunkException("Truncated chunk (expected size: "
+                + this.chunkSize + "; actual size: " + this.pos + ")");
+    }
+
+    /**
+     * Read some bytes from the stream.
+     * @param b The byte array that the data will be read into
+     * @return The number of bytes returned or -1 if the end of stream has been
+     * reached.
+     * @throws IOException in case of an I/O error
+     */
+    @Override
+    public int read (final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * Skips and discards a number of bytes of the chunk coded content.
+     * Chunk data buffered by the session input buffer is discarded in place.
+     * @param n The number of bytes to skip.
+     * @return The actual number of bytes skipped.
+     * @throws IOException in case of an I/O error
+     */
+    @Override
+    public long skip(final long n) throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted skip on closed stream.");
+        }
+        return consume(n, null);
+    }
+
+    /**
+     * Transfers the remaining chunk data to the given channel. The data of
+     * each chunk is handed to the session input buffer in a single
+     * operation.
+     * @param channel The channel to write the content to
+     * @return The number of bytes transferred
+     * @throws IOException in case of an I/O error
+     */
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        return consume(Long.MAX_VALUE, channel);
+    }
+
+    /**
+     * Skips up to {@code n} bytes of chunk data, or transfers them to the
+     * given channel if it is not {@code null}.
+     */
+    private long consume(final long n, final WritableByteChannel channel) throws IOException {
+        long skipped = 0;
+        while (skipped < n && !this.eof) {
+            if (this.state != CHUNK_DATA) {
+                nextChunk();
+                if (this.eof) {
+                    break;
+                }
+            }
+            final long chunk = Math.min(n - skipped, this.chunkSize - this.pos);
+            final long l = channel != null ? this.in.transferTo(channel, chunk) : this.in.skip(chunk);
+            this.pos += l;
+            skipped += l;
+            if (l < chunk) {
+                this.eof = true;
+                throw new TruncatedChunkException("Truncated chunk (expected size: "
+                        + this.chunkSize + "; actual size: " + this.pos + ")");
+            }
+            if (this.pos >= this.chunkSize) {
+                this.state = CHUNK_CRLF;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Read the next chunk.
+     * @throws IOException in case of an I/O error
+     */
+    private void nextChunk() throws IOException {
+        if (this.state == CHUNK_INVALID) {
+            throw new MalformedChunkCodingException("Corrupt data stream");
+        }
+        try {
+            this.chunkSize = getChunkSize();
+            this.state = CHUNK_DATA;
+            this.pos = 0L;
+            if (this.chunkSize == 0L) {
+                this.eof = true;
+                parseTrailerHeaders();
+            }
+        } catch (final MalformedChunkCodingException ex) {
+            this.state = CHUNK_INVALID;
+            throw ex;
+        }
+    }
+
+    /**
+     * Expects the stream to start with a chunksize in hex with optional
+     * comments after a semicolon. The line must end with a CRLF: "a3; some
+     * comment\r\n" Positions the stream at the start of the next line.
+     */
+    private long getChunkSize() throws IOException {
+        final int st = this.state;
+        switch (st) {
+            case CHUNK_CRLF:
+                this.buffer.clear();
+                final int bytesRead1 = this.in.readLine(this.buffer);
+                if (bytesRead1 == -1) {
+                    throw new MalformedChunkCodingException(
+                            "CRLF expected at end of chunk");
+                }
+                if (!this.buffer.isEmpty()) {
+                    throw new MalformedChunkCodingException(
+                            "Unexpected content at the end of chunk");
+                }
+                this.state = CHUNK_LEN;
+                //$FALL-THROUGH$
+            case CHUNK_LEN:
+                this.buffer.clear();
+                final int bytesRead2 = this.in.readLine(this.buffer);
+                if (bytesRead2 == -1) {
+                    throw new ConnectionClosedException("Premature end of chunk coded message body: " +
+                            "closing chunk expected");
+                }
+                return parseChunkSize(this.buffer.buffer(), 0, this.buffer.length());
+            default:
+                throw new IllegalStateException("Inconsistent codec state");
+        }
+    }
+
+    /**
+     * Parses the chunk size from a chunk size line, ignoring chunk extensions
+     * and surrounding whitespace.
+     *
+     * @param b the buffer holding the line
+     * @param off the offset of the line
+     * @param len the length of the line without the line delimiter
+     * @return the chunk size
+     * @throws MalformedChunkCodingException if the line is not a valid
+     *   chunk size line
+     */
+    public static long parseChunkSize(
+            final byte[] b, final int off, final int len) throws MalformedChunkCodingException {
+        final int end = off + len;
+        int i = off;
+        while (i < end && HTTP.isWhitespace((char) b[i])) {
+            i++;
+        }
+        final int digits = i;
+        long size = 0;
+        for (; i < end; i++) {
+            final int digit = Character.digit((char) (b[i] & 0xff), 16);
+            if (digit == -1) {
+                break;
+            }
+            if (size > (Long.MAX_VALUE >> 4)) {
+                throw new MalformedChunkCodingException("Chunk size too large");
+            }
+            size = (size << 4) | digit;
+        }
+        if (i == digits) {
+            throw new MalformedChunkCodingException("Bad chunk header: "
+                    + new String(b, off, len, Consts.ISO_8859_1));
+        }
+        while (i < end && HTTP.isWhitespace((char) b[i])) {
+            i++;
+        }
+        if (i < end && b[i] != ';') {
+            throw new MalformedChunkCodingException("Bad chunk header: "
+                    + new String(b, off, len, Consts.ISO_8859_1));
+        }
+        return size;
+    }
+
+    /**
+     * Reads and stores the Trailer headers.
+     * @throws IOException in case of an I/O error
+     */
+    private void parseTrailerHeaders() throws IOException {
+        // most chunk coded messages have no trailer
+        this.buffer.clear();
+        final int l = this.in.readLine(this.buffer);
+        if (l == -1 || this.buffer.isEmpty()) {
+            return;
+        }
+        final CharArrayBuffer first = new CharArrayBuffer(this.buffer.length());
+        first.append(this.buffer, 0, this.buffer.length());
+        final List<CharArrayBuffer> headerLines = new ArrayList<CharArrayBuffer>();
+        headerLines.add(first);
+        try {
+            this.footers = AbstractMessageParser.parseHeaders(this.in,
+                    this.constraints.getMaxHeaderCount(),
+                    this.constraints.getMaxLineLength(),
+                    BasicLineParser.INSTANCE,
+                    headerLines);
+        } catch (final HttpException ex) {
+            final IOException ioe = new MalformedChunkCodingException("Invalid footer: "
+                    + ex.getMessage());
+            ioe.initCause(ex);
+            throw ioe;
+        }
+    }
+
+    /**
+     * Upon close, this reads the remainder of the chunked message,
+     * leaving the underlying socket at a position to start reading the
+     * next response without scanning.
+     * @throws IOException in case of an I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            try {
+                if (!this.eof && this.state != CHUNK_INVALID) {
+                    // discard the remainder of the message
+                    skip(Long.MAX_VALUE);
+                }
+            } finally {
+                this.eof = true;
+                this.closed = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the trailer headers received after the last chunk. The array
+     * is empty until the end of the stream has been reached.
+     *
+     * @return the trailer headers
+     */
+    public Header[] getFooters() {
+        return this.footers.clone();
+    }
+
+}
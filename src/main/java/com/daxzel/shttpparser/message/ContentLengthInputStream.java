@@ -3,10 +3,12 @@ package com.daxzel.shttpparser.message;
 
 import com.daxzel.shttpparser.ConnectionClosedException;
 import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.ChannelTransfer;
 import com.daxzel.shttpparser.io.SessionInputBuffer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Input stream that cuts off after a defined number of bytes. This class
@@ -26,14 +28,13 @@ import java.io.InputStream;
  *
  * NotThreadSafe
  */
-public class ContentLengthInputStream extends InputStream {
+public class ContentLengthInputStream extends InputStream implements ChannelTransfer {
 
-    private static final int BUFFER_SIZE = 2048;
     /**
      * The maximum number of bytes that can be read from the stream. Subsequent
      * read operations will return -1.
      */
-    private final long contentLength;
+    private long contentLength;
 
     /** The current position */
     private long pos = 0;
@@ -60,6 +61,19 @@ public class ContentLengthInputStream extends InputStream {
         this.contentLength = contentLength;
     }
 
+    /**
+     * Prepares this stream to read another entity of the given length
+     * from the same session input buffer.
+     *
+     * @param contentLength The maximum number of bytes that can be read
+     * from the stream.
+     */
+    void recycle(final long contentLength) {
+        this.contentLength = contentLength;
+        this.pos = 0;
+        this.closed = false;
+    }
+
     /**
      * <p>Reads until the end of the known length of content.</p>
      *
@@ -72,9 +86,7 @@ public class ContentLengthInputStream extends InputStream {
         if (!closed) {
             try {
                 if (pos < contentLength) {
-                    final byte buffer[] = new byte[BUFFER_SIZE];
-                    while (read(buffer) >= 0) {
-                    }
+                    skip(contentLength - pos);
                 }
             } finally {
                 // close after above so that we don't throw an exception trying
@@ -174,7 +186,8 @@ public class ContentLengthInputStream extends InputStream {
     }
 
     /**
-     * Skips and discards a number of bytes from the input stream.
+     * Skips and discards a number of bytes from the input stream. Buffered
+     * content is discarded by the session input buffer in place.
      * @param n The number of bytes to skip.
      * @return The actual number of bytes skipped. &le; 0 if no bytes
      * are skipped.
@@ -186,19 +199,46 @@ public class ContentLengthInputStream extends InputStream {
         if (n <= 0) {
             return 0;
         }
-        final byte[] buffer = new byte[BUFFER_SIZE];
+        if (closed) {
+            throw new IOException("Attempted skip on closed stream.");
+        }
         // make sure we don't skip more bytes than are
         // still available
-        long remaining = Math.min(n, this.contentLength - this.pos);
-        // skip and keep track of the bytes actually skipped
-        long count = 0;
-        while (remaining > 0) {
-            final int l = read(buffer, 0, (int)Math.min(BUFFER_SIZE, remaining));
-            if (l == -1) {
-                break;
-            }
-            count += l;
-            remaining -= l;
+        final long remaining = Math.min(n, this.contentLength - this.pos);
+        if (remaining <= 0) {
+            return 0;
+        }
+        final long count = this.in.skip(remaining);
+        pos += count;
+        if (count < remaining) {
+            throw new ConnectionClosedException(
+                    "Premature end of Content-Length delimited message body (expected: "
+                            + contentLength + "; received: " + pos);
+        }
+        return count;
+    }
+
+    /**
+     * Transfers the remaining content to the given channel straight from the
+     * session input buffer.
+     * @param channel The channel to write the content to.
+     * @return The number of bytes transferred.
+     * @throws IOException If an error occurs while transferring bytes.
+     */
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        if (closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        final long remaining = this.contentLength - this.pos;
+        if (remaining <= 0) {
+            return 0;
+        }
+        final long count = this.in.transferTo(channel, remaining);
+        pos += count;
+        if (count < remaining) {
+            throw new ConnectionClosedException(
+                    "Premature end of Content-Length delimited message body (expected: "
+                            + contentLength + "; received: " + pos);
         }
         return count;
     }
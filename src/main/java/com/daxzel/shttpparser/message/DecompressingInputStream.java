@@ -0,0 +1,339 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.io.BufferPool;
+import com.daxzel.shttpparser.io.ByteArrayPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream that decodes gzip or deflate coded content, as declared by
+ * the {@code Content-Encoding} header.
+ * <p>
+ * Compressed data is read from the content stream in bulk into an array
+ * borrowed from a {@link BufferPool} and inflated by an {@link Inflater}
+ * borrowed from an {@link InflaterPool}. Both are handed back as soon as the
+ * end of the compressed data is reached or the stream is closed. Deflate
+ * coded content is accepted with or without the zlib wrapper. Data following
+ * the first gzip member is discarded: the content stream is read to its end
+ * once the compressed data is complete, so that the next message on the
+ * connection can be parsed.
+ * <p>
+ * To protect against decompression bombs the stream fails with a
+ * {@link MessageConstraintException} once the decoded content exceeds the
+ * given multiple of the compressed content read so far. Small content may
+ * expand up to that multiple of the input buffer size.
+ * <p>
+ * Closing this stream closes the content stream, which discards the rest of
+ * the entity.
+ *
+ * NotThreadSafe
+ *
+ * @since 0.6
+ */
+public class DecompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final InputStream in;
+    private final boolean gzip;
+    private final InflaterPool pool;
+    private final BufferPool bufferPool;
+    private final int maxRatio;
+    private final CRC32 crc;
+
+    private byte[] input;
+    private byte[] single;
+    private int inputLen;
+    private Inflater inflater;
+    private boolean nowrap;
+    private boolean started = false;
+    private boolean eof = false;
+    private boolean closed = false;
+
+    /**
+     * Wraps a content stream and decodes its content.
+     *
+     * @param in The content stream
+     * @param gzip {@code true} for gzip coded content, {@code false} for
+     *   deflate coded content
+     * @param pool The pool to borrow the inflater from
+     * @param bufferPool The pool to borrow the input buffer from. If
+     *   {@code null} {@link ByteArrayPool#INSTANCE} will be used.
+     * @param maxRatio The maximum ratio of decoded to compressed content.
+     *   Zero or a negative value disables the check.
+     */
+    public DecompressingInputStream(
+            final InputStream in,
+            final boolean gzip,
+            final InflaterPool pool,
+            final BufferPool bufferPool,
+            final int maxRatio) {
+        super();
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream may not be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Inflater pool may not be null");
+        }
+        this.in = in;
+        this.gzip = gzip;
+        this.pool = pool;
+        this.bufferPool = bufferPool != null ? bufferPool : ByteArrayPool.INSTANCE;
+        this.maxRatio = maxRatio;
+        this.crc = gzip ? new CRC32() : null;
+    }
+
+    /**
+     * Reads the gzip header or detects the zlib wrapper and acquires the
+     * inflater. Leaves the stream at its end if there is no content at all.
+     */
+    private void start() throws IOException {
+        this.started = true;
+        this.input = this.bufferPool.acquire(BUFFER_SIZE);
+        if (this.gzip) {
+            final int b = this.in.read();
+            if (b == -1) {
+                this.eof = true;
+                return;
+            }
+            readGzipHeader(b);
+            this.nowrap = true;
+        } else {
+            int n = 0;
+            while (n < 2) {
+                final int l = this.in.read(this.input, n, this.input.length - n);
+                if (l == -1) {
+                    break;
+                }
+                n += l;
+            }
+            if (n == 0) {
+                this.eof = true;
+                return;
+            }
+            this.inputLen = n;
+            // RFC 1950: CM = 8 and the header is a multiple of 31
+            this.nowrap = n < 2 || (this.input[0] & 0x0f) != 8
+                    || (((this.input[0] & 0xff) << 8) | (this.input[1] & 0xff)) % 31 != 0;
+        }
+        this.inflater = this.pool.acquire(this.nowrap);
+        if (this.inputLen > 0) {
+            this.inflater.setInput(this.input, 0, this.inputLen);
+        }
+    }
+
+    private int readHeaderByte() throws IOException {
+        final int b = this.in.read();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of GZIP header");
+        }
+        return b;
+    }
+
+    private void readGzipHeader(final int first) throws IOException {
+        if (first != 0x1f || readHeaderByte() != 0x8b || readHeaderByte() != 8) {
+            throw new IOException("Not in GZIP format");
+        }
+        final int flags = readHeaderByte();
+        // MTIME, XFL and OS
+        for (int i = 0; i < 6; i++) {
+            readHeaderByte();
+        }
+        if ((flags & FEXTRA) != 0) {
+            final int xlen = readHeaderByte() | (readHeaderByte() << 8);
+            for (int i = 0; i < xlen; i++) {
+                readHeaderByte();
+            }
+        }
+        if ((flags & FNAME) != 0) {
+            while (readHeaderByte() != 0) {
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readHeaderByte() != 0) {
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            readHeaderByte();
+            readHeaderByte();
+        }
+    }
+
+    private void fill() throws IOException {
+        final int l = this.in.read(this.input, 0, this.input.length);
+        if (l == -1) {
+            throw new EOFException("Unexpected end of compressed content");
+        }
+        this.inputLen = l;
+        this.inflater.setInput(this.input, 0, l);
+    }
+
+    /**
+     * Reads a byte of the gzip trailer, taking bytes left over by the
+     * inflater first.
+     */
+    private int readTrailerByte() throws IOException {
+        final int remaining = this.inflater.getRemaining();
+        if (remaining > 0) {
+            final int b = this.input[this.inputLen - remaining] & 0xff;
+            this.inflater.setInput(this.input, this.inputLen - remaining + 1, remaining - 1);
+            return b;
+        }
+        final int b = this.in.read();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of GZIP trailer");
+        }
+        return b;
+    }
+
+    private long readTrailerInt() throws IOException {
+        long v = 0;
+        for (int i = 0; i < 4; i++) {
+            v |= ((long) readTrailerByte()) << (i * 8);
+        }
+        return v;
+    }
+
+    private void finish() throws IOException {
+        if (this.gzip) {
+            final long expectedCrc = readTrailerInt();
+            final long expectedSize = readTrailerInt();
+            if (expectedCrc != this.crc.getValue()
+                    || expectedSize != (this.inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new IOException("Corrupt GZIP trailer");
+            }
+        }
+        // consume the rest of the content, for chunk coding up to and
+        // including the last chunk, so that the next message can be parsed
+        while (this.in.skip(Long.MAX_VALUE) > 0 || this.in.read() != -1) {
+        }
+        this.eof = true;
+        releaseResources();
+    }
+
+    private void releaseResources() {
+        if (this.inflater != null) {
+            this.pool.release(this.inflater, this.nowrap);
+            this.inflater = null;
+        }
+        if (this.input != null) {
+            this.bufferPool.release(this.input);
+            this.input = null;
+        }
+    }
+
+    private void checkRatio() throws IOException {
+        if (this.maxRatio > 0) {
+            final long written = this.inflater.getBytesWritten();
+            if (written > (long) this.maxRatio * Math.max(this.inflater.getBytesRead(), BUFFER_SIZE)) {
+                throw new MessageConstraintException("Maximum decompression ratio exceeded");
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.single == null) {
+            this.single = new byte[1];
+        }
+        int l;
+        do {
+            l = read(this.single, 0, 1);
+        } while (l == 0);
+        return l == -1 ? -1 : this.single[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        if (!this.started) {
+            start();
+        }
+        if (this.eof) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        try {
+            for (;;) {
+                final int n = this.inflater.inflate(b, off, len);
+                if (n > 0) {
+                    if (this.crc != null) {
+                        this.crc.update(b, off, n);
+                    }
+                    checkRatio();
+                    return n;
+                }
+                if (this.inflater.finished()) {
+                    finish();
+                    return -1;
+                }
+                if (this.inflater.needsDictionary()) {
+                    throw new IOException("Preset dictionary is not supported");
+                }
+                if (this.inflater.needsInput()) {
+                    fill();
+                }
+            }
+        } catch (final DataFormatException ex) {
+            final IOException ioe = new IOException("Invalid compressed content: " + ex.getMessage());
+            ioe.initCause(ex);
+            throw ioe;
+        }
+    }
+
+    @Override
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            releaseResources();
+            this.in.close();
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import javax.crypto.Mac;
+
+/**
+ * Input stream that feeds the content it reads into a {@link MessageDigest}
+ * or a {@link Mac}, so the digest of an entity, for instance a webhook
+ * signature, is available as soon as the consumer has read it to the end,
+ * without a second pass over the content and without buffering it.
+ * <p>
+ * Content that is skipped or left unread when the stream is closed is read
+ * through the digest as well, so the digest always covers the complete
+ * content.
+ *
+ * NotThreadSafe
+ *
+ * @since 0.6
+ */
+public class DigestingInputStream extends InputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 2048;
+
+    private final InputStream in;
+    private final MessageDigest digest;
+    private final Mac mac;
+
+    private byte[] skipBuffer;
+    private byte[] result;
+    private boolean eof = false;
+    private boolean closed = false;
+
+    private DigestingInputStream(final InputStream in, final MessageDigest digest, final Mac mac) {
+        super();
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream may not be null");
+        }
+        this.in = in;
+        this.digest = digest;
+        this.mac = mac;
+    }
+
+    /**
+     * Wraps a content stream and digests it with the given message digest.
+     * The digest is expected to be reset.
+     *
+     * @param in The content stream
+     * @param digest The message digest
+     */
+    public DigestingInputStream(final InputStream in, final MessageDigest digest) {
+        this(in, digest, null);
+        if (digest == null) {
+            throw new IllegalArgumentException("Message digest may not be null");
+        }
+    }
+
+    /**
+     * Wraps a content stream and authenticates it with the given MAC. The
+     * MAC is expected to be initialized with its key.
+     *
+     * @param in The content stream
+     * @param mac The message authentication code
+     */
+    public DigestingInputStream(final InputStream in, final Mac mac) {
+        this(in, null, mac);
+        if (mac == null) {
+            throw new IllegalArgumentException("MAC may not be null");
+        }
+    }
+
+    private void update(final byte[] b, final int off, final int len) {
+        if (this.digest != null) {
+            this.digest.update(b, off, len);
+        } else {
+            this.mac.update(b, off, len);
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.in.available();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        final int b = this.in.read();
+        if (b == -1) {
+            this.eof = true;
+        } else if (this.digest != null) {
+            this.digest.update((byte) b);
+        } else {
+            this.mac.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Attempted read from closed stream.");
+        }
+        final int l = this.in.read(b, off, len);
+        if (l == -1) {
+            this.eof = true;
+        } else if (l > 0) {
+            update(b, off, l);
+        }
+        return l;
+    }
+
+    @Override
+    public int read(final byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * Skips content by reading it through the digest.
+     */
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        if (this.skipBuffer == null) {
+            this.skipBuffer = new byte[SKIP_BUFFER_SIZE];
+        }
+        long remaining = n;
+        while (remaining > 0) {
+            final int l = read(this.skipBuffer, 0, (int) Math.min(this.skipBuffer.length, remaining));
+            if (l == -1) {
+                break;
+            }
+            remaining -= l;
+        }
+        return n - remaining;
+    }
+
+    /**
+     * Reads the remainder of the content through the digest and closes the
+     * underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            try {
+                while (!this.eof) {
+                    skip(Long.MAX_VALUE);
+                }
+            } finally {
+                this.closed = true;
+                this.in.close();
+            }
+        }
+    }
+
+    /**
+     * Tells whether the end of the content has been reached and the digest
+     * is available.
+     *
+     * @return {@code true} if the content has been read completely
+     */
+    public boolean isComplete() {
+        return this.eof;
+    }
+
+    /**
+     * Returns the digest of the content. The digest is computed once, when
+     * this method is first called.
+     *
+     * @return the digest
+     * @throws IllegalStateException if the end of the content has not been
+     *   reached yet
+     */
+    public byte[] getDigest() {
+        if (!this.eof) {
+            throw new IllegalStateException("Content has not been read completely");
+        }
+        if (this.result == null) {
+            this.result = this.digest != null ? this.digest.digest() : this.mac.doFinal();
+        }
+        return this.result.clone();
+    }
+
+    /**
+     * Compares the digest of the content with the expected one in constant
+     * time.
+     *
+     * @param expected the expected digest
+     * @return {@code true} if the digests are equal
+     * @throws IllegalStateException if the end of the content has not been
+     *   reached yet
+     */
+    public boolean matches(final byte[] expected) {
+        return MessageDigest.isEqual(getDigest(), expected);
+    }
+
+}
@@ -1,17 +1,73 @@
 package com.daxzel.shttpparser.message;
 
 import com.daxzel.shttpparser.HttpException;
+import com.daxzel.shttpparser.MessageConstraints;
+import com.daxzel.shttpparser.io.BufferPool;
 import com.daxzel.shttpparser.io.SessionInputBuffer;
 
 import java.io.IOException;
 
 public class EntityDeserializer {
 
+    /**
+     * Default maximum ratio of decoded to compressed content.
+     *
+     * @since 0.6
+     */
+    public static final int DEFAULT_MAX_RATIO = 100;
+
     private final ContentLengthStrategy lenStrategy;
+    private final MessageConstraints constraints;
+    private final InflaterPool inflaterPool;
+    private final BufferPool bufferPool;
+    private final int maxRatio;
 
-    public EntityDeserializer() {
+    /**
+     * Creates new instance of EntityDeserializer that decodes gzip and
+     * deflate coded content. Decoded entities have no Content-Encoding
+     * header and an unknown content length.
+     *
+     * @param constraints Message constraints applied to the trailer headers
+     *   of chunk coded entities. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param inflaterPool pool to borrow inflaters from. If {@code null}
+     *   content is not decoded.
+     * @param bufferPool pool to borrow the input buffers of the decoders
+     *   from. If {@code null} {@link com.daxzel.shttpparser.io.ByteArrayPool#INSTANCE}
+     *   will be used.
+     * @param maxRatio maximum ratio of decoded to compressed content. Zero
+     *   or a negative value disables the check.
+     *
+     * @since 0.6
+     */
+    public EntityDeserializer(
+            final MessageConstraints constraints,
+            final InflaterPool inflaterPool,
+            final BufferPool bufferPool,
+            final int maxRatio) {
         super();
         this.lenStrategy = new StrictContentLengthStrategy();
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.inflaterPool = inflaterPool;
+        this.bufferPool = bufferPool;
+        this.maxRatio = maxRatio;
+    }
+
+    /**
+     * Creates new instance of EntityDeserializer.
+     *
+     * @param constraints Message constraints applied to the trailer headers
+     *   of chunk coded entities. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     *
+     * @since 0.6
+     */
+    public EntityDeserializer(final MessageConstraints constraints) {
+        this(constraints, null, null, DEFAULT_MAX_RATIO);
+    }
+
+    public EntityDeserializer() {
+        this(null);
     }
 
     protected BasicHttpEntity doDeserialize(
@@ -20,7 +76,11 @@ public class EntityDeserializer {
         final BasicHttpEntity entity = new BasicHttpEntity();
 
         final long len = this.lenStrategy.determineLength(message);
-        if (len == ContentLengthStrategy.IDENTITY) {
+        if (len == ContentLengthStrategy.CHUNKED) {
+            entity.setChunked(true);
+            entity.setContentLength(-1);
+            entity.setContent(new ChunkedInputStream(inbuffer, this.constraints));
+        } else if (len == ContentLengthStrategy.IDENTITY) {
             entity.setChunked(false);
             entity.setContentLength(-1);
             entity.setContent(new IdentityInputStream(inbuffer));
@@ -36,11 +96,25 @@ public class EntityDeserializer {
         }
         final Header contentEncodingHeader = message.getFirstHeader(HTTP.CONTENT_ENCODING);
         if (contentEncodingHeader != null) {
+            if (this.inflaterPool != null && decode(entity, contentEncodingHeader.getValue().trim())) {
+                return entity;
+            }
             entity.setContentEncoding(contentEncodingHeader);
         }
         return entity;
     }
 
+    private boolean decode(final BasicHttpEntity entity, final String coding) {
+        final boolean gzip = coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip");
+        if (!gzip && !coding.equalsIgnoreCase("deflate")) {
+            return false;
+        }
+        entity.setContent(new DecompressingInputStream(
+                entity.getContent(), gzip, this.inflaterPool, this.bufferPool, this.maxRatio));
+        entity.setContentLength(-1);
+        return true;
+    }
+
     public HttpEntity deserialize(
             final SessionInputBuffer inbuffer,
             final HttpMessage message) throws HttpException, IOException {
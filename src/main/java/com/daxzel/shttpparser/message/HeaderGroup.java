@@ -102,12 +102,14 @@ public class HeaderGroup implements Cloneable, Serializable {
         if (header == null) {
             return;
         }
+        final String name = header.getName();
+        final int id = WellKnownHeaders.lookup(name);
         // HTTPCORE-361 : we don't use the for-each syntax, i.e.
         //     for (Header header : headers)
         // as that creates an Iterator that needs to be garbage-collected
         for (int i = 0; i < this.headers.size(); i++) {
             final Header current = this.headers.get(i);
-            if (current.getName().equalsIgnoreCase(header.getName())) {
+            if (matches(current, name, id)) {
                 this.headers.set(i, header);
                 return;
             }
@@ -171,13 +173,14 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return an array of length &ge; 0
      */
     public Header[] getHeaders(final String name) {
+        final int id = WellKnownHeaders.lookup(name);
         List<Header> headersFound = null;
         // HTTPCORE-361 : we don't use the for-each syntax, i.e.
         //     for (Header header : headers)
         // as that creates an Iterator that needs to be garbage-collected
         for (int i = 0; i < this.headers.size(); i++) {
             final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (matches(header, name, id)) {
                 if (headersFound == null) {
                     headersFound = new ArrayList<Header>();
                 }
@@ -196,12 +199,13 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the first header or {@code null}
      */
     public Header getFirstHeader(final String name) {
+        final int id = WellKnownHeaders.lookup(name);
         // HTTPCORE-361 : we don't use the for-each syntax, i.e.
         //     for (Header header : headers)
         // as that creates an Iterator that needs to be garbage-collected
         for (int i = 0; i < this.headers.size(); i++) {
             final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (matches(header, name, id)) {
                 return header;
             }
         }
@@ -217,10 +221,11 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the last header or {@code null}
      */
     public Header getLastHeader(final String name) {
+        final int id = WellKnownHeaders.lookup(name);
         // start at the end of the list and work backwards
         for (int i = headers.size() - 1; i >= 0; i--) {
             final Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (matches(header, name, id)) {
                 return header;
             }
         }
@@ -247,12 +252,13 @@ public class HeaderGroup implements Cloneable, Serializable {
      * contained, {@code false} otherwise
      */
     public boolean containsHeader(final String name) {
+        final int id = WellKnownHeaders.lookup(name);
         // HTTPCORE-361 : we don't use the for-each syntax, i.e.
         //     for (Header header : headers)
         // as that creates an Iterator that needs to be garbage-collected
         for (int i = 0; i < this.headers.size(); i++) {
             final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
+            if (matches(header, name, id)) {
                 return true;
             }
         }
@@ -260,6 +266,49 @@ public class HeaderGroup implements Cloneable, Serializable {
         return false;
     }
 
+    /**
+     * Returns the number of headers in this group.
+     */
+    int size() {
+        return this.headers.size();
+    }
+
+    /**
+     * Returns the header at the given position.
+     */
+    Header get(final int i) {
+        return this.headers.get(i);
+    }
+
+    /**
+     * Replaces the header at the given position.
+     */
+    void set(final int i, final Header header) {
+        this.headers.set(i, header);
+    }
+
+    /**
+     * Tests if the header has the given name ignoring case.
+     *
+     * @param header the header
+     * @param name the name
+     * @param id the {@link WellKnownHeaders} id of the name
+     */
+    static boolean matches(final Header header, final String name, final int id) {
+        if (id != WellKnownHeaders.UNKNOWN) {
+            final int headerId = WellKnownHeaders.idOf(header);
+            if (headerId != WellKnownHeaders.UNRESOLVED) {
+                // the name is well-known, the header name has been resolved
+                return headerId == id;
+            }
+        }
+        if (header instanceof ByteSliceHeader) {
+            // compare raw bytes, the header name string may never be needed
+            return ((ByteSliceHeader) header).nameEquals(name);
+        }
+        return header.getName().equalsIgnoreCase(name);
+    }
+
     /**
      * Returns a copy of this object
      *
@@ -0,0 +1,225 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Set of header names a consumer of parsed messages is interested in.
+ * Parsers configured with an interest set through
+ * {@link com.daxzel.shttpparser.MessageConstraints} check the name of every
+ * header line while it is still in the raw line buffer and drop the lines
+ * of uninteresting headers without creating header objects for them.
+ * <p>
+ * The headers that determine how the message body is read,
+ * {@code Content-Length}, {@code Transfer-Encoding} and
+ * {@code Content-Encoding}, are always part of the set.
+ * <p>
+ * Names are matched ignoring case; well-known names are matched by their
+ * {@link WellKnownHeaders} id.
+ *
+ * @since 0.6
+ */
+public final class HeaderInterest {
+
+    private final boolean[] known;
+    private final String[] others;
+
+    private HeaderInterest(final boolean[] known, final String[] others) {
+        super();
+        this.known = known;
+        this.others = others;
+    }
+
+    /**
+     * Creates an interest set of the given header names.
+     *
+     * @param names the header names.
+     * @return the interest set
+     */
+    public static HeaderInterest of(final String... names) {
+        final boolean[] known = new boolean[WellKnownHeaders.size()];
+        known[WellKnownHeaders.CONTENT_LENGTH] = true;
+        known[WellKnownHeaders.TRANSFER_ENCODING] = true;
+        known[WellKnownHeaders.CONTENT_ENCODING] = true;
+        final List<String> others = new ArrayList<String>();
+        for (final String name : names) {
+            final int id = WellKnownHeaders.lookup(name);
+            if (id != WellKnownHeaders.UNKNOWN) {
+                known[id] = true;
+            } else {
+                final String lower = name.toLowerCase(Locale.ROOT);
+                if (!others.contains(lower)) {
+                    others.add(lower);
+                }
+            }
+        }
+        return new HeaderInterest(known, others.toArray(new String[others.size()]));
+    }
+
+    /**
+     * Tests if the given header name is part of this set.
+     */
+    public boolean includes(final String name) {
+        final int id = WellKnownHeaders.lookup(name);
+        if (id != WellKnownHeaders.UNKNOWN) {
+            return this.known[id];
+        }
+        for (final String other : this.others) {
+            if (other.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests if the header line in {@code line[from, to)} is part of this
+     * set.
+     *
+     * @return {@code true} if the header is included
+     * @throws ParseException if the line is not a valid header line
+     */
+    public boolean includes(final char[] line, final int from, final int to) throws ParseException {
+        int nameTo = -1;
+        for (int i = from; i < to; i++) {
+            if (line[i] == ':') {
+                nameTo = i;
+                break;
+            }
+        }
+        if (nameTo == -1) {
+            throw new ParseException("Invalid header: " + new String(line, from, to - from));
+        }
+        int nameFrom = from;
+        while (nameFrom < nameTo && HTTP.isWhitespace(line[nameFrom])) {
+            nameFrom++;
+        }
+        while (nameTo > nameFrom && HTTP.isWhitespace(line[nameTo - 1])) {
+            nameTo--;
+        }
+        if (nameFrom == nameTo) {
+            throw new ParseException("Invalid header: " + new String(line, from, to - from));
+        }
+        final int len = nameTo - nameFrom;
+        final int id = WellKnownHeaders.lookup(line, nameFrom, len);
+        if (id != WellKnownHeaders.UNKNOWN) {
+            return this.known[id];
+        }
+        for (final String other : this.others) {
+            if (other.length() == len && regionMatches(line, nameFrom, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests if the header line in {@code line[from, to)} is part of this
+     * set.
+     *
+     * @return {@code true} if the header is included
+     * @throws ParseException if the line is not a valid header line
+     */
+    public boolean includes(final byte[] line, final int from, final int to) throws ParseException {
+        int nameTo = -1;
+        for (int i = from; i < to; i++) {
+            if (line[i] == ':') {
+                nameTo = i;
+                break;
+            }
+        }
+        if (nameTo == -1) {
+            throw new ParseException("Invalid header: " + new String(line, from, to - from, Consts.ISO_8859_1));
+        }
+        int nameFrom = from;
+        while (nameFrom < nameTo && HTTP.isWhitespace((char) line[nameFrom])) {
+            nameFrom++;
+        }
+        while (nameTo > nameFrom && HTTP.isWhitespace((char) line[nameTo - 1])) {
+            nameTo--;
+        }
+        if (nameFrom == nameTo) {
+            throw new ParseException("Invalid header: " + new String(line, from, to - from, Consts.ISO_8859_1));
+        }
+        final int len = nameTo - nameFrom;
+        final int id = WellKnownHeaders.lookup(line, nameFrom, len);
+        if (id != WellKnownHeaders.UNKNOWN) {
+            return this.known[id];
+        }
+        for (final String other : this.others) {
+            if (other.length() == len && regionMatches(line, nameFrom, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(final char[] b, final int off, final String lower) {
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.toLowerCase(b[off + i]) != lower.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(final byte[] b, final int off, final String lower) {
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.toLowerCase((char) (b[off + i] & 0xff)) != lower.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append('[');
+        for (int id = 0; id < this.known.length; id++) {
+            if (this.known[id]) {
+                if (buffer.length() > 1) {
+                    buffer.append(", ");
+                }
+                buffer.append(WellKnownHeaders.name(id));
+            }
+        }
+        for (final String other : this.others) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(other);
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+
+}
@@ -27,9 +27,13 @@
 
 package com.daxzel.shttpparser.message;
 
+import com.daxzel.shttpparser.util.ChannelUtils;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public interface HttpEntity {
 
@@ -126,6 +130,47 @@ public interface HttpEntity {
      */
     void writeTo(OutputStream outstream) throws IOException;
 
+    /**
+     * Writes the entity content out to the channel. Entities streamed from
+     * a session input buffer transfer their content straight from the
+     * buffer to the channel, which can save copying large bodies through
+     * intermediate arrays, for instance when they are spooled to a
+     * {@link java.nio.channels.FileChannel}. The channel is expected to be
+     * in blocking mode.
+     * <p>
+     * IMPORTANT: Please note all entity implementations must ensure that
+     * all allocated resources are properly deallocated when this method
+     * returns.
+     * <p>
+     * The default implementation copies the stream returned by
+     * {@link #getContent()} to the channel and closes it.
+     *
+     * @param channel the channel to write entity content to
+     * @return the number of bytes written
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @since 0.6
+     */
+    default long transferTo(final WritableByteChannel channel) throws IOException {
+        final InputStream instream = getContent();
+        if (instream == null) {
+            return 0;
+        }
+        try {
+            final byte[] tmp = new byte[4096];
+            long total = 0;
+            int l;
+            while ((l = instream.read(tmp)) != -1) {
+                ChannelUtils.writeFully(channel, ByteBuffer.wrap(tmp, 0, l));
+                total += l;
+            }
+            return total;
+        } finally {
+            instream.close();
+        }
+    }
+
     /**
      * Tells whether this entity depends on an underlying stream.
      * Streamed entities that read data directly from the socket should
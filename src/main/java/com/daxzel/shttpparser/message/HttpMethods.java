@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+/**
+ * Request methods of HTTP/1.1 (RFC 7231), PATCH (RFC 5789) and WebDAV
+ * (RFC 4918).
+ * <p>
+ * Method names can be resolved to the shared constants of this class
+ * straight from a line buffer. Names are looked up by their first char and
+ * length, which no two of these methods share, so a lookup costs a single
+ * comparison. Methods are case-sensitive, hence lookups are as well.
+ *
+ * @since 0.6
+ */
+public final class HttpMethods {
+
+    public static final String GET = "GET";
+    public static final String HEAD = "HEAD";
+    public static final String POST = "POST";
+    public static final String PUT = "PUT";
+    public static final String DELETE = "DELETE";
+    public static final String CONNECT = "CONNECT";
+    public static final String OPTIONS = "OPTIONS";
+    public static final String TRACE = "TRACE";
+    public static final String PATCH = "PATCH";
+
+    public static final String PROPFIND = "PROPFIND";
+    public static final String PROPPATCH = "PROPPATCH";
+    public static final String MKCOL = "MKCOL";
+    public static final String COPY = "COPY";
+    public static final String MOVE = "MOVE";
+    public static final String LOCK = "LOCK";
+    public static final String UNLOCK = "UNLOCK";
+
+    private static final String[] METHODS = {
+            GET, HEAD, POST, PUT, DELETE, CONNECT, OPTIONS, TRACE, PATCH,
+            PROPFIND, PROPPATCH, MKCOL, COPY, MOVE, LOCK, UNLOCK
+    };
+
+    private static final int MAX_LENGTH = 16;
+
+    /** Methods indexed by first char and length */
+    private static final String[] TABLE = new String[26 * MAX_LENGTH];
+
+    static {
+        for (final String method : METHODS) {
+            final int slot = slot(method.charAt(0), method.length());
+            if (TABLE[slot] != null) {
+                throw new IllegalStateException(method + " collides with " + TABLE[slot]);
+            }
+            TABLE[slot] = method;
+        }
+    }
+
+    private HttpMethods() {
+    }
+
+    private static int slot(final char first, final int len) {
+        if (first < 'A' || first > 'Z' || len >= MAX_LENGTH) {
+            return -1;
+        }
+        return (first - 'A') * MAX_LENGTH + len;
+    }
+
+    /**
+     * Resolves the method name in {@code b[off, off + len)} to its constant.
+     *
+     * @return the shared method name or {@code null} if the name is not one
+     *   of the methods of this class.
+     */
+    public static String lookup(final char[] b, final int off, final int len) {
+        if (len == 0) {
+            return null;
+        }
+        final int slot = slot(b[off], len);
+        if (slot == -1) {
+            return null;
+        }
+        final String method = TABLE[slot];
+        if (method == null) {
+            return null;
+        }
+        for (int i = 1; i < len; i++) {
+            if (b[off + i] != method.charAt(i)) {
+                return null;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Resolves the method name to its constant.
+     *
+     * @return the shared method name or {@code null} if the name is not one
+     *   of the methods of this class.
+     */
+    public static String lookup(final String name) {
+        final int len = name.length();
+        if (len == 0) {
+            return null;
+        }
+        final int slot = slot(name.charAt(0), len);
+        if (slot == -1) {
+            return null;
+        }
+        final String method = TABLE[slot];
+        return method != null && method.equals(name) ? method : null;
+    }
+
+}
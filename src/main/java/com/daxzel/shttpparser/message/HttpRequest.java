@@ -50,4 +50,17 @@ public interface HttpRequest extends HttpMessage {
      */
     RequestLine getRequestLine();
 
+    /**
+     * Returns the request target of this request split into its path,
+     * query and fragment components. The default implementation splits the
+     * URI of the request line on every call; implementations are expected
+     * to override it with one that caches the result.
+     * @return the request target.
+     *
+     * @since 0.6
+     */
+    default RequestTarget getRequestTarget() {
+        return RequestTarget.parse(getRequestLine().getUri());
+    }
+
 }
\ No newline at end of file
@@ -62,6 +62,13 @@ public final class HttpVersion extends ProtocolVersion
     /** HTTP protocol version 1.1 */
     public static final HttpVersion HTTP_1_1 = new HttpVersion(1, 1);
 
+    /**
+     * HTTP protocol version 2.0
+     *
+     * @since 0.6
+     */
+    public static final HttpVersion HTTP_2_0 = new HttpVersion(2, 0);
+
 
     /**
      * Create an HTTP protocol version designator.
@@ -102,6 +109,9 @@ public final class HttpVersion extends ProtocolVersion
         if ((major == 0) && (minor == 9)) {
             return HTTP_0_9;
         }
+        if ((major == 2) && (minor == 0)) {
+            return HTTP_2_0;
+        }
 
         // argument checking is done in the constructor
         return new HttpVersion(major, minor);
@@ -2,10 +2,12 @@ package com.daxzel.shttpparser.message;
 
 
 import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.ChannelTransfer;
 import com.daxzel.shttpparser.io.SessionInputBuffer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Input stream that reads data without any transformation. The end of the
@@ -20,7 +22,7 @@ import java.io.InputStream;
  * @since 4.0
  * NotThreadSafe
  */
-public class IdentityInputStream extends InputStream {
+public class IdentityInputStream extends InputStream implements ChannelTransfer {
 
     private final SessionInputBuffer in;
 
@@ -36,6 +38,13 @@ public class IdentityInputStream extends InputStream {
         this.in = in;
     }
 
+    /**
+     * Prepares this stream to read another entity.
+     */
+    void recycle() {
+        this.closed = false;
+    }
+
     @Override
     public int available() throws IOException {
         if (this.in instanceof BufferInfo) {
@@ -68,4 +77,21 @@ public class IdentityInputStream extends InputStream {
         }
     }
 
+    @Override
+    public long skip(final long n) throws IOException {
+        if (this.closed) {
+            return 0;
+        } else {
+            return this.in.skip(n);
+        }
+    }
+
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+        if (this.closed) {
+            return 0;
+        } else {
+            return this.in.transferTo(channel, Long.MAX_VALUE);
+        }
+    }
+
 }
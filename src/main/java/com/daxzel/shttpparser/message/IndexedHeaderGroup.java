@@ -0,0 +1,320 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link HeaderGroup} that maintains a hash index of header names, so
+ * that lookups by name take constant time instead of a scan over all
+ * headers. Insertion order and multiple headers with the same name are
+ * preserved exactly as in {@link HeaderGroup}.
+ * <p>
+ * The index maps the case-folded hash of a header name to the positions of
+ * the headers with that hash in insertion order. It is built lazily on the
+ * first lookup once the group holds at least {@link #INDEX_THRESHOLD}
+ * headers; smaller groups are scanned linearly. Appending headers keeps the
+ * index up to date, other modifications empty it until the next lookup.
+ * Index arrays are retained when the group is cleared, so a group reused
+ * for a series of messages does not allocate once warmed up.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class IndexedHeaderGroup extends HeaderGroup {
+
+    private static final long serialVersionUID = -3185427380123466511L;
+
+    /**
+     * Groups smaller than this are not indexed.
+     */
+    static final int INDEX_THRESHOLD = 8;
+
+    private static final Header[] EMPTY = new Header[] {};
+
+    /** Hashes of the well-known header names by id */
+    private static final int[] KNOWN_HASHES;
+
+    static {
+        KNOWN_HASHES = new int[WellKnownHeaders.size()];
+        for (int id = 0; id < KNOWN_HASHES.length; id++) {
+            KNOWN_HASHES[id] = hash(WellKnownHeaders.name(id));
+        }
+    }
+
+    /** Hash slot to first position in the slot plus one, {@code 0} if empty */
+    private transient int[] heads;
+    /** Hash slot to last position in the slot */
+    private transient int[] tails;
+    /** Position to next position in the same slot, {@code -1} at the end */
+    private transient int[] next;
+    private transient int indexed;
+
+    public IndexedHeaderGroup() {
+        super();
+    }
+
+    /**
+     * Computes a hash of the given header name that is equal for names that
+     * are equal ignoring case.
+     */
+    static int hash(final String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return h;
+    }
+
+    private static int hash(final String name, final int id) {
+        return id != WellKnownHeaders.UNKNOWN ? KNOWN_HASHES[id] : hash(name);
+    }
+
+    private static int hash(final Header header) {
+        final int id = WellKnownHeaders.idOf(header);
+        if (id >= 0) {
+            return KNOWN_HASHES[id];
+        }
+        if (header instanceof ByteSliceHeader) {
+            // hash the raw bytes, the header name string may never be needed
+            final ByteSliceHeader slice = (ByteSliceHeader) header;
+            final byte[] b = slice.getBuffer();
+            final int to = slice.getNameOffset() + slice.getNameLength();
+            int h = 0;
+            for (int i = slice.getNameOffset(); i < to; i++) {
+                h = 31 * h + fold((char) (b[i] & 0xff));
+            }
+            return h;
+        }
+        if (header instanceof FormattedHeader) {
+            // hash the name within the header line
+            final CharArrayBuffer buffer = ((FormattedHeader) header).getBuffer();
+            int from = 0;
+            int to = ((FormattedHeader) header).getValuePos() - 1;
+            while (from < to && HTTP.isWhitespace(buffer.charAt(from))) {
+                from++;
+            }
+            while (to > from && HTTP.isWhitespace(buffer.charAt(to - 1))) {
+                to--;
+            }
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + fold(buffer.charAt(i));
+            }
+            return h;
+        }
+        return hash(header.getName());
+    }
+
+    private static int fold(final char ch) {
+        if (ch < 128) {
+            return ch >= 'A' && ch <= 'Z' ? ch + ('a' - 'A') : ch;
+        }
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    private static int slot(final int hash, final int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Makes sure the index covers all headers of the group.
+     *
+     * @return {@code true} if the index can be used.
+     */
+    private boolean ensureIndex() {
+        final int size = size();
+        if (size < INDEX_THRESHOLD) {
+            return false;
+        }
+        if (this.heads == null || size * 2 > this.heads.length) {
+            int capacity = 32;
+            while (capacity < size * 4) {
+                capacity <<= 1;
+            }
+            this.heads = new int[capacity];
+            this.tails = new int[capacity];
+            this.next = new int[capacity >> 1];
+            this.indexed = 0;
+        }
+        final int mask = this.heads.length - 1;
+        for (int i = this.indexed; i < size; i++) {
+            final int slot = slot(hash(get(i)), mask);
+            this.next[i] = -1;
+            if (this.heads[slot] == 0) {
+                this.heads[slot] = i + 1;
+            } else {
+                this.next[this.tails[slot]] = i;
+            }
+            this.tails[slot] = i;
+        }
+        this.indexed = size;
+        return true;
+    }
+
+    private void invalidate() {
+        this.heads = null;
+        this.tails = null;
+        this.next = null;
+        this.indexed = 0;
+    }
+
+    /**
+     * Returns the position of the first header with the given name
+     * in the group or {@code -1}.
+     */
+    private int first(final String name, final int id) {
+        int i = this.heads[slot(hash(name, id), this.heads.length - 1)] - 1;
+        while (i >= 0) {
+            if (matches(get(i), name, id)) {
+                return i;
+            }
+            i = this.next[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the index, keeping its arrays for reuse.
+     */
+    private void reset() {
+        if (this.heads != null) {
+            Arrays.fill(this.heads, 0);
+        }
+        this.indexed = 0;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        reset();
+    }
+
+    @Override
+    public void removeHeader(final Header header) {
+        super.removeHeader(header);
+        reset();
+    }
+
+    @Override
+    public void updateHeader(final Header header) {
+        if (header == null) {
+            return;
+        }
+        if (ensureIndex()) {
+            final String name = header.getName();
+            final int i = first(name, WellKnownHeaders.lookup(name));
+            if (i >= 0) {
+                // same name, the index is unaffected
+                set(i, header);
+            } else {
+                addHeader(header);
+            }
+        } else {
+            super.updateHeader(header);
+        }
+    }
+
+    @Override
+    public Header[] getHeaders(final String name) {
+        if (name == null || !ensureIndex()) {
+            return super.getHeaders(name);
+        }
+        final int id = WellKnownHeaders.lookup(name);
+        List<Header> headersFound = null;
+        int i = first(name, id);
+        while (i >= 0) {
+            final Header header = get(i);
+            if (matches(header, name, id)) {
+                if (headersFound == null) {
+                    headersFound = new ArrayList<Header>();
+                }
+                headersFound.add(header);
+            }
+            i = this.next[i];
+        }
+        return headersFound != null ? headersFound.toArray(new Header[headersFound.size()]) : EMPTY;
+    }
+
+    @Override
+    public Header getFirstHeader(final String name) {
+        if (name == null || !ensureIndex()) {
+            return super.getFirstHeader(name);
+        }
+        final int id = WellKnownHeaders.lookup(name);
+        final int i = first(name, id);
+        return i >= 0 ? get(i) : null;
+    }
+
+    @Override
+    public Header getLastHeader(final String name) {
+        if (name == null || !ensureIndex()) {
+            return super.getLastHeader(name);
+        }
+        final int id = WellKnownHeaders.lookup(name);
+        Header last = null;
+        int i = first(name, id);
+        while (i >= 0) {
+            final Header header = get(i);
+            if (matches(header, name, id)) {
+                last = header;
+            }
+            i = this.next[i];
+        }
+        return last;
+    }
+
+    @Override
+    public boolean containsHeader(final String name) {
+        if (name == null || !ensureIndex()) {
+            return super.containsHeader(name);
+        }
+        final int id = WellKnownHeaders.lookup(name);
+        return first(name, id) >= 0;
+    }
+
+    @Override
+    public HeaderGroup copy() {
+        final IndexedHeaderGroup clone = new IndexedHeaderGroup();
+        clone.setHeaders(getAllHeaders());
+        return clone;
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final IndexedHeaderGroup clone = (IndexedHeaderGroup) super.clone();
+        clone.invalidate();
+        return clone;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of {@link Inflater} instances. Creating an inflater
+ * allocates native zlib state, which is worth reusing across entities.
+ * <p>
+ * The pool keeps up to the given number of idle inflaters of each kind,
+ * with and without the zlib wrapper. Inflaters released beyond that are
+ * ended right away.
+ *
+ * ThreadSafe
+ *
+ * @since 0.6
+ */
+public class InflaterPool {
+
+    private final ArrayBlockingQueue<Inflater> wrapped;
+    private final ArrayBlockingQueue<Inflater> raw;
+
+    /**
+     * Creates new instance of InflaterPool.
+     *
+     * @param maxIdle the maximum number of idle inflaters of each kind.
+     *   Must be a positive number.
+     */
+    public InflaterPool(final int maxIdle) {
+        super();
+        this.wrapped = new ArrayBlockingQueue<Inflater>(maxIdle);
+        this.raw = new ArrayBlockingQueue<Inflater>(maxIdle);
+    }
+
+    public InflaterPool() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Obtains an inflater, creating one if none is idle.
+     *
+     * @param nowrap {@code true} for raw deflate data without the zlib
+     *   wrapper, as used by gzip.
+     * @return the inflater
+     */
+    public Inflater acquire(final boolean nowrap) {
+        final Inflater inflater = (nowrap ? this.raw : this.wrapped).poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Resets the inflater and returns it to the pool, or ends it if the pool
+     * is full.
+     *
+     * @param inflater the inflater obtained from {@link #acquire(boolean)}.
+     * @param nowrap the value the inflater has been acquired with.
+     */
+    public void release(final Inflater inflater, final boolean nowrap) {
+        inflater.reset();
+        if (!(nowrap ? this.raw : this.wrapped).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Ends all idle inflaters.
+     */
+    public void clear() {
+        Inflater inflater;
+        while ((inflater = this.wrapped.poll()) != null) {
+            inflater.end();
+        }
+        while ((inflater = this.raw.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+
+/**
+ * A raw HTTP header that owns its line buffer and can be refilled with
+ * another header line. Used by {@link RecyclableHttpRequest} so that header
+ * objects and their buffers survive from one request to the next.
+ * <p>
+ * Name and value strings are created only when requested; well-known names
+ * resolve to the shared {@link WellKnownHeaders} instances.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+final class RecyclableHeader implements FormattedHeader {
+
+    private final CharArrayBuffer buffer;
+
+    private int valuePos;
+    private int nameId;
+    private String name;
+    private String value;
+
+    RecyclableHeader() {
+        super();
+        this.buffer = new CharArrayBuffer(64);
+    }
+
+    /**
+     * Returns the line buffer to be filled with the next header line. The
+     * header must be {@link #parse() parsed} again afterwards.
+     */
+    public CharArrayBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Parses the content of the line buffer.
+     *
+     * @throws ParseException in case of a parse error
+     */
+    void parse() throws ParseException {
+        final int colon = this.buffer.indexOf(':');
+        if (colon == -1) {
+            throw new ParseException("Invalid header: " + this.buffer.toString());
+        }
+        int beginIndex = 0;
+        int endIndex = colon;
+        while (beginIndex < endIndex && HTTP.isWhitespace(this.buffer.charAt(beginIndex))) {
+            beginIndex++;
+        }
+        while (endIndex > beginIndex && HTTP.isWhitespace(this.buffer.charAt(endIndex - 1))) {
+            endIndex--;
+        }
+        if (beginIndex == endIndex) {
+            throw new ParseException("Invalid header: " + this.buffer.toString());
+        }
+        this.nameId = WellKnownHeaders.lookup(this.buffer.buffer(), beginIndex, endIndex - beginIndex);
+        this.name = this.nameId != WellKnownHeaders.UNKNOWN
+                ? WellKnownHeaders.name(this.nameId)
+                : null;
+        this.value = null;
+        this.valuePos = colon + 1;
+    }
+
+    /**
+     * Returns the header name, in the canonical spelling of
+     * {@link WellKnownHeaders} for well-known names.
+     */
+    public String getName() {
+        if (this.name == null) {
+            this.name = this.buffer.substringTrimmed(0, this.valuePos - 1);
+        }
+        return this.name;
+    }
+
+    public String getValue() {
+        if (this.value == null) {
+            this.value = this.buffer.substringTrimmed(this.valuePos, this.buffer.length());
+        }
+        return this.value;
+    }
+
+    public HeaderElement[] getElements() throws ParseException {
+        final ParserCursor cursor = new ParserCursor(0, this.buffer.length());
+        cursor.updatePos(this.valuePos);
+        return BasicHeaderValueParser.INSTANCE.parseElements(this.buffer, cursor);
+    }
+
+    public int getValuePos() {
+        return this.valuePos;
+    }
+
+    /**
+     * Returns the {@link WellKnownHeaders} id of the header name.
+     *
+     * @return the id or {@link WellKnownHeaders#UNKNOWN}
+     */
+    int getNameId() {
+        return this.nameId;
+    }
+
+    @Override
+    public String toString() {
+        return this.buffer.toString();
+    }
+
+}
@@ -0,0 +1,396 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.ConnectionClosedException;
+import com.daxzel.shttpparser.HttpException;
+import com.daxzel.shttpparser.MessageConstraints;
+import com.daxzel.shttpparser.ProtocolException;
+import com.daxzel.shttpparser.io.EmptyInputStream;
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Mutable HTTP request meant to be filled over and over again by
+ * {@link com.daxzel.shttpparser.DefaultHttpRequestParser#parse(RecyclableHttpRequest)}.
+ * <p>
+ * The request keeps the buffers holding its request line and header lines,
+ * its header objects, its entity and the entity content streams between
+ * messages. Once these have grown to fit the traffic of a connection,
+ * parsing further requests into the same instance does not allocate.
+ * Method names and well-known header names resolve to shared strings; the
+ * request URI and other header names and values are converted to strings
+ * only when requested.
+ * <p>
+ * Everything obtained from this request, including its headers and entity,
+ * is only valid until the request is parsed into again or
+ * {@link #recycle() recycled}.
+ * <p>
+ * Unlike messages created by {@link com.daxzel.shttpparser.HttpRequestFactory}
+ * the request method is not validated. A request has an entity if it carries
+ * a {@code Content-Length} or {@code Transfer-Encoding} header, or if it is a
+ * {@code POST} or {@code PUT} request, in which case the entity is delimited
+ * by the end of the stream.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public class RecyclableHttpRequest extends AbstractHttpMessage implements HttpEntityEnclosingRequest {
+
+    private final CharArrayBuffer lineBuffer;
+    private final RequestScanner scanner;
+    private final RequestLine requestLine;
+    private final BasicHttpEntity reusableEntity;
+
+    private RecyclableHeader[] headerSlots;
+
+    private String method;
+    private int uriStart;
+    private int uriEnd;
+    private String uri;
+    private RequestTarget target;
+    private ProtocolVersion version;
+    private HttpEntity entity;
+
+    private SessionInputBuffer streamSource;
+    private ContentLengthInputStream contentLengthStream;
+    private ChunkedInputStream chunkedStream;
+    private IdentityInputStream identityStream;
+
+    public RecyclableHttpRequest() {
+        super();
+        this.lineBuffer = new CharArrayBuffer(128);
+        this.scanner = new RequestScanner();
+        this.requestLine = new RequestLine() {
+
+            public String getMethod() {
+                return RecyclableHttpRequest.this.method;
+            }
+
+            public ProtocolVersion getProtocolVersion() {
+                return RecyclableHttpRequest.this.version;
+            }
+
+            public String getUri() {
+                return RecyclableHttpRequest.this.getUri();
+            }
+
+            @Override
+            public String toString() {
+                return BasicLineFormatter.INSTANCE.formatRequestLine(null, this).toString();
+            }
+
+        };
+        this.reusableEntity = new BasicHttpEntity();
+        this.headerSlots = new RecyclableHeader[16];
+    }
+
+    private String getUri() {
+        if (this.uri == null && this.method != null) {
+            this.uri = this.lineBuffer.substring(this.uriStart, this.uriEnd);
+        }
+        return this.uri;
+    }
+
+    /**
+     * Returns the request target, which is split on first access.
+     */
+    public RequestTarget getRequestTarget() {
+        if (this.target == null && this.method != null) {
+            this.target = RequestTarget.parse(getUri());
+        }
+        return this.target;
+    }
+
+    /**
+     * Returns the request line. The returned object is a view of this
+     * request and changes as the request is reused.
+     */
+    public RequestLine getRequestLine() {
+        return this.requestLine;
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return this.version;
+    }
+
+    public HttpEntity getEntity() {
+        return this.entity;
+    }
+
+    public void setEntity(final HttpEntity entity) {
+        this.entity = entity;
+    }
+
+    public boolean expectContinue() {
+        final Header expect = getFirstHeader(HTTP.EXPECT_DIRECTIVE);
+        return expect != null && HTTP.EXPECT_CONTINUE.equalsIgnoreCase(expect.getValue());
+    }
+
+    /**
+     * Resets this request to an empty state, retaining its buffers.
+     */
+    public void recycle() {
+        this.lineBuffer.clear();
+        this.method = null;
+        this.uri = null;
+        this.target = null;
+        this.version = null;
+        this.entity = null;
+        this.headergroup.clear();
+    }
+
+    /**
+     * Reads the next request from the session input buffer into this
+     * instance. Remaining content of the previous entity, if any, is
+     * discarded first.
+     *
+     * @param inbuffer    the session input buffer.
+     * @param lineParser  the line parser used to parse the protocol version.
+     * @param constraints the message constraints.
+     * @throws IOException   in case of an I/O error
+     * @throws HttpException in case of HTTP protocol violation
+     */
+    public void parse(
+            final SessionInputBuffer inbuffer,
+            final LineParser lineParser,
+            final MessageConstraints constraints) throws IOException, HttpException {
+        final InputStream content = this.reusableEntity.getContent();
+        if (content != null) {
+            content.close();
+        }
+        recycle();
+        if (inbuffer.readLine(this.lineBuffer) == -1) {
+            throw new ConnectionClosedException("Client closed connection");
+        }
+        try {
+            parseRequestLine(lineParser);
+        } catch (final ParseException px) {
+            throw new ProtocolException(px.getMessage(), px);
+        }
+        parseHeaders(inbuffer, constraints);
+        parseEntity(inbuffer, constraints);
+    }
+
+    private void parseRequestLine(final LineParser lineParser) throws ParseException {
+        final RequestScanner scanner = this.scanner;
+        scanner.scanRequestLine(this.lineBuffer, lineParser);
+        this.uriStart = scanner.getTargetStart();
+        this.uriEnd = scanner.getTargetEnd();
+        this.version = scanner.getProtocolVersion();
+        this.method = method(this.lineBuffer, scanner.getMethodStart(), scanner.getMethodEnd());
+    }
+
+    private static String method(final CharArrayBuffer buffer, final int from, final int to) {
+        final String m = HttpMethods.lookup(buffer.buffer(), from, to - from);
+        return m != null ? m : buffer.substring(from, to);
+    }
+
+    private RecyclableHeader slot(final int i) {
+        if (i == this.headerSlots.length) {
+            final RecyclableHeader[] slots = new RecyclableHeader[i * 2];
+            System.arraycopy(this.headerSlots, 0, slots, 0, i);
+            this.headerSlots = slots;
+        }
+        if (this.headerSlots[i] == null) {
+            this.headerSlots[i] = new RecyclableHeader();
+        }
+        return this.headerSlots[i];
+    }
+
+    /**
+     * Reads the header section into the header slots, unfolding
+     * continuation lines the same way as
+     * {@link com.daxzel.shttpparser.AbstractMessageParser#parseHeaders}.
+     */
+    private void parseHeaders(
+            final SessionInputBuffer inbuffer,
+            final MessageConstraints constraints) throws IOException, HttpException {
+        final int maxHeaderCount = constraints.getMaxHeaderCount();
+        final int maxLineLen = constraints.getMaxLineLength();
+        final HeaderInterest interest = constraints.getHeaderInterest();
+        int count = 0;
+        int skipped = 0;
+        boolean skipping = false;
+        int skippedLength = 0;
+        RecyclableHeader previous = null;
+        for (;;) {
+            final CharArrayBuffer current = slot(count).getBuffer();
+            current.clear();
+            final int l = inbuffer.readLine(current);
+            if (l == -1 || current.length() < 1) {
+                break;
+            }
+            if (current.charAt(0) == ' ' && current.length() == 1) {
+                break;
+            }
+            if ((current.charAt(0) == ' ' || current.charAt(0) == '\t') && (previous != null || skipping)) {
+                int i = 0;
+                while (i < current.length()) {
+                    final char ch = current.charAt(i);
+                    if (ch != ' ' && ch != '\t') {
+                        break;
+                    }
+                    i++;
+                }
+                if (skipping) {
+                    skippedLength += 1 + current.length() - i;
+                    if (maxLineLen > 0 && skippedLength > maxLineLen) {
+                        throw new MessageConstraintException("Maximum line length limit exceeded");
+                    }
+                    continue;
+                }
+                final CharArrayBuffer buffer = previous.getBuffer();
+                if (maxLineLen > 0 && buffer.length() + 1 + current.length() - i > maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+                buffer.append(' ');
+                buffer.append(current, i, current.length() - i);
+            } else if (interest != null && !includes(interest, current)) {
+                // the slot is refilled with the next line
+                skipping = true;
+                skipped++;
+                skippedLength = current.length();
+            } else {
+                skipping = false;
+                previous = this.headerSlots[count];
+                count++;
+            }
+            if (maxHeaderCount > 0 && count + skipped >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final RecyclableHeader header = this.headerSlots[i];
+            try {
+                header.parse();
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage());
+            }
+            this.headergroup.addHeader(header);
+        }
+    }
+
+    private static boolean includes(
+            final HeaderInterest interest, final CharArrayBuffer line) throws ProtocolException {
+        try {
+            return interest.includes(line.buffer(), 0, line.length());
+        } catch (final ParseException ex) {
+            throw new ProtocolException(ex.getMessage());
+        }
+    }
+
+    private void parseEntity(
+            final SessionInputBuffer inbuffer,
+            final MessageConstraints constraints) throws HttpException {
+        if (this.streamSource != inbuffer) {
+            this.streamSource = inbuffer;
+            this.contentLengthStream = null;
+            this.chunkedStream = null;
+            this.identityStream = null;
+        }
+        final long len = determineLength();
+        final BasicHttpEntity entity = this.reusableEntity;
+        if (len == ContentLengthStrategy.CHUNKED) {
+            if (this.chunkedStream == null) {
+                this.chunkedStream = new ChunkedInputStream(inbuffer, constraints);
+            } else {
+                this.chunkedStream.recycle();
+            }
+            entity.setChunked(true);
+            entity.setContentLength(-1);
+            entity.setContent(this.chunkedStream);
+        } else if (len == ContentLengthStrategy.IDENTITY) {
+            // known methods are shared constants
+            if (this.method != HttpMethods.POST && this.method != HttpMethods.PUT) {
+                // no message body
+                return;
+            }
+            if (this.identityStream == null) {
+                this.identityStream = new IdentityInputStream(inbuffer);
+            } else {
+                this.identityStream.recycle();
+            }
+            entity.setChunked(false);
+            entity.setContentLength(-1);
+            entity.setContent(this.identityStream);
+        } else if (len == 0) {
+            entity.setChunked(false);
+            entity.setContentLength(0);
+            entity.setContent(EmptyInputStream.INSTANCE);
+        } else {
+            if (this.contentLengthStream == null) {
+                this.contentLengthStream = new ContentLengthInputStream(inbuffer, len);
+            } else {
+                this.contentLengthStream.recycle(len);
+            }
+            entity.setChunked(false);
+            entity.setContentLength(len);
+            entity.setContent(this.contentLengthStream);
+        }
+        entity.setContentType(getFirstHeader(HTTP.CONTENT_TYPE));
+        entity.setContentEncoding(getFirstHeader(HTTP.CONTENT_ENCODING));
+        this.entity = entity;
+    }
+
+    /**
+     * Determines the length of the message body like
+     * {@link StrictContentLengthStrategy} does, reading the header values
+     * from the header buffers.
+     */
+    private long determineLength() throws HttpException {
+        final Header transferEncoding = getFirstHeader(HTTP.TRANSFER_ENCODING);
+        if (transferEncoding != null) {
+            final RecyclableHeader header = (RecyclableHeader) transferEncoding;
+            final CharArrayBuffer buffer = header.getBuffer();
+            final int from = RequestScanner.skipWhitespace(buffer, header.getValuePos(), buffer.length());
+            final int to = RequestScanner.trimWhitespace(buffer, from, buffer.length());
+            return RequestScanner.parseTransferEncoding(buffer, from, to, this.version);
+        }
+        final Header contentLength = getFirstHeader(HTTP.CONTENT_LEN);
+        if (contentLength != null) {
+            final RecyclableHeader header = (RecyclableHeader) contentLength;
+            final CharArrayBuffer buffer = header.getBuffer();
+            final int from = RequestScanner.skipWhitespace(buffer, header.getValuePos(), buffer.length());
+            final int to = RequestScanner.trimWhitespace(buffer, from, buffer.length());
+            return RequestScanner.parseContentLength(buffer, from, to);
+        }
+        return ContentLengthStrategy.IDENTITY;
+    }
+
+    @Override
+    public String toString() {
+        return this.method + ' ' + getUri() + ' ' + this.headergroup;
+    }
+
+}
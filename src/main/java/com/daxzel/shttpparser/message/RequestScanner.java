@@ -0,0 +1,195 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import com.daxzel.shttpparser.ProtocolException;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+
+/**
+ * Splits a request line held in a line buffer into its method, request
+ * target and protocol version without copying, and parses the
+ * {@code Content-Length} and {@code Transfer-Encoding} values that delimit
+ * the message body. Shared by {@link RecyclableHttpRequest} and
+ * {@link com.daxzel.shttpparser.StreamingHttpRequestParser}.
+ * <p>
+ * The protocol version is parsed by the given {@link LineParser}, so
+ * custom line parsers see every request line.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public final class RequestScanner {
+
+    private int methodStart;
+    private int methodEnd;
+    private int targetStart;
+    private int targetEnd;
+    private ProtocolVersion version;
+
+    public RequestScanner() {
+        super();
+    }
+
+    /**
+     * Scans the request line held in the given buffer. The positions of
+     * the method and the request target are kept until the next call.
+     *
+     * @param buffer the buffer holding the request line.
+     * @param lineParser the line parser used to parse the protocol version.
+     * @throws ParseException in case of a malformed request line
+     */
+    public void scanRequestLine(
+            final CharArrayBuffer buffer, final LineParser lineParser) throws ParseException {
+        final int indexTo = buffer.length();
+        int i = skipWhitespace(buffer, 0, indexTo);
+        int blank = buffer.indexOf(' ', i, indexTo);
+        if (blank < 0) {
+            throw new ParseException("Invalid request line: " + buffer.toString());
+        }
+        this.methodStart = i;
+        this.methodEnd = blank;
+        i = skipWhitespace(buffer, blank, indexTo);
+        blank = buffer.indexOf(' ', i, indexTo);
+        if (blank < 0) {
+            throw new ParseException("Invalid request line: " + buffer.toString());
+        }
+        this.targetStart = i;
+        this.targetEnd = blank;
+        final ParserCursor cursor = new ParserCursor(skipWhitespace(buffer, blank, indexTo), indexTo);
+        this.version = lineParser.parseProtocolVersion(buffer, cursor);
+        if (skipWhitespace(buffer, cursor.getPos(), indexTo) != indexTo) {
+            throw new ParseException("Invalid request line: " + buffer.toString());
+        }
+    }
+
+    public int getMethodStart() {
+        return this.methodStart;
+    }
+
+    public int getMethodEnd() {
+        return this.methodEnd;
+    }
+
+    public int getTargetStart() {
+        return this.targetStart;
+    }
+
+    public int getTargetEnd() {
+        return this.targetEnd;
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the index of the first non-whitespace char at or after
+     * {@code from}, or {@code to} if there is none.
+     */
+    public static int skipWhitespace(final CharArrayBuffer buffer, final int from, final int to) {
+        int i = from;
+        while (i < to && HTTP.isWhitespace(buffer.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the end of the given range with trailing whitespace removed.
+     */
+    public static int trimWhitespace(final CharArrayBuffer buffer, final int from, final int to) {
+        int i = to;
+        while (i > from && HTTP.isWhitespace(buffer.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Parses a trimmed {@code Content-Length} value.
+     *
+     * @return the content length.
+     * @throws ProtocolException if the value is not a non-negative number
+     *   of at most 18 digits.
+     */
+    public static long parseContentLength(
+            final CharArrayBuffer buffer, final int from, final int to) throws ProtocolException {
+        if (from == to || to - from > 18) {
+            throw new ProtocolException("Invalid content length: " + buffer.substring(from, to));
+        }
+        long len = 0;
+        for (int i = from; i < to; i++) {
+            final char ch = buffer.charAt(i);
+            if (ch < '0' || ch > '9') {
+                throw new ProtocolException("Invalid content length: " + buffer.substring(from, to));
+            }
+            len = len * 10 + (ch - '0');
+        }
+        return len;
+    }
+
+    /**
+     * Parses a trimmed {@code Transfer-Encoding} value the way
+     * {@link StrictContentLengthStrategy} does.
+     *
+     * @return {@link ContentLengthStrategy#CHUNKED} or
+     *   {@link ContentLengthStrategy#IDENTITY}.
+     * @throws ProtocolException if the coding is not supported, or if the
+     *   message is chunked but its version is HTTP/1.0 or older.
+     */
+    public static long parseTransferEncoding(
+            final CharArrayBuffer buffer, final int from, final int to,
+            final ProtocolVersion ver) throws ProtocolException {
+        if (regionEqualsIgnoreCase(buffer, from, to, HTTP.CHUNK_CODING)) {
+            if (ver.lessEquals(HttpVersion.HTTP_1_0)) {
+                throw new ProtocolException("Chunked transfer encoding not allowed for " + ver);
+            }
+            return ContentLengthStrategy.CHUNKED;
+        } else if (regionEqualsIgnoreCase(buffer, from, to, HTTP.IDENTITY_CODING)) {
+            return ContentLengthStrategy.IDENTITY;
+        } else {
+            throw new ProtocolException("Unsupported transfer encoding: " + buffer.substring(from, to));
+        }
+    }
+
+    private static boolean regionEqualsIgnoreCase(
+            final CharArrayBuffer buffer, final int from, final int to, final String s) {
+        if (to - from != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.toLowerCase(buffer.charAt(from + i)) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
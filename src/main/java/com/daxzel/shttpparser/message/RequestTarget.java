@@ -0,0 +1,316 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request target of a request line split into its path, query and fragment
+ * components.
+ * <p>
+ * The components are recorded as offsets into the request URI, which the
+ * line parser determines while it scans the request line, so splitting the
+ * target costs nothing until a component is requested. Raw components are
+ * substrings of the URI; callers that want to avoid even these can work on
+ * {@link #getUri()} with the offsets directly. Decoded components and the
+ * query parameters are computed on first access and cached. Percent-decoding
+ * is only performed on components that contain {@code %}.
+ * <p>
+ * The path of an absolute-form target ({@code http://host/path}) starts
+ * after the authority. For authority-form ({@code host:port}) and
+ * asterisk-form ({@code *}) targets the path is the whole target.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public final class RequestTarget {
+
+    private final String uri;
+    private final int pathStart;
+    private final int pathEnd;
+    private final int queryEnd;
+
+    private String path;
+    private Map<String, List<String>> parameters;
+
+    /**
+     * Creates a request target from the offsets of its components.
+     *
+     * @param uri the request URI.
+     * @param pathStart the start of the path.
+     * @param pathEnd the end of the path, which is the position of {@code ?}
+     *   if there is a query.
+     * @param queryEnd the end of the query, which is the position of
+     *   {@code #} if there is a fragment.
+     */
+    RequestTarget(final String uri, final int pathStart, final int pathEnd, final int queryEnd) {
+        super();
+        this.uri = uri;
+        this.pathStart = pathStart;
+        this.pathEnd = pathEnd;
+        this.queryEnd = queryEnd;
+    }
+
+    /**
+     * Splits the given request URI.
+     *
+     * @param uri the request URI.
+     * @return the request target
+     */
+    public static RequestTarget parse(final String uri) {
+        final int len = uri.length();
+        int queryEnd = uri.indexOf('#');
+        if (queryEnd == -1) {
+            queryEnd = len;
+        }
+        int pathEnd = uri.indexOf('?');
+        if (pathEnd == -1 || pathEnd > queryEnd) {
+            pathEnd = queryEnd;
+        }
+        return new RequestTarget(uri, pathStart(uri, 0, pathEnd), pathEnd, queryEnd);
+    }
+
+    /**
+     * Determines where the path starts within the URI content in
+     * {@code s[from, to)}, skipping the scheme and authority of absolute
+     * URIs.
+     */
+    static int pathStart(final CharSequence s, final int from, final int to) {
+        if (from == to || s.charAt(from) == '/') {
+            return from;
+        }
+        for (int i = from; i + 2 < to; i++) {
+            final char ch = s.charAt(i);
+            if (ch == ':') {
+                if (s.charAt(i + 1) != '/' || s.charAt(i + 2) != '/') {
+                    return from;
+                }
+                for (int j = i + 3; j < to; j++) {
+                    if (s.charAt(j) == '/') {
+                        return j;
+                    }
+                }
+                return to;
+            }
+            if (ch == '/') {
+                break;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the complete request URI.
+     */
+    public String getUri() {
+        return this.uri;
+    }
+
+    public int getPathStart() {
+        return this.pathStart;
+    }
+
+    public int getPathEnd() {
+        return this.pathEnd;
+    }
+
+    /**
+     * Returns the start of the query, just after {@code ?}, or {@code -1}
+     * if the target has no query.
+     */
+    public int getQueryStart() {
+        return this.pathEnd < this.queryEnd ? this.pathEnd + 1 : -1;
+    }
+
+    public int getQueryEnd() {
+        return this.queryEnd;
+    }
+
+    /**
+     * Returns the start of the fragment, just after {@code #}, or {@code -1}
+     * if the target has no fragment. Clients should not send fragments.
+     */
+    public int getFragmentStart() {
+        return this.queryEnd < this.uri.length() ? this.queryEnd + 1 : -1;
+    }
+
+    /**
+     * Returns the path as it was sent.
+     */
+    public String getRawPath() {
+        return this.uri.substring(this.pathStart, this.pathEnd);
+    }
+
+    /**
+     * Returns the percent-decoded path.
+     */
+    public String getPath() {
+        if (this.path == null) {
+            this.path = decode(this.uri, this.pathStart, this.pathEnd, false);
+        }
+        return this.path;
+    }
+
+    /**
+     * Returns the query as it was sent or {@code null} if the target has
+     * no query.
+     */
+    public String getRawQuery() {
+        final int queryStart = getQueryStart();
+        return queryStart != -1 ? this.uri.substring(queryStart, this.queryEnd) : null;
+    }
+
+    /**
+     * Returns the fragment as it was sent or {@code null} if the target has
+     * no fragment.
+     */
+    public String getRawFragment() {
+        final int fragmentStart = getFragmentStart();
+        return fragmentStart != -1 ? this.uri.substring(fragmentStart) : null;
+    }
+
+    /**
+     * Returns the decoded query parameters in the order of their first
+     * occurrence. Parameters without {@code =} have an empty value. The map
+     * is computed on first access.
+     *
+     * @return unmodifiable map of parameter names to their values.
+     */
+    public Map<String, List<String>> getQueryParameters() {
+        if (this.parameters == null) {
+            this.parameters = parseQuery();
+        }
+        return this.parameters;
+    }
+
+    /**
+     * Returns the first value of the given query parameter or {@code null}
+     * if the query does not contain it.
+     */
+    public String getQueryParameter(final String name) {
+        final List<String> values = getQueryParameters().get(name);
+        return values != null ? values.get(0) : null;
+    }
+
+    private Map<String, List<String>> parseQuery() {
+        final int queryStart = getQueryStart();
+        if (queryStart == -1 || queryStart == this.queryEnd) {
+            return Collections.emptyMap();
+        }
+        final Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+        int i = queryStart;
+        while (i <= this.queryEnd) {
+            int end = this.uri.indexOf('&', i);
+            if (end == -1 || end > this.queryEnd) {
+                end = this.queryEnd;
+            }
+            if (end > i) {
+                int eq = this.uri.indexOf('=', i);
+                if (eq == -1 || eq > end) {
+                    eq = end;
+                }
+                final String name = decode(this.uri, i, eq, true);
+                final String value = eq < end ? decode(this.uri, eq + 1, end, true) : "";
+                List<String> values = map.get(name);
+                if (values == null) {
+                    values = new ArrayList<String>(1);
+                    map.put(name, values);
+                }
+                values.add(value);
+            }
+            i = end + 1;
+        }
+        for (final Map.Entry<String, List<String>> entry : map.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Decodes {@code s[from, to)}. Content without escapes is returned as
+     * a plain substring. Escapes are decoded as UTF-8; malformed escapes are
+     * kept as they are.
+     *
+     * @param plusAsSpace whether {@code +} stands for a space, as it does in
+     *   form encoded query strings.
+     */
+    static String decode(final String s, final int from, final int to, final boolean plusAsSpace) {
+        boolean escaped = false;
+        for (int i = from; i < to; i++) {
+            final char ch = s.charAt(i);
+            if (ch == '%' || (plusAsSpace && ch == '+')) {
+                escaped = true;
+                break;
+            }
+        }
+        if (!escaped) {
+            return s.substring(from, to);
+        }
+        final byte[] b = new byte[(to - from) * 3];
+        int len = 0;
+        int i = from;
+        while (i < to) {
+            final char ch = s.charAt(i);
+            if (ch == '%' && i + 2 < to) {
+                final int hi = Character.digit(s.charAt(i + 1), 16);
+                final int lo = Character.digit(s.charAt(i + 2), 16);
+                if (hi != -1 && lo != -1) {
+                    b[len++] = (byte) ((hi << 4) + lo);
+                    i += 3;
+                    continue;
+                }
+            }
+            if (plusAsSpace && ch == '+') {
+                b[len++] = ' ';
+            } else if (ch < 0x80) {
+                b[len++] = (byte) ch;
+            } else {
+                final int n = Character.isHighSurrogate(ch) && i + 1 < to
+                        && Character.isLowSurrogate(s.charAt(i + 1)) ? 2 : 1;
+                final byte[] encoded = s.substring(i, i + n).getBytes(Consts.UTF_8);
+                System.arraycopy(encoded, 0, b, len, encoded.length);
+                len += encoded.length;
+                i += n;
+                continue;
+            }
+            i++;
+        }
+        return new String(b, 0, len, Consts.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return this.uri;
+    }
+
+}
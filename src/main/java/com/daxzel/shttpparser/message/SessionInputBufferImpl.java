@@ -2,15 +2,19 @@ package com.daxzel.shttpparser.message;
 
 import com.daxzel.shttpparser.MessageConstraints;
 import com.daxzel.shttpparser.io.BufferInfo;
+import com.daxzel.shttpparser.io.BufferPool;
 import com.daxzel.shttpparser.io.HttpTransportMetrics;
 import com.daxzel.shttpparser.io.SessionInputBuffer;
 import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ByteSearch;
+import com.daxzel.shttpparser.util.ChannelUtils;
 import com.daxzel.shttpparser.util.CharArrayBuffer;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 
@@ -29,12 +33,18 @@ import java.nio.charset.CoderResult;
  */
 public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
 
+    private static final int LINE_BUFFERED = -2;
+
     private final HttpTransportMetricsImpl metrics;
-    private final byte[] buffer;
-    private final ByteArrayBuffer linebuffer;
+    private final int buffersize;
     private final int minChunkLimit;
     private final MessageConstraints constraints;
     private final CharsetDecoder decoder;
+    private final BufferPool pool;
+
+    private byte[] buffer;
+    private ByteBuffer bufferView;
+    private ByteArrayBuffer linebuffer;
 
     private InputStream instream;
     private int bufferpos;
@@ -55,39 +65,139 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
      *   {@link MessageConstraints#DEFAULT} will be used.
      * @param chardecoder chardecoder to be used for decoding HTTP protocol elements.
      *   If {@code null} simple type cast will be used for byte to char conversion.
+     * @param pool pool to borrow the read buffer and the line buffer from.
+     *   If {@code null} the buffers are allocated.
+     *
+     * @since 0.6
      */
     public SessionInputBufferImpl(
             final HttpTransportMetricsImpl metrics,
             final int buffersize,
             final int minChunkLimit,
             final MessageConstraints constraints,
-            final CharsetDecoder chardecoder) {
+            final CharsetDecoder chardecoder,
+            final BufferPool pool) {
         this.metrics = metrics;
-        this.buffer = new byte[buffersize];
+        this.pool = pool;
+        this.buffersize = buffersize;
+        this.buffer = allocate(buffersize);
+        this.bufferView = ByteSearch.view(this.buffer);
         this.bufferpos = 0;
         this.bufferlen = 0;
         this.minChunkLimit = minChunkLimit >= 0 ? minChunkLimit : 512;
         this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
-        this.linebuffer = new ByteArrayBuffer(buffersize);
+        this.linebuffer = new ByteArrayBuffer(allocate(buffersize));
         this.decoder = chardecoder;
     }
 
+    /**
+     * Creates new instance of SessionInputBufferImpl.
+     *
+     * @param metrics HTTP transport metrics.
+     * @param buffersize buffer size. Must be a positive number.
+     * @param minChunkLimit size limit below which data chunks should be buffered in memory
+     *   in order to minimize native method invocations on the underlying network socket.
+     *   The optimal value of this parameter can be platform specific and defines a trade-off
+     *   between performance of memory copy operations and that of native method invocation.
+     *   If negative default chunk limited will be used.
+     * @param constraints Message constraints. If {@code null}
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     * @param chardecoder chardecoder to be used for decoding HTTP protocol elements.
+     *   If {@code null} simple type cast will be used for byte to char conversion.
+     */
+    public SessionInputBufferImpl(
+            final HttpTransportMetricsImpl metrics,
+            final int buffersize,
+            final int minChunkLimit,
+            final MessageConstraints constraints,
+            final CharsetDecoder chardecoder) {
+        this(metrics, buffersize, minChunkLimit, constraints, chardecoder, null);
+    }
+
     public SessionInputBufferImpl(
             final HttpTransportMetricsImpl metrics,
             final int buffersize) {
         this(metrics, buffersize, buffersize, null, null);
     }
 
+    private byte[] allocate(final int size) {
+        return this.pool != null ? this.pool.acquire(size) : new byte[size];
+    }
+
     public void bind(final InputStream instream) {
         this.instream = instream;
     }
 
+    /**
+     * Parks this session buffer while the connection is idle, for instance
+     * between keep-alive requests. If no data is buffered the read buffer and
+     * the line buffer are handed back to the buffer pool, or left to the
+     * garbage collector if there is no pool, and reacquired at their base
+     * size on the next read. A line buffer grown by an oversized line is
+     * thereby trimmed back to the base size.
+     *
+     * @return {@code true} if the buffers have been released,
+     *   {@code false} if buffered data is still pending.
+     *
+     * @since 0.6
+     */
+    public boolean park() {
+        if (this.buffer == null) {
+            return true;
+        }
+        if (hasBufferedData() || !this.linebuffer.isEmpty()) {
+            return false;
+        }
+        this.bufferpos = 0;
+        this.bufferlen = 0;
+        if (this.pool != null) {
+            this.pool.release(this.buffer);
+            this.pool.release(this.linebuffer.buffer());
+        }
+        this.buffer = null;
+        this.bufferView = null;
+        this.linebuffer = null;
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if this session buffer is parked and holds no
+     * buffers.
+     *
+     * @since 0.6
+     */
+    public boolean isParked() {
+        return this.buffer == null;
+    }
+
+    /**
+     * Discards buffered data and parks this session buffer, returning its
+     * buffers to the buffer pool.
+     *
+     * @see #park()
+     *
+     * @since 0.6
+     */
+    public void release() {
+        clear();
+        if (this.linebuffer != null) {
+            this.linebuffer.clear();
+        }
+        park();
+    }
+
+    private void unpark() {
+        this.buffer = allocate(this.buffersize);
+        this.bufferView = ByteSearch.view(this.buffer);
+        this.linebuffer = new ByteArrayBuffer(allocate(this.buffersize));
+    }
+
     public boolean isBound() {
         return this.instream != null;
     }
 
     public int capacity() {
-        return this.buffer.length;
+        return this.buffer != null ? this.buffer.length : this.buffersize;
     }
 
     public int length() {
@@ -103,6 +213,9 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
     }
 
     public int fillBuffer() throws IOException {
+        if (this.buffer == null) {
+            unpark();
+        }
         // compact the buffer if necessary
         if (this.bufferpos > 0) {
             final int len = this.bufferlen - this.bufferpos;
@@ -178,6 +291,33 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
         }
     }
 
+    public long skip(final long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            if (!hasBufferedData() && fillBuffer() == -1) {
+                break;
+            }
+            final int chunk = (int) Math.min(remaining, this.bufferlen - this.bufferpos);
+            this.bufferpos += chunk;
+            remaining -= chunk;
+        }
+        return n > 0 ? n - remaining : 0;
+    }
+
+    public long transferTo(final WritableByteChannel channel, final long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            if (!hasBufferedData() && fillBuffer() == -1) {
+                break;
+            }
+            final int chunk = (int) Math.min(remaining, this.bufferlen - this.bufferpos);
+            ChannelUtils.writeFully(channel, ByteBuffer.wrap(this.buffer, this.bufferpos, chunk));
+            this.bufferpos += chunk;
+            remaining -= chunk;
+        }
+        return count > 0 ? count - remaining : 0;
+    }
+
     public int read(final byte[] b) throws IOException {
         if (b == null) {
             return 0;
@@ -201,18 +341,66 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
      * @exception  IOException  if an I/O error occurs.
      */
     public int readLine(final CharArrayBuffer charbuffer) throws IOException {
+        final int pos = locateLine();
+        if (pos == -1) {
+            return -1;
+        }
+        if (pos == LINE_BUFFERED) {
+            return lineFromLineBuffer(charbuffer);
+        }
+        return lineFromReadBuffer(charbuffer, pos);
+    }
+
+    /**
+     * Reads a complete line of bytes up to a line delimiter from this
+     * session buffer and appends it to the given byte buffer without any
+     * char decoding. The line delimiter itself is discarded. If no byte is
+     * available because the end of the stream has been reached, the value
+     * {@code -1} is returned.
+     * <p>
+     * This method treats a lone LF as a valid line delimiters in addition
+     * to CR-LF required by the HTTP specification.
+     *
+     * @param      bytebuffer   the byte buffer to append the line to.
+     * @return     number of bytes appended
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int readLine(final ByteArrayBuffer bytebuffer) throws IOException {
+        final int pos = locateLine();
+        if (pos == -1) {
+            return -1;
+        }
+        if (pos == LINE_BUFFERED) {
+            final int len = lineLength(this.linebuffer.buffer(), 0, this.linebuffer.length());
+            bytebuffer.append(this.linebuffer.buffer(), 0, len);
+            this.linebuffer.clear();
+            return len;
+        }
+        final int off = this.bufferpos;
+        this.bufferpos = pos + 1;
+        final int len = lineLength(this.buffer, off, pos + 1);
+        bytebuffer.append(this.buffer, off, len);
+        return len;
+    }
+
+    /**
+     * Locates the end of the next line. If the entire line is present in the
+     * read buffer the position of its LF is returned. Otherwise the line is
+     * accumulated in the line buffer and {@link #LINE_BUFFERED} is returned.
+     *
+     * @return LF position, {@link #LINE_BUFFERED} or {@code -1} at the end of
+     *   the stream.
+     */
+    private int locateLine() throws IOException {
+        if (this.buffer == null) {
+            unpark();
+        }
         final int maxLineLen = this.constraints.getMaxLineLength();
         int noRead = 0;
         boolean retry = true;
         while (retry) {
             // attempt to find end of line (LF)
-            int pos = -1;
-            for (int i = this.bufferpos; i < this.bufferlen; i++) {
-                if (this.buffer[i] == HTTP.LF) {
-                    pos = i;
-                    break;
-                }
-            }
+            final int pos = ByteSearch.indexOf(this.bufferView, this.bufferpos, this.bufferlen, (byte) HTTP.LF);
 
             if (maxLineLen > 0) {
                 final int currentLen = this.linebuffer.length()
@@ -226,7 +414,7 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
                 // end of line found.
                 if (this.linebuffer.isEmpty()) {
                     // the entire line is preset in the read buffer
-                    return lineFromReadBuffer(charbuffer, pos);
+                    return pos;
                 }
                 retry = false;
                 final int len = pos + 1 - this.bufferpos;
@@ -249,7 +437,24 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
             // indicate the end of stream
             return -1;
         }
-        return lineFromLineBuffer(charbuffer);
+        return LINE_BUFFERED;
+    }
+
+    /**
+     * Returns the length of the line in {@code b[off, end)} without the
+     * trailing LF and CR, if present.
+     */
+    private static int lineLength(final byte[] b, final int off, final int end) {
+        int pos = end;
+        // discard LF if found
+        if (pos > off && b[pos - 1] == HTTP.LF) {
+            pos--;
+        }
+        // discard CR if found
+        if (pos > off && b[pos - 1] == HTTP.CR) {
+            pos--;
+        }
+        return pos - off;
     }
 
     /**
@@ -0,0 +1,372 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.message;
+
+/**
+ * Table of the header names commonly seen in HTTP traffic.
+ * <p>
+ * Each well-known name has a numeric id, its index in {@link #NAMES}, and a
+ * shared canonical {@code String} instance. Raw header names can be matched
+ * against the table directly from a byte or char buffer, ignoring case,
+ * which lets parsers avoid creating a new string for the name of most
+ * headers and lets header lookups compare ids instead of strings. As a
+ * consequence the name of a parsed header with a well-known name is the
+ * canonical spelling from this table rather than the spelling used on the
+ * wire, e.g. {@code User-Agent} for {@code user-agent}.
+ * <p>
+ * The table is indexed by a perfect hash: the hash seed is chosen when the
+ * class is initialized so that no two names share a slot, hence a lookup
+ * costs a single hash computation and at most one comparison.
+ *
+ * @since 0.6
+ */
+public final class WellKnownHeaders {
+
+    /** Id returned for names not in the table */
+    public static final int UNKNOWN = -1;
+
+    /** Id returned for headers that have not been resolved against the table */
+    static final int UNRESOLVED = -2;
+
+    public static final int ACCEPT = 0;
+    public static final int ACCEPT_CHARSET = 1;
+    public static final int ACCEPT_ENCODING = 2;
+    public static final int ACCEPT_LANGUAGE = 3;
+    public static final int ACCEPT_RANGES = 4;
+    public static final int ACCESS_CONTROL_REQUEST_HEADERS = 5;
+    public static final int ACCESS_CONTROL_REQUEST_METHOD = 6;
+    public static final int AGE = 7;
+    public static final int ALLOW = 8;
+    public static final int AUTHORIZATION = 9;
+    public static final int CACHE_CONTROL = 10;
+    public static final int CONNECTION = 11;
+    public static final int CONTENT_DISPOSITION = 12;
+    public static final int CONTENT_ENCODING = 13;
+    public static final int CONTENT_LANGUAGE = 14;
+    public static final int CONTENT_LENGTH = 15;
+    public static final int CONTENT_LOCATION = 16;
+    public static final int CONTENT_RANGE = 17;
+    public static final int CONTENT_TYPE = 18;
+    public static final int COOKIE = 19;
+    public static final int DATE = 20;
+    public static final int DNT = 21;
+    public static final int ETAG = 22;
+    public static final int EXPECT = 23;
+    public static final int EXPIRES = 24;
+    public static final int FORWARDED = 25;
+    public static final int FROM = 26;
+    public static final int HOST = 27;
+    public static final int IF_MATCH = 28;
+    public static final int IF_MODIFIED_SINCE = 29;
+    public static final int IF_NONE_MATCH = 30;
+    public static final int IF_RANGE = 31;
+    public static final int IF_UNMODIFIED_SINCE = 32;
+    public static final int KEEP_ALIVE = 33;
+    public static final int LAST_MODIFIED = 34;
+    public static final int LOCATION = 35;
+    public static final int MAX_FORWARDS = 36;
+    public static final int ORIGIN = 37;
+    public static final int PRAGMA = 38;
+    public static final int PROXY_AUTHORIZATION = 39;
+    public static final int PROXY_CONNECTION = 40;
+    public static final int RANGE = 41;
+    public static final int REFERER = 42;
+    public static final int RETRY_AFTER = 43;
+    public static final int SEC_FETCH_DEST = 44;
+    public static final int SEC_FETCH_MODE = 45;
+    public static final int SEC_FETCH_SITE = 46;
+    public static final int SERVER = 47;
+    public static final int SET_COOKIE = 48;
+    public static final int TE = 49;
+    public static final int TRAILER = 50;
+    public static final int TRANSFER_ENCODING = 51;
+    public static final int UPGRADE = 52;
+    public static final int UPGRADE_INSECURE_REQUESTS = 53;
+    public static final int USER_AGENT = 54;
+    public static final int VARY = 55;
+    public static final int VIA = 56;
+    public static final int WARNING = 57;
+    public static final int WWW_AUTHENTICATE = 58;
+    public static final int X_FORWARDED_FOR = 59;
+    public static final int X_FORWARDED_HOST = 60;
+    public static final int X_FORWARDED_PROTO = 61;
+    public static final int X_REQUESTED_WITH = 62;
+
+    private static final String[] NAMES = {
+            "Accept",
+            "Accept-Charset",
+            "Accept-Encoding",
+            "Accept-Language",
+            "Accept-Ranges",
+            "Access-Control-Request-Headers",
+            "Access-Control-Request-Method",
+            "Age",
+            "Allow",
+            "Authorization",
+            "Cache-Control",
+            HTTP.CONN_DIRECTIVE,
+            "Content-Disposition",
+            HTTP.CONTENT_ENCODING,
+            "Content-Language",
+            HTTP.CONTENT_LEN,
+            "Content-Location",
+            "Content-Range",
+            HTTP.CONTENT_TYPE,
+            "Cookie",
+            HTTP.DATE_HEADER,
+            "DNT",
+            "ETag",
+            HTTP.EXPECT_DIRECTIVE,
+            "Expires",
+            "Forwarded",
+            "From",
+            HTTP.TARGET_HOST,
+            "If-Match",
+            "If-Modified-Since",
+            "If-None-Match",
+            "If-Range",
+            "If-Unmodified-Since",
+            "Keep-Alive",
+            "Last-Modified",
+            "Location",
+            "Max-Forwards",
+            "Origin",
+            "Pragma",
+            "Proxy-Authorization",
+            "Proxy-Connection",
+            "Range",
+            "Referer",
+            "Retry-After",
+            "Sec-Fetch-Dest",
+            "Sec-Fetch-Mode",
+            "Sec-Fetch-Site",
+            HTTP.SERVER_HEADER,
+            "Set-Cookie",
+            "TE",
+            "Trailer",
+            HTTP.TRANSFER_ENCODING,
+            "Upgrade",
+            "Upgrade-Insecure-Requests",
+            HTTP.USER_AGENT,
+            "Vary",
+            "Via",
+            "Warning",
+            "WWW-Authenticate",
+            "X-Forwarded-For",
+            "X-Forwarded-Host",
+            "X-Forwarded-Proto",
+            "X-Requested-With"
+    };
+
+    /** Lower case names, matched against case folded input */
+    private static final byte[][] LOWER;
+
+    private static final int SEED;
+    private static final int MASK;
+    /** Hash slot to id plus one, {@code 0} if empty */
+    private static final byte[] SLOTS;
+
+    static {
+        LOWER = new byte[NAMES.length][];
+        for (int id = 0; id < NAMES.length; id++) {
+            final String name = NAMES[id];
+            final byte[] b = new byte[name.length()];
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (byte) fold(name.charAt(i));
+            }
+            LOWER[id] = b;
+        }
+        int size = 256;
+        int seed = 0;
+        byte[] slots = null;
+        while (slots == null) {
+            seed++;
+            if (seed > 10000) {
+                size <<= 1;
+                seed = 1;
+            }
+            slots = place(seed, size - 1);
+        }
+        SEED = seed;
+        MASK = size - 1;
+        SLOTS = slots;
+    }
+
+    private WellKnownHeaders() {
+        // Do not allow utility class to be instantiated.
+    }
+
+    private static byte[] place(final int seed, final int mask) {
+        final byte[] slots = new byte[mask + 1];
+        for (int id = 0; id < LOWER.length; id++) {
+            final byte[] b = LOWER[id];
+            int h = seed;
+            for (final byte ch : b) {
+                h = step(h, ch);
+            }
+            final int slot = slot(h, b.length, mask);
+            if (slots[slot] != 0) {
+                return null;
+            }
+            slots[slot] = (byte) (id + 1);
+        }
+        return slots;
+    }
+
+    private static int fold(final int ch) {
+        return ch >= 'A' && ch <= 'Z' ? ch + ('a' - 'A') : ch;
+    }
+
+    private static int step(final int h, final int ch) {
+        return (h ^ ch) * 0x01000193;
+    }
+
+    private static int slot(final int h, final int len, final int mask) {
+        final int x = h + len;
+        return (x ^ (x >>> 15)) & mask;
+    }
+
+    private static int match(final int h, final int len) {
+        final int id = SLOTS[slot(h, len, MASK)] - 1;
+        return id >= 0 && LOWER[id].length == len ? id : UNKNOWN;
+    }
+
+    /**
+     * Looks up the header name in {@code b[off, off + len)} ignoring case.
+     *
+     * @return the id of the name or {@link #UNKNOWN}
+     */
+    public static int lookup(final byte[] b, final int off, final int len) {
+        int h = SEED;
+        for (int i = off; i < off + len; i++) {
+            h = step(h, fold(b[i] & 0xff));
+        }
+        final int id = match(h, len);
+        if (id != UNKNOWN) {
+            final byte[] lower = LOWER[id];
+            for (int i = 0; i < len; i++) {
+                if (fold(b[off + i] & 0xff) != lower[i]) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the header name in {@code b[off, off + len)} ignoring case.
+     *
+     * @return the id of the name or {@link #UNKNOWN}
+     */
+    public static int lookup(final char[] b, final int off, final int len) {
+        int h = SEED;
+        for (int i = off; i < off + len; i++) {
+            final char ch = b[i];
+            if (ch > 0x7f) {
+                return UNKNOWN;
+            }
+            h = step(h, fold(ch));
+        }
+        final int id = match(h, len);
+        if (id != UNKNOWN) {
+            final byte[] lower = LOWER[id];
+            for (int i = 0; i < len; i++) {
+                if (fold(b[off + i]) != lower[i]) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the header name ignoring case.
+     *
+     * @return the id of the name or {@link #UNKNOWN}
+     */
+    public static int lookup(final String name) {
+        if (name == null) {
+            return UNKNOWN;
+        }
+        final int len = name.length();
+        int h = SEED;
+        for (int i = 0; i < len; i++) {
+            final char ch = name.charAt(i);
+            if (ch > 0x7f) {
+                return UNKNOWN;
+            }
+            h = step(h, fold(ch));
+        }
+        final int id = match(h, len);
+        if (id != UNKNOWN) {
+            final byte[] lower = LOWER[id];
+            for (int i = 0; i < len; i++) {
+                if (fold(name.charAt(i)) != lower[i]) {
+                    return UNKNOWN;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the canonical name for the given id.
+     *
+     * @param id a header id
+     * @return the shared name instance
+     */
+    public static String name(final int id) {
+        return NAMES[id];
+    }
+
+    /**
+     * Returns the number of names in the table. Ids range from {@code 0}
+     * to {@code size() - 1}.
+     */
+    public static int size() {
+        return NAMES.length;
+    }
+
+    /**
+     * Returns the id of the name of the given header, {@link #UNRESOLVED}
+     * for headers that do not carry one.
+     */
+    static int idOf(final Header header) {
+        if (header instanceof ByteSliceHeader) {
+            return ((ByteSliceHeader) header).getNameId();
+        }
+        if (header instanceof BufferedHeader) {
+            return ((BufferedHeader) header).getNameId();
+        }
+        if (header instanceof RecyclableHeader) {
+            return ((RecyclableHeader) header).getNameId();
+        }
+        return UNRESOLVED;
+    }
+
+}
@@ -29,6 +29,7 @@ package com.daxzel.shttpparser.util;
 
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * A resizable byte array.
@@ -41,6 +42,8 @@ public final class ByteArrayBuffer implements Serializable {
 
     private byte[] buffer;
     private int len;
+    /** Search view of the buffer, created on first use */
+    private transient ByteBuffer bufferView;
 
     /**
      * Creates an instance of {@link ByteArrayBuffer} with the given initial
@@ -53,10 +56,25 @@ public final class ByteArrayBuffer implements Serializable {
         this.buffer = new byte[capacity];
     }
 
+    /**
+     * Creates an empty instance of {@link ByteArrayBuffer} using the given
+     * array as its initial storage, for instance an array obtained from a
+     * buffer pool.
+     *
+     * @param buffer the initial storage
+     *
+     * @since 0.6
+     */
+    public ByteArrayBuffer(final byte[] buffer) {
+        super();
+        this.buffer = buffer;
+    }
+
     private void expand(final int newlen) {
         final byte newbuffer[] = new byte[Math.max(this.buffer.length << 1, newlen)];
         System.arraycopy(this.buffer, 0, newbuffer, 0, this.len);
         this.buffer = newbuffer;
+        this.bufferView = null;
     }
 
     /**
@@ -318,12 +336,13 @@ public final class ByteArrayBuffer implements Serializable {
         if (beginIndex > endIndex) {
             return -1;
         }
-        for (int i = beginIndex; i < endIndex; i++) {
-            if (this.buffer[i] == b) {
-                return i;
-            }
+        if (endIndex - beginIndex < ByteSearch.SCALAR_THRESHOLD) {
+            return ByteSearch.indexOf(this.buffer, beginIndex, endIndex, b);
+        }
+        if (this.bufferView == null) {
+            this.bufferView = ByteSearch.view(this.buffer);
         }
-        return -1;
+        return ByteSearch.indexOf(this.bufferView, beginIndex, endIndex, b);
     }
 
     /**
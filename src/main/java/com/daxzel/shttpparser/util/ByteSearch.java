@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Word-at-a-time byte search. Eight bytes are loaded at once through a
+ * {@link ByteBuffer} long view and tested for the wanted value with the
+ * classic "has zero byte" bit trick, so the search touches each word once
+ * instead of branching on every byte. Heap buffer long views are compiled
+ * into plain unaligned loads on modern JVMs.
+ * <p>
+ * Short ranges are searched byte by byte as the setup cost of the word
+ * search does not pay off for them.
+ *
+ * @since 0.6
+ */
+public final class ByteSearch {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * Ranges shorter than this are scanned byte by byte.
+     */
+    static final int SCALAR_THRESHOLD = 16;
+
+    private ByteSearch() {
+    }
+
+    /**
+     * Returns a little endian view of the given array suitable for
+     * {@link #indexOf(ByteBuffer, int, int, byte)}. Callers that search the same
+     * array repeatedly should keep the view around.
+     *
+     * @param b the array to view.
+     * @return the view.
+     */
+    public static ByteBuffer view(final byte[] b) {
+        return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code value} in the
+     * array within {@code [from, to)} or {@code -1} if the value does not occur.
+     *
+     * @param b     the array to search.
+     * @param from  the index to start the search from.
+     * @param to    the index to finish the search at.
+     * @param value the byte to search for.
+     * @return index of the first occurrence or {@code -1}.
+     */
+    public static int indexOf(final byte[] b, final int from, final int to, final byte value) {
+        if (to - from < SCALAR_THRESHOLD) {
+            return scalarIndexOf(b, from, to, value);
+        }
+        return indexOf(view(b), from, to, value);
+    }
+
+    /**
+     * Returns the absolute index of the first occurrence of {@code value} in
+     * the buffer within {@code [from, to)} or {@code -1} if the value does not
+     * occur. Neither the position nor the limit of the buffer is used or
+     * modified. Buffers of either byte order are supported, although little
+     * endian ones avoid a byte swap per word.
+     *
+     * @param buf   the buffer to search.
+     * @param from  the index to start the search from.
+     * @param to    the index to finish the search at.
+     * @param value the byte to search for.
+     * @return index of the first occurrence or {@code -1}.
+     */
+    public static int indexOf(final ByteBuffer buf, final int from, final int to, final byte value) {
+        int i = from;
+        if (to - from >= SCALAR_THRESHOLD) {
+            final boolean bigEndian = buf.order() == ByteOrder.BIG_ENDIAN;
+            final long pattern = ONES * (value & 0xff);
+            final int last = to - 8;
+            for (; i <= last; i += 8) {
+                long word = buf.getLong(i);
+                if (bigEndian) {
+                    word = Long.reverseBytes(word);
+                }
+                // bytes equal to value become zero bytes
+                final long x = word ^ pattern;
+                // the lowest set high bit marks the first zero byte; borrows
+                // may only produce false positives above a real zero byte
+                final long found = (x - ONES) & ~x & HIGHS;
+                if (found != 0) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (buf.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int scalarIndexOf(final byte[] b, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Static helpers for writing to NIO channels.
+ *
+ * @since 0.6
+ */
+public final class ChannelUtils {
+
+    private ChannelUtils() {
+        // Do not allow utility class to be instantiated.
+    }
+
+    /**
+     * Writes all remaining bytes of the source buffer to the channel. The
+     * channel is expected to be in blocking mode.
+     *
+     * @param channel the channel to write to.
+     * @param src the bytes to write.
+     * @return the number of bytes written.
+     * @throws IOException in case of an I/O error
+     */
+    public static int writeFully(
+            final WritableByteChannel channel, final ByteBuffer src) throws IOException {
+        final int len = src.remaining();
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+        return len;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package com.daxzel.shttpparser.util;
+
+/**
+ * A mutable {@link CharSequence} view of a range of a char array. Parsers
+ * hand out slices of their line buffers through this class instead of
+ * creating strings; the same instance is repointed at every protocol
+ * element, so a slice is only valid until the callback that received it
+ * returns. Use {@link #toString()} to keep the content.
+ *
+ * @since 0.6
+ *
+ * NotThreadSafe
+ */
+public final class CharSlice implements CharSequence {
+
+    private char[] buffer;
+    private int offset;
+    private int length;
+
+    public CharSlice() {
+        super();
+        this.buffer = new char[0];
+    }
+
+    /**
+     * Points this slice at {@code buffer[offset, offset + length)}.
+     */
+    public void set(final char[] buffer, final int offset, final int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    public char charAt(final int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + this.length);
+        }
+        return this.buffer[this.offset + index];
+    }
+
+    /**
+     * Returns a copy of the given range of this slice. The copy remains
+     * valid after this slice has been repointed.
+     */
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + this.length);
+        }
+        return new String(this.buffer, this.offset + start, end - start);
+    }
+
+    /**
+     * Tests if this slice holds the same chars as the given string.
+     */
+    public boolean contentEquals(final String s) {
+        if (s.length() != this.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            if (this.buffer[this.offset + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests if this slice holds the same chars as the given string ignoring
+     * case.
+     */
+    public boolean equalsIgnoreCase(final String s) {
+        if (s.length() != this.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            final char ch1 = this.buffer[this.offset + i];
+            final char ch2 = s.charAt(i);
+            if (ch1 != ch2
+                    && Character.toUpperCase(ch1) != Character.toUpperCase(ch2)
+                    && Character.toLowerCase(ch1) != Character.toLowerCase(ch2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests if this slice starts with the given string.
+     */
+    public boolean startsWith(final String s) {
+        if (s.length() > this.length) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (this.buffer[this.offset + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.buffer, this.offset, this.length);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.BasicLineParser;
+import com.daxzel.shttpparser.message.BasicRequestLine;
+import com.daxzel.shttpparser.message.HttpVersion;
+import com.daxzel.shttpparser.message.ParseException;
+import com.daxzel.shttpparser.message.ParserCursor;
+import com.daxzel.shttpparser.message.RequestLine;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Locale;
+
+public class BasicLineParserTestCase {
+
+    private static ProtocolVersion parse(
+            final BasicLineParser parser, final String s, final int expectedPos) throws ParseException {
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        final ParserCursor cursor = new ParserCursor(0, s.length());
+        final ProtocolVersion version = parser.parseProtocolVersion(buffer, cursor);
+        Assert.assertEquals(s, expectedPos, cursor.getPos());
+        return version;
+    }
+
+    @Test
+    public void testCommonVersionsAreSingletons() throws Exception {
+        Assert.assertSame(HttpVersion.HTTP_1_0, parse(BasicLineParser.INSTANCE, "HTTP/1.0", 8));
+        Assert.assertSame(HttpVersion.HTTP_1_1, parse(BasicLineParser.INSTANCE, "HTTP/1.1", 8));
+        Assert.assertSame(HttpVersion.HTTP_2_0, parse(BasicLineParser.INSTANCE, "HTTP/2.0", 8));
+        Assert.assertSame(HttpVersion.HTTP_1_1, parse(BasicLineParser.INSTANCE, "  HTTP/1.1", 10));
+        Assert.assertSame(HttpVersion.HTTP_2_0,
+                BasicLineParser.parseRequestLine("GET / HTTP/2.0", null).getProtocolVersion());
+        Assert.assertSame(HttpVersion.HTTP_2_0, HttpVersion.HTTP_1_1.forVersion(2, 0));
+        Assert.assertEquals(2, HttpVersion.HTTP_2_0.getMajor());
+        Assert.assertEquals(0, HttpVersion.HTTP_2_0.getMinor());
+    }
+
+    @Test
+    public void testTrailingChars() throws Exception {
+        // a blank ends the version, the cursor stops in front of it
+        Assert.assertSame(HttpVersion.HTTP_1_1, parse(BasicLineParser.INSTANCE, "HTTP/1.1 200 OK", 8));
+        Assert.assertSame(HttpVersion.HTTP_1_1, parse(BasicLineParser.INSTANCE, "HTTP/1.1 ", 8));
+        // other whitespace takes the general path
+        Assert.assertSame(HttpVersion.HTTP_1_1, parse(BasicLineParser.INSTANCE, "HTTP/1.1\t", 9));
+        for (final String s : new String[] {"HTTP/1.1x", "HTTP/1.1/", "HTTP/1.10x", "HTTP/2.0.0"}) {
+            try {
+                parse(BasicLineParser.INSTANCE, s, -1);
+                Assert.fail("ParseException expected for " + s);
+            } catch (final ParseException expected) {
+            }
+        }
+        Assert.assertEquals(new HttpVersion(1, 10), parse(BasicLineParser.INSTANCE, "HTTP/1.10", 9));
+    }
+
+    @Test
+    public void testUncommonVersions() throws Exception {
+        Assert.assertEquals(new HttpVersion(1, 2), parse(BasicLineParser.INSTANCE, "HTTP/1.2", 8));
+        Assert.assertEquals(new HttpVersion(11, 0), parse(BasicLineParser.INSTANCE, "HTTP/11.0", 9));
+        Assert.assertEquals(new HttpVersion(2, 1), parse(BasicLineParser.INSTANCE, "HTTP/2.1", 8));
+        Assert.assertSame(HttpVersion.HTTP_0_9, parse(BasicLineParser.INSTANCE, "HTTP/0.9", 8));
+        try {
+            parse(BasicLineParser.INSTANCE, "http/1.1", -1);
+            Assert.fail("ParseException expected");
+        } catch (final ParseException expected) {
+        }
+        // a parser for another protocol never takes the HTTP fast path
+        final BasicLineParser other = new BasicLineParser(new ProtocolVersion("HTTQ", 1, 1));
+        final ProtocolVersion version = parse(other, "HTTQ/1.1", 8);
+        Assert.assertEquals("HTTQ", version.getProtocol());
+        try {
+            parse(other, "HTTP/1.1", -1);
+            Assert.fail("ParseException expected");
+        } catch (final ParseException expected) {
+        }
+    }
+
+    @Test
+    public void testCreateProtocolVersionHook() throws Exception {
+        final int[] calls = new int[1];
+        final ProtocolVersion custom = new ProtocolVersion("HTTP", 1, 1);
+        final BasicLineParser parser = new BasicLineParser() {
+
+            @Override
+            protected ProtocolVersion createProtocolVersion(final int major, final int minor) {
+                calls[0]++;
+                return major == 1 && minor == 1 ? custom : super.createProtocolVersion(major, minor);
+            }
+
+        };
+        Assert.assertSame(custom, parse(parser, "HTTP/1.1", 8));
+        Assert.assertEquals(1, calls[0]);
+        Assert.assertSame(HttpVersion.HTTP_2_0, parse(parser, "HTTP/2.0", 8));
+        Assert.assertEquals(2, calls[0]);
+        Assert.assertEquals(new HttpVersion(1, 2), parse(parser, "HTTP/1.2", 8));
+        Assert.assertEquals(3, calls[0]);
+    }
+
+    private static class UpperCaseUriParser extends BasicLineParser {
+
+        @Override
+        protected RequestLine createRequestLine(
+                final String method, final String uri, final ProtocolVersion ver) {
+            return new BasicRequestLine(method, uri.toUpperCase(Locale.ROOT), ver);
+        }
+
+    }
+
+    @Test
+    public void testCreateRequestLineHook() throws Exception {
+        final RequestLine line = BasicLineParser.parseRequestLine(
+                "GET /a?b=c HTTP/1.1", new UpperCaseUriParser());
+        Assert.assertEquals("/A?B=C", line.getUri());
+        Assert.assertEquals("/A", ((BasicRequestLine) line).getRequestTarget().getPath());
+        Assert.assertSame(HttpVersion.HTTP_1_1, line.getProtocolVersion());
+
+        // the override is inherited by further subclasses
+        final BasicLineParser nested = new UpperCaseUriParser() {
+        };
+        Assert.assertEquals("/B", BasicLineParser.parseRequestLine("GET /b HTTP/1.1", nested).getUri());
+        Assert.assertEquals("/a", BasicLineParser.parseRequestLine("GET /a HTTP/1.1", null).getUri());
+    }
+
+}
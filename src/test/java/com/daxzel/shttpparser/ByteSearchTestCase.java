@@ -0,0 +1,115 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.ByteSearch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class ByteSearchTestCase {
+
+    private static final byte LF = '\n';
+
+    private static int naiveIndexOf(final byte[] b, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertSearch(final byte[] b, final int from, final int to) {
+        final int expected = naiveIndexOf(b, from, to, LF);
+        Assert.assertEquals(expected, ByteSearch.indexOf(b, from, to, LF));
+        Assert.assertEquals(expected, ByteSearch.indexOf(ByteSearch.view(b), from, to, LF));
+        Assert.assertEquals(expected, ByteSearch.indexOf(
+                ByteBuffer.wrap(b).order(ByteOrder.BIG_ENDIAN), from, to, LF));
+    }
+
+    @Test
+    public void testMatchAtEveryPosition() {
+        for (final byte fill : new byte[] {'a', 0, (byte) 0x8a, (byte) 0xff, 0x0b, 0x09}) {
+            for (int len = 0; len <= 40; len++) {
+                final byte[] b = new byte[len];
+                Arrays.fill(b, fill);
+                for (int from = 0; from <= Math.min(len, 9); from++) {
+                    for (int to = Math.max(from, len - 9); to <= len; to++) {
+                        assertSearch(b, from, to);
+                        for (int pos = from; pos < to; pos++) {
+                            b[pos] = LF;
+                            assertSearch(b, from, to);
+                            b[pos] = fill;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchNextToHighBytes() {
+        final byte[] b = new byte[32];
+        Arrays.fill(b, (byte) 0xff);
+        for (int pos = 0; pos < b.length; pos++) {
+            b[pos] = LF;
+            if (pos > 0) {
+                b[pos - 1] = (byte) 0x8a;
+            }
+            Assert.assertEquals(pos, ByteSearch.indexOf(b, 0, b.length, LF));
+            // 0x8a ^ 0x0a has only the high bit set and must not match
+            Assert.assertEquals(-1, ByteSearch.indexOf(b, 0, pos, LF));
+            b[pos] = (byte) 0xff;
+            if (pos > 0) {
+                b[pos - 1] = (byte) 0xff;
+            }
+        }
+        Arrays.fill(b, (byte) 0x8a);
+        Assert.assertEquals(-1, ByteSearch.indexOf(b, 0, b.length, LF));
+        b[31] = LF;
+        Assert.assertEquals(31, ByteSearch.indexOf(b, 0, b.length, LF));
+        Assert.assertEquals(31, ByteSearch.indexOf(b, 7, b.length, LF));
+    }
+
+    @Test
+    public void testSlicedBuffer() {
+        final byte[] b = new byte[64];
+        Arrays.fill(b, (byte) 'x');
+        b[5] = LF;
+        b[40] = LF;
+        final ByteBuffer src = ByteBuffer.wrap(b);
+        src.position(11);
+        final ByteBuffer slice = src.slice().order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(29, ByteSearch.indexOf(slice, 0, slice.limit(), LF));
+        Assert.assertEquals(29, ByteSearch.indexOf(slice, 3, 30, LF));
+        Assert.assertEquals(-1, ByteSearch.indexOf(slice, 3, 29, LF));
+        Assert.assertEquals(-1, ByteSearch.indexOf(slice, 30, slice.limit(), LF));
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put(b);
+        direct.position(3);
+        final ByteBuffer directSlice = direct.slice();
+        Assert.assertEquals(2, ByteSearch.indexOf(directSlice, 0, directSlice.limit(), LF));
+        Assert.assertEquals(37, ByteSearch.indexOf(directSlice, 3, directSlice.limit(), LF));
+    }
+
+    @Test
+    public void testByteArrayBufferAfterExpand() {
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(32);
+        final byte[] b = new byte[32];
+        Arrays.fill(b, (byte) 'x');
+        buffer.append(b, 0, b.length);
+        Assert.assertEquals(-1, buffer.indexOf(LF));
+        // the cached search view must follow the new array
+        b[20] = LF;
+        buffer.append(b, 0, b.length);
+        Assert.assertEquals(52, buffer.indexOf(LF));
+        Assert.assertEquals(52, buffer.indexOf(LF, 1, buffer.length()));
+        buffer.buffer()[10] = LF;
+        Assert.assertEquals(10, buffer.indexOf(LF));
+    }
+
+}
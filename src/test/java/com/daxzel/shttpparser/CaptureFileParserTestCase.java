@@ -0,0 +1,78 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.HttpEntityEnclosingRequest;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CaptureFileParserTestCase {
+
+    private static final String GET = "GET /status HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n";
+
+    private static final String POST = "POST /upload HTTP/1.1\r\n" +
+            "Content-Length: 5\r\n" +
+            "\r\n" +
+            "hello";
+
+    private static final String CHUNKED = "PUT /chunked HTTP/1.1\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "\r\n" +
+            "3\r\nabc\r\n2\r\nde\r\n0\r\n\r\n";
+
+    @Test
+    public void testInvalidRegionSize() throws Exception {
+        final File file = File.createTempFile("capture", ".http");
+        try {
+            FileUtils.writeByteArrayToFile(file, GET.getBytes(Consts.ASCII));
+            for (final int regionSize : new int[] {0, -1}) {
+                try {
+                    new CaptureFileParser(file, null, regionSize);
+                    Assert.fail("IllegalArgumentException should have been thrown");
+                } catch (final IllegalArgumentException expected) {
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOffsetsAcrossRegions() throws Exception {
+        final String capture = GET + POST + CHUNKED + GET + POST;
+        final File file = File.createTempFile("capture", ".http");
+        try {
+            FileUtils.writeByteArrayToFile(file, capture.getBytes(Consts.ASCII));
+            // small regions force requests to be re-parsed from a new mapping
+            final CaptureFileParser parser = new CaptureFileParser(file, null, 100);
+            final List<CaptureFileParser.CapturedRequest> requests;
+            try {
+                requests = parser.stream().collect(Collectors.toList());
+            } finally {
+                parser.close();
+            }
+            Assert.assertEquals(5, requests.size());
+            long offset = 0;
+            for (final CaptureFileParser.CapturedRequest request : requests) {
+                Assert.assertEquals(offset, request.getOffset());
+                offset += request.getLength();
+            }
+            Assert.assertEquals(capture.length(), offset);
+            Assert.assertEquals("/chunked", requests.get(2).getRequest().getRequestLine().getUri());
+            Assert.assertEquals("abcde", IOUtils.toString(
+                    ((HttpEntityEnclosingRequest) requests.get(2).getRequest()).getEntity().getContent(), "US-ASCII"));
+            Assert.assertEquals("hello", IOUtils.toString(
+                    ((HttpEntityEnclosingRequest) requests.get(4).getRequest()).getEntity().getContent(), "US-ASCII"));
+        } finally {
+            file.delete();
+        }
+    }
+
+}
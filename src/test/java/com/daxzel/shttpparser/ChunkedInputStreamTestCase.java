@@ -0,0 +1,97 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.*;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ChunkedInputStreamTestCase {
+
+    private static final String CHUNKED_REQUEST = "POST /upload HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "\r\n" +
+            "10;name=value\r\n" +
+            "0123456789abcdef\r\n" +
+            "5 \r\n" +
+            "12345\r\n" +
+            "0\r\n" +
+            "Footer1: abcde\r\n" +
+            "Footer2: fghij\r\n" +
+            "\r\n";
+
+    private static final String CHUNKED_BODY = "0123456789abcdef12345";
+
+    @Test
+    public void testChunkedEntity() throws IOException, HttpException {
+        final byte[] data = (CHUNKED_REQUEST + "GET /next HTTP/1.1\r\n\r\n").getBytes(Consts.ASCII);
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(data);
+        final HttpRequest request = requestParser.parse();
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        Assert.assertTrue(entity.isChunked());
+        Assert.assertEquals(-1, entity.getContentLength());
+        final InputStream content = entity.getContent();
+        Assert.assertEquals(CHUNKED_BODY, IOUtils.toString(content));
+        final Header[] footers = ((ChunkedInputStream) content).getFooters();
+        Assert.assertEquals(2, footers.length);
+        Assert.assertEquals("Footer2", footers[1].getName());
+        Assert.assertEquals("fghij", footers[1].getValue());
+        Assert.assertEquals("/next", requestParser.parse().getRequestLine().getUri());
+    }
+
+    @Test
+    public void testSkipChunkedEntity() throws IOException, HttpException {
+        final byte[] data = (CHUNKED_REQUEST + "GET /next HTTP/1.1\r\n\r\n").getBytes(Consts.ASCII);
+        final SessionInputBufferImpl sessionInputBuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 16);
+        sessionInputBuffer.bind(new ByteArrayInputStream(data));
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(sessionInputBuffer);
+        final InputStream content = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity().getContent();
+        Assert.assertEquals(12, content.skip(12));
+        Assert.assertEquals('c', content.read());
+        content.close();
+        Assert.assertEquals(2, ((ChunkedInputStream) content).getFooters().length);
+        Assert.assertEquals("/next", requestParser.parse().getRequestLine().getUri());
+    }
+
+    @Test(expected = MalformedChunkCodingException.class)
+    public void testMalformedChunkSize() throws IOException {
+        final InputStream in = new ChunkedInputStream(
+                new ByteBufferSessionInputBuffer("0x5\r\n12345\r\n0\r\n\r\n".getBytes(Consts.ASCII)));
+        in.read();
+    }
+
+    @Test(expected = TruncatedChunkException.class)
+    public void testTruncatedChunk() throws IOException {
+        final InputStream in = new ChunkedInputStream(
+                new ByteBufferSessionInputBuffer("a\r\n12345".getBytes(Consts.ASCII)));
+        IOUtils.toString(in);
+    }
+
+    @Test
+    public void testIncrementalChunked() throws IOException, HttpException {
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser();
+        final byte[] data = CHUNKED_REQUEST.getBytes(Consts.ASCII);
+        final ByteBuffer src = ByteBuffer.allocate(3);
+        IncrementalHttpRequestParser.Result result = null;
+        for (int i = 0; i < data.length; i += src.capacity()) {
+            src.clear();
+            src.put(data, i, Math.min(src.capacity(), data.length - i));
+            src.flip();
+            while (src.hasRemaining()) {
+                result = parser.feed(src);
+            }
+        }
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, result);
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) parser.getRequest()).getEntity();
+        Assert.assertTrue(entity.isChunked());
+        Assert.assertEquals(CHUNKED_BODY, IOUtils.toString(entity.getContent()));
+        Assert.assertEquals("abcde", parser.getTrailers()[0].getValue());
+    }
+
+}
@@ -1,18 +1,52 @@
 package com.daxzel.shttpparser;
 
+import com.daxzel.shttpparser.io.ByteArrayPool;
 import com.daxzel.shttpparser.message.*;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * Created by Tsarevskiy
  */
 public class HttpParserTestCase {
 
+    private static final String TEST_HTTP_REQUEST = "POST /moscow/ HTTP/1.1\n" +
+            "Host: www.chin-news.com:8000\n" +
+            "Content-Length: 130\n" +
+            "x-hub-signature: c1581f33c90deccac4ec125051b14c97ff7989c9\n" +
+            "content-type: application/json\n" +
+            "accept-encoding: gzip, deflate\n" +
+            "user-agent: Python-httplib2/0.8 (gzip)\n" +
+            " \n" +
+            "[{\"changed_aspect\": \"media\", \"object\": \"tag\", \"object_id\": \"moscow\"," +
+            " \"time\": 1450899676, \"subscription_id\": 21359349, \"data\": {}}]";
+
+    private static final String TEST_HTTP_BODY = "[{\"changed_aspect\": \"media\", \"object\": \"tag\", \"object_id\": \"moscow\", \"time\": 1450899676, \"subscription_id\": 21359349, \"data\": {}}]";
+
     @Test
     public void main() throws IOException, HttpException {
         String testHttpRequest = "POST /moscow/ HTTP/1.1\n" +
@@ -34,4 +68,622 @@ public class HttpParserTestCase {
         Assert.assertEquals(result,"[{\"changed_aspect\": \"media\", \"object\": \"tag\", \"object_id\": \"moscow\", \"time\": 1450899676, \"subscription_id\": 21359349, \"data\": {}}]");
         System.out.println(result);
     }
+
+    @Test
+    public void testChannelSessionInputBuffer() throws IOException, HttpException {
+        ChannelSessionInputBuffer sessionInputBuffer = new ChannelSessionInputBuffer(new HttpTransportMetricsImpl(), 64, true);
+        sessionInputBuffer.bind(Channels.newChannel(new ByteArrayInputStream(TEST_HTTP_REQUEST.getBytes(Consts.ASCII))));
+        HttpMessageParser requestParser = new DefaultHttpRequestParser(sessionInputBuffer);
+        HttpMessage message = requestParser.parse();
+        Assert.assertEquals("www.chin-news.com:8000", message.getFirstHeader("Host").getValue());
+        String result = IOUtils.toString(((BasicHttpEntityEnclosingRequest)message).getEntity().getContent());
+        Assert.assertEquals(TEST_HTTP_BODY, result);
+    }
+
+    @Test
+    public void testParseFromByteArray() throws IOException, HttpException {
+        final byte[] data = (TEST_HTTP_REQUEST + "GET /next HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(Consts.ASCII);
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(data);
+        final HttpRequest first = requestParser.parse();
+        final InputStream content = ((HttpEntityEnclosingRequest) first).getEntity().getContent();
+        Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(content));
+        content.close();
+        final HttpRequest second = requestParser.parse();
+        Assert.assertEquals("/next", second.getRequestLine().getUri());
+        Assert.assertEquals("localhost", second.getFirstHeader("Host").getValue());
+    }
+
+    @Test
+    public void testZeroCopyHeaders() throws IOException, HttpException {
+        final String request = "GET /moscow/ HTTP/1.1\r\n" +
+                "Host:  www.chin-news.com:8000 \r\n" +
+                "user-agent: Python-httplib2/0.8\r\n" +
+                "\t (gzip)\r\n" +
+                "Accept: */*\r\n" +
+                "\r\n";
+        final MessageConstraints constraints = MessageConstraints.custom().setZeroCopyHeaders(true).build();
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(
+                ByteBuffer.wrap(request.getBytes(Consts.ASCII)), constraints);
+        final HttpRequest message = requestParser.parse();
+        final Header[] headers = message.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertTrue(headers[0] instanceof ByteSliceHeader);
+        Assert.assertSame(((ByteSliceHeader) headers[0]).getBuffer(), ((ByteSliceHeader) headers[2]).getBuffer());
+        Assert.assertEquals("www.chin-news.com:8000", message.getFirstHeader("host").getValue());
+        Assert.assertEquals("Python-httplib2/0.8 (gzip)", message.getFirstHeader("User-Agent").getValue());
+        Assert.assertEquals("Accept", headers[2].getName());
+        Assert.assertEquals("*/*", headers[2].getValue());
+    }
+
+    @Test
+    public void testRecyclableRequest() throws IOException, HttpException {
+        final String data = "POST /first HTTP/1.1\r\n" +
+                "Content-Length: 5\r\n" +
+                "X-Custom: one\r\n" +
+                "\r\n" +
+                "12345" +
+                "PUT /second HTTP/1.1\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "3\r\nabc\r\n0\r\n\r\n" +
+                "GET /third HTTP/1.0\r\n" +
+                "x-custom: two\r\n" +
+                "\t three\r\n" +
+                "\r\n";
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(data.getBytes(Consts.ASCII));
+        final RecyclableHttpRequest request = new RecyclableHttpRequest();
+
+        requestParser.parse(request);
+        Assert.assertEquals("POST", request.getRequestLine().getMethod());
+        Assert.assertEquals("/first", request.getRequestLine().getUri());
+        Assert.assertEquals("one", request.getFirstHeader("x-custom").getValue());
+        final Header first = request.getAllHeaders()[0];
+        // the entity is skipped by the next parse
+
+        requestParser.parse(request);
+        Assert.assertEquals("/second", request.getRequestLine().getUri());
+        Assert.assertTrue(request.getEntity().isChunked());
+        Assert.assertEquals("abc", IOUtils.toString(request.getEntity().getContent()));
+
+        requestParser.parse(request);
+        Assert.assertEquals("GET", request.getRequestLine().getMethod());
+        Assert.assertEquals(HttpVersion.HTTP_1_0, request.getProtocolVersion());
+        Assert.assertNull(request.getEntity());
+        // header objects are reused
+        Assert.assertSame(first, request.getFirstHeader("X-Custom"));
+        Assert.assertEquals("two three", first.getValue());
+        Assert.assertEquals(1, request.getAllHeaders().length);
+    }
+
+    @Test
+    public void testRecyclableRequestLineParser() throws IOException, HttpException {
+        final ProtocolVersion custom = new ProtocolVersion("HTTP", 1, 1);
+        final BasicLineParser lineParser = new BasicLineParser() {
+
+            @Override
+            protected ProtocolVersion createProtocolVersion(final int major, final int minor) {
+                return major == 1 && minor == 1 ? custom : super.createProtocolVersion(major, minor);
+            }
+
+        };
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(
+                new ByteBufferSessionInputBuffer("GET / HTTP/1.1\r\n\r\n".getBytes(Consts.ASCII)),
+                lineParser, null, MessageConstraints.DEFAULT);
+        final RecyclableHttpRequest request = new RecyclableHttpRequest();
+        requestParser.parse(request);
+        Assert.assertSame(custom, request.getProtocolVersion());
+    }
+
+    @Test
+    public void testHeaderInterest() throws IOException, HttpException {
+        final String request = "POST /moscow/ HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "user-agent: Python-httplib2/0.8\r\n" +
+                "\t (gzip)\r\n" +
+                "Content-Length: 3\r\n" +
+                "X-Request-Id: 42\r\n" +
+                "Accept: */*\r\n" +
+                "\r\n" +
+                "abc";
+        for (final boolean zeroCopy : new boolean[] {false, true}) {
+            final MessageConstraints constraints = MessageConstraints.custom()
+                    .setZeroCopyHeaders(zeroCopy)
+                    .setInterestingHeaders("Host", "x-request-id")
+                    .build();
+            final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(
+                    ByteBuffer.wrap(request.getBytes(Consts.ASCII)), constraints);
+            final HttpRequest message = requestParser.parse();
+            final Header[] headers = message.getAllHeaders();
+            Assert.assertEquals(3, headers.length);
+            Assert.assertEquals("Host", headers[0].getName());
+            Assert.assertEquals("Content-Length", headers[1].getName());
+            Assert.assertEquals("42", headers[2].getValue());
+            Assert.assertEquals("abc", IOUtils.toString(
+                    ((HttpEntityEnclosingRequest) message).getEntity().getContent()));
+        }
+    }
+
+    @Test
+    public void testLineLimitInDroppedHeader() throws IOException, HttpException {
+        final StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Dropped: start\r\n");
+        for (int i = 0; i < 10; i++) {
+            request.append(" 0123456789\r\n");
+        }
+        request.append("\r\n");
+        final byte[] data = request.toString().getBytes(Consts.ASCII);
+        for (final boolean zeroCopy : new boolean[] {false, true}) {
+            final MessageConstraints constraints = MessageConstraints.custom()
+                    .setZeroCopyHeaders(zeroCopy)
+                    .setMaxLineLength(64)
+                    .setInterestingHeaders("Host")
+                    .build();
+            try {
+                DefaultHttpRequestParser.create(ByteBuffer.wrap(data), constraints).parse();
+                Assert.fail("MessageConstraintException should have been thrown");
+            } catch (final MessageConstraintException expected) {
+            }
+            try {
+                DefaultHttpRequestParser.create(ByteBuffer.wrap(data), constraints).parse(new RecyclableHttpRequest());
+                Assert.fail("MessageConstraintException should have been thrown");
+            } catch (final MessageConstraintException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testRegisteredMethods() throws IOException, HttpException {
+        final String request = "PATCH /doc HTTP/1.1\r\n" +
+                "Content-Length: 2\r\n" +
+                "\r\n" +
+                "{}";
+        try {
+            DefaultHttpRequestParser.create(request.getBytes(Consts.ASCII)).parse();
+            Assert.fail("MethodNotSupportedException should have been thrown");
+        } catch (final MethodNotSupportedException expected) {
+        }
+        final HttpRequestFactory factory = DefaultHttpRequestFactory.custom()
+                .registerPatch()
+                .registerWebDav()
+                .build();
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(
+                new ByteBufferSessionInputBuffer(request.getBytes(Consts.ASCII)), null, factory, MessageConstraints.DEFAULT);
+        final HttpRequest message = requestParser.parse();
+        Assert.assertSame(HttpMethods.PATCH, message.getRequestLine().getMethod());
+        Assert.assertEquals("{}", IOUtils.toString(
+                ((HttpEntityEnclosingRequest) message).getEntity().getContent()));
+        Assert.assertTrue(factory.newHttpRequest("propfind", "/") instanceof HttpEntityEnclosingRequest);
+    }
+
+    @Test
+    public void testRequestFactoryTable() throws Exception {
+        final String[] methods = {
+                HttpMethods.GET, HttpMethods.HEAD, HttpMethods.POST, HttpMethods.PUT, HttpMethods.DELETE,
+                HttpMethods.CONNECT, HttpMethods.OPTIONS, HttpMethods.TRACE, HttpMethods.PATCH,
+                HttpMethods.PROPFIND, HttpMethods.PROPPATCH, HttpMethods.MKCOL, HttpMethods.COPY,
+                HttpMethods.MOVE, HttpMethods.LOCK, HttpMethods.UNLOCK
+        };
+        final Set<Integer> slots = new HashSet<Integer>();
+        for (final String method : methods) {
+            Assert.assertTrue(method, slots.add(DefaultHttpRequestFactory.slot(method)));
+            Assert.assertEquals(DefaultHttpRequestFactory.slot(method),
+                    DefaultHttpRequestFactory.slot(method.toLowerCase(Locale.ROOT)));
+        }
+        final HttpRequestFactory factory = DefaultHttpRequestFactory.custom()
+                .registerPatch()
+                .registerWebDav()
+                .register("M-SEARCH", false)
+                .register("_custom", true)
+                .register("VERSION-CONTROL", true)
+                .build();
+        Assert.assertFalse(factory.newHttpRequest("head", "/") instanceof HttpEntityEnclosingRequest);
+        Assert.assertTrue(factory.newHttpRequest("Post", "/") instanceof HttpEntityEnclosingRequest);
+        Assert.assertFalse(factory.newHttpRequest("m-search", "*") instanceof HttpEntityEnclosingRequest);
+        Assert.assertTrue(factory.newHttpRequest("_CUSTOM", "/") instanceof HttpEntityEnclosingRequest);
+        Assert.assertTrue(factory.newHttpRequest("version-control", "/") instanceof HttpEntityEnclosingRequest);
+        for (final String method : new String[] {"HEA", "POSTS", "", "VERSION-CONTROLS", "\u00c9TAT"}) {
+            try {
+                factory.newHttpRequest(method, "/");
+                Assert.fail("MethodNotSupportedException expected for " + method);
+            } catch (final MethodNotSupportedException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testRequestTarget() throws IOException, HttpException {
+        final String request = "GET /a%20b/c?q=caf%C3%A9&tag=x&tag=y+z&flag#frag HTTP/1.1\r\n" +
+                "\r\n" +
+                "GET http://localhost:8080/plain?x=1 HTTP/1.1\r\n" +
+                "\r\n";
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(request.getBytes(Consts.ASCII));
+        final RequestTarget target = requestParser.parse().getRequestTarget();
+        Assert.assertEquals("/a%20b/c", target.getRawPath());
+        Assert.assertEquals("/a b/c", target.getPath());
+        Assert.assertEquals("q=caf%C3%A9&tag=x&tag=y+z&flag", target.getRawQuery());
+        Assert.assertEquals("frag", target.getRawFragment());
+        Assert.assertEquals("caf\u00e9", target.getQueryParameter("q"));
+        Assert.assertEquals(Arrays.asList("x", "y z"), target.getQueryParameters().get("tag"));
+        Assert.assertEquals("", target.getQueryParameter("flag"));
+
+        final RequestTarget absolute = requestParser.parse().getRequestTarget();
+        Assert.assertEquals("/plain", absolute.getPath());
+        Assert.assertSame(absolute.getPath(), absolute.getPath());
+        Assert.assertEquals("1", absolute.getQueryParameter("x"));
+        Assert.assertNull(absolute.getRawFragment());
+    }
+
+    @Test
+    public void testPooledBuffers() throws IOException, HttpException {
+        final ByteArrayPool pool = new ByteArrayPool();
+        for (int i = 0; i < 3; i++) {
+            final SessionInputBufferImpl sessionInputBuffer = new SessionInputBufferImpl(
+                    new HttpTransportMetricsImpl(), 2048, -1, null, null, pool);
+            sessionInputBuffer.bind(new ByteArrayInputStream(TEST_HTTP_REQUEST.getBytes(Consts.ASCII)));
+            final HttpRequest message = new DefaultHttpRequestParser(sessionInputBuffer).parse();
+            final InputStream content = ((HttpEntityEnclosingRequest) message).getEntity().getContent();
+            Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(content));
+            sessionInputBuffer.release();
+        }
+        Assert.assertEquals(2, pool.getMissCount());
+        Assert.assertEquals(4, pool.getHitCount());
+    }
+
+    @Test
+    public void testPoolSharesArraysAcrossThreads() throws Exception {
+        // one shared slot per stripe, so the third array goes to another stripe
+        final ByteArrayPool pool = new ByteArrayPool(1 << 20, 1);
+        final byte[][] released = new byte[3][];
+        final Thread releasing = new Thread(new Runnable() {
+
+            public void run() {
+                for (int i = 0; i < released.length; i++) {
+                    released[i] = pool.acquire(1024);
+                }
+                for (final byte[] b : released) {
+                    pool.release(b);
+                }
+            }
+
+        });
+        releasing.start();
+        releasing.join();
+        Assert.assertEquals(3, pool.getMissCount());
+
+        final byte[][] acquired = new byte[2][];
+        final Thread acquiring = new Thread(new Runnable() {
+
+            public void run() {
+                for (int i = 0; i < acquired.length; i++) {
+                    acquired[i] = pool.acquire(1000);
+                }
+            }
+
+        });
+        acquiring.start();
+        acquiring.join();
+        Assert.assertEquals(2, pool.getHitCount());
+        Assert.assertEquals(3, pool.getMissCount());
+        final Set<byte[]> shared = new HashSet<byte[]>(Arrays.asList(released[1], released[2]));
+        Assert.assertTrue(shared.contains(acquired[0]));
+        Assert.assertTrue(shared.contains(acquired[1]));
+    }
+
+    @Test
+    public void testParkIdleBuffer() throws IOException, HttpException {
+        final ByteArrayPool pool = new ByteArrayPool();
+        final SessionInputBufferImpl sessionInputBuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 512, -1, null, null, pool);
+        final StringBuilder longHeader = new StringBuilder("X-Long: ");
+        for (int i = 0; i < 2048; i++) {
+            longHeader.append('x');
+        }
+        final String request = "GET /first HTTP/1.1\r\n" + longHeader + "\r\n\r\n" +
+                "GET /second HTTP/1.1\r\n\r\n";
+        sessionInputBuffer.bind(new ByteArrayInputStream(request.getBytes(Consts.ASCII)));
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(sessionInputBuffer);
+        Assert.assertEquals("/first", requestParser.parse().getRequestLine().getUri());
+        Assert.assertFalse(sessionInputBuffer.park());
+        Assert.assertEquals("/second", requestParser.parse().getRequestLine().getUri());
+        Assert.assertTrue(sessionInputBuffer.park());
+        Assert.assertTrue(sessionInputBuffer.isParked());
+        Assert.assertEquals(512, sessionInputBuffer.capacity());
+
+        sessionInputBuffer.bind(new ByteArrayInputStream("GET /third HTTP/1.1\r\n\r\n".getBytes(Consts.ASCII)));
+        Assert.assertEquals("/third", requestParser.parse().getRequestLine().getUri());
+        Assert.assertFalse(sessionInputBuffer.isParked());
+        Assert.assertEquals(512, sessionInputBuffer.capacity());
+    }
+
+    @Test
+    public void testTransferEntityToFile() throws IOException, HttpException {
+        final File file = File.createTempFile("entity", ".tmp");
+        file.deleteOnExit();
+        final byte[] data = (TEST_HTTP_REQUEST + "GET /next HTTP/1.1\r\n\r\n").getBytes(Consts.ASCII);
+        final ChannelSessionInputBuffer sessionInputBuffer = new ChannelSessionInputBuffer(
+                new HttpTransportMetricsImpl(), 256, true);
+        sessionInputBuffer.bind(Channels.newChannel(new ByteArrayInputStream(data)));
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(sessionInputBuffer);
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity();
+        final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            Assert.assertEquals(TEST_HTTP_BODY.length(), entity.transferTo(channel));
+        } finally {
+            channel.close();
+        }
+        Assert.assertEquals(TEST_HTTP_BODY, FileUtils.readFileToString(file, "US-ASCII"));
+        Assert.assertEquals("/next", requestParser.parse().getRequestLine().getUri());
+    }
+
+    @Test
+    public void testDefaultEntityTransferTo() throws IOException {
+        final boolean[] closed = new boolean[1];
+        final byte[] content = new byte[10000];
+        Arrays.fill(content, (byte) 'x');
+        final HttpEntity entity = new AbstractHttpEntity() {
+
+            public boolean isRepeatable() {
+                return true;
+            }
+
+            public long getContentLength() {
+                return content.length;
+            }
+
+            public InputStream getContent() {
+                return new ByteArrayInputStream(content) {
+
+                    @Override
+                    public void close() {
+                        closed[0] = true;
+                    }
+
+                };
+            }
+
+            public void writeTo(final OutputStream outstream) throws IOException {
+                outstream.write(content);
+            }
+
+            public boolean isStreaming() {
+                return false;
+            }
+
+        };
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(content.length, entity.transferTo(Channels.newChannel(out)));
+        Assert.assertArrayEquals(content, out.toByteArray());
+        Assert.assertTrue(closed[0]);
+    }
+
+    @Test
+    public void testBufferedEntity() throws IOException, HttpException {
+        final byte[] data = (TEST_HTTP_REQUEST + TEST_HTTP_REQUEST).getBytes(Consts.ASCII);
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(data);
+
+        final BufferedHttpEntity small = new BufferedHttpEntity(
+                ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity());
+        Assert.assertTrue(small.isRepeatable());
+        Assert.assertFalse(small.isSpilled());
+        Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(small.getContent()));
+        Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(small.getContent()));
+
+        final BufferedHttpEntity large = new BufferedHttpEntity(
+                ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity(), 16);
+        Assert.assertTrue(large.isSpilled());
+        Assert.assertEquals(TEST_HTTP_BODY.length(), large.getContentLength());
+        Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(large.getContent()));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        large.writeTo(out);
+        Assert.assertEquals(TEST_HTTP_BODY, out.toString("US-ASCII"));
+        large.release();
+    }
+
+    private static HttpEntity streamedEntity(final byte[] content) {
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setChunked(true);
+        entity.setContentLength(-1);
+        entity.setContent(new ByteArrayInputStream(content));
+        return entity;
+    }
+
+    @Test
+    public void testBufferedEntityThreshold() throws IOException {
+        final byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        // 100 is no power of two, the pool hands out larger arrays
+        final BufferedHttpEntity exact = new BufferedHttpEntity(
+                streamedEntity(Arrays.copyOf(content, 100)), 100);
+        Assert.assertFalse(exact.isSpilled());
+        Assert.assertFalse(exact.isChunked());
+        Assert.assertEquals(100, exact.getContentLength());
+        Assert.assertArrayEquals(Arrays.copyOf(content, 100), IOUtils.toByteArray(exact.getContent()));
+
+        final BufferedHttpEntity over = new BufferedHttpEntity(
+                streamedEntity(Arrays.copyOf(content, 101)), 100);
+        Assert.assertTrue(over.isSpilled());
+        Assert.assertArrayEquals(Arrays.copyOf(content, 101), IOUtils.toByteArray(over.getContent()));
+
+        final BufferedHttpEntity large = new BufferedHttpEntity(streamedEntity(content), 100);
+        Assert.assertTrue(large.isSpilled());
+        Assert.assertFalse(large.isChunked());
+        Assert.assertArrayEquals(content, IOUtils.toByteArray(large.getContent()));
+        large.release();
+    }
+
+    @Test
+    public void testDigestingStream() throws Exception {
+        final SecretKeySpec key = new SecretKeySpec("secret".getBytes(Consts.ASCII), "HmacSHA1");
+        final Mac expected = Mac.getInstance("HmacSHA1");
+        expected.init(key);
+        final byte[] signature = expected.doFinal(TEST_HTTP_BODY.getBytes(Consts.ASCII));
+
+        final DefaultHttpRequestParser requestParser = DefaultHttpRequestParser.create(
+                TEST_HTTP_REQUEST.getBytes(Consts.ASCII));
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity();
+        final Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(key);
+        final DigestingInputStream content = new DigestingInputStream(entity.getContent(), mac);
+        Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(content));
+        Assert.assertTrue(content.isComplete());
+        Assert.assertTrue(content.matches(signature));
+    }
+
+    private static byte[] compressedRequest(final String coding, final byte[] body) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final OutputStream out = coding.equals("gzip") ?
+                new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed);
+        out.write(body);
+        out.close();
+        final ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.write(("POST /upload HTTP/1.1\r\n" +
+                "Content-Encoding: " + coding + "\r\n" +
+                "Content-Length: " + compressed.size() + "\r\n" +
+                "\r\n").getBytes(Consts.ASCII));
+        compressed.writeTo(request);
+        return request.toByteArray();
+    }
+
+    @Test
+    public void testDecompressEntity() throws IOException, HttpException {
+        final ByteArrayPool pool = new ByteArrayPool();
+        final EntityDeserializer deserializer = new EntityDeserializer(null, new InflaterPool(), pool, 100);
+        for (final String coding : new String[] {"gzip", "deflate"}) {
+            final byte[] data = compressedRequest(coding, TEST_HTTP_BODY.getBytes(Consts.ASCII));
+            final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(
+                    new ByteBufferSessionInputBuffer(data), null, null, null, deserializer);
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity();
+            Assert.assertNull(entity.getContentEncoding());
+            Assert.assertEquals(TEST_HTTP_BODY, IOUtils.toString(entity.getContent()));
+        }
+        // the input buffer of the first decoder is reused by the second
+        Assert.assertEquals(1, pool.getMissCount());
+        Assert.assertEquals(1, pool.getHitCount());
+
+        final byte[] bomb = compressedRequest("gzip", new byte[1 << 20]);
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(
+                new ByteBufferSessionInputBuffer(bomb), null, null, null, deserializer);
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity();
+        try {
+            IOUtils.toByteArray(entity.getContent());
+            Assert.fail("MessageConstraintException expected");
+        } catch (final MessageConstraintException expected) {
+        }
+    }
+
+    @Test
+    public void testDecompressPipelinedChunkedEntity() throws IOException, HttpException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final OutputStream out = new GZIPOutputStream(compressed);
+        out.write(TEST_HTTP_BODY.getBytes(Consts.ASCII));
+        out.close();
+        final ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.write(("POST /upload HTTP/1.1\r\n" +
+                "Content-Encoding: gzip\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                Integer.toHexString(compressed.size()) + "\r\n").getBytes(Consts.ASCII));
+        compressed.writeTo(request);
+        request.write(("\r\n0\r\n\r\n" +
+                "GET /next HTTP/1.1\r\n\r\n").getBytes(Consts.ASCII));
+        final EntityDeserializer deserializer = new EntityDeserializer(null, new InflaterPool(), null, 100);
+        final SessionInputBufferImpl sessionInputBuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 2048, -1, null, null);
+        sessionInputBuffer.bind(new ByteArrayInputStream(request.toByteArray()));
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(
+                sessionInputBuffer, null, null, MessageConstraints.DEFAULT, deserializer);
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) requestParser.parse()).getEntity();
+        // read to the end of the decoded content without closing the stream
+        final InputStream content = entity.getContent();
+        final byte[] decoded = new byte[TEST_HTTP_BODY.length()];
+        int n = 0;
+        int l;
+        while ((l = content.read(decoded, n, decoded.length - n)) > 0) {
+            n += l;
+        }
+        Assert.assertEquals(TEST_HTTP_BODY, new String(decoded, 0, n, Consts.ASCII));
+        Assert.assertEquals(-1, content.read());
+        Assert.assertEquals("/next", requestParser.parse().getRequestLine().getUri());
+    }
+
+    /**
+     * Stream that times out once when reaching the given position.
+     */
+    private static class TimeoutInputStream extends InputStream {
+
+        private final byte[] data;
+        private final int timeoutAt;
+        private int pos;
+        private boolean timedOut;
+
+        TimeoutInputStream(final byte[] data, final int timeoutAt) {
+            this.data = data;
+            this.timeoutAt = timeoutAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.pos == this.timeoutAt && !this.timedOut) {
+                this.timedOut = true;
+                throw new SocketTimeoutException();
+            }
+            if (this.pos == this.data.length) {
+                return -1;
+            }
+            final int limit = this.pos < this.timeoutAt ? this.timeoutAt : this.data.length;
+            final int chunk = Math.min(len, limit - this.pos);
+            System.arraycopy(this.data, this.pos, b, off, chunk);
+            this.pos += chunk;
+            return chunk;
+        }
+
+    }
+
+    private static String parseWithTimeout(
+            final String request, final String timeoutBefore,
+            final MessageConstraints constraints) throws IOException, HttpException {
+        final byte[] data = request.getBytes(Consts.ASCII);
+        final SessionInputBufferImpl sessionInputBuffer = new SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 1024, -1, constraints, null);
+        sessionInputBuffer.bind(new TimeoutInputStream(data, request.indexOf(timeoutBefore)));
+        final DefaultHttpRequestParser requestParser = new DefaultHttpRequestParser(sessionInputBuffer, constraints);
+        try {
+            requestParser.parse();
+            Assert.fail("SocketTimeoutException expected");
+        } catch (final SocketTimeoutException expected) {
+        }
+        final HttpRequest request1 = requestParser.parse();
+        return Arrays.toString(request1.getAllHeaders());
+    }
+
+    @Test
+    public void testResumeAfterTimeout() throws IOException, HttpException {
+        final String request = "GET / HTTP/1.1\r\nHost: a\r\nX-One: 1\r\nX-Two: 2\r\n\r\n";
+        final String expected = "[Host: a, X-One: 1, X-Two: 2]";
+        Assert.assertEquals(expected, parseWithTimeout(request, "X-Two", MessageConstraints.DEFAULT));
+        Assert.assertEquals(expected, parseWithTimeout(request, "X-Two",
+                MessageConstraints.custom().setZeroCopyHeaders(true).build()));
+        Assert.assertEquals(expected, parseWithTimeout(request, "Two: 2",
+                MessageConstraints.custom().setZeroCopyHeaders(true).build()));
+    }
+
+    @Test
+    public void testResumeAfterTimeoutInDroppedHeader() throws IOException, HttpException {
+        final String request = "GET / HTTP/1.1\r\nHost: a\r\nX-Dropped: 1\r\n\tmore\r\nX-Two: 2\r\n\r\n";
+        final String expected = "[Host: a, X-Two: 2]";
+        Assert.assertEquals(expected, parseWithTimeout(request, "\tmore",
+                MessageConstraints.custom().setInterestingHeaders("Host", "X-Two").build()));
+        Assert.assertEquals(expected, parseWithTimeout(request, "\tmore",
+                MessageConstraints.custom().setInterestingHeaders("Host", "X-Two")
+                        .setZeroCopyHeaders(true).build()));
+    }
 }
@@ -0,0 +1,68 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.*;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class HttpResponseParserTestCase {
+
+    @Test
+    public void testBodyLengthRules() throws IOException, HttpException {
+        final String data = "HTTP/1.1 100 Continue\r\n" +
+                "\r\n" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 5\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "\r\n" +
+                "hello" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 1024\r\n" +
+                "\r\n" +
+                "HTTP/1.1 204 No Content\r\n" +
+                "\r\n" +
+                "HTTP/1.1 304 Not Modified\r\n" +
+                "ETag: \"abc\"\r\n" +
+                "\r\n" +
+                "HTTP/1.1 200 OK\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "3\r\nabc\r\n0\r\n\r\n";
+        final DefaultHttpResponseParser parser = DefaultHttpResponseParser.create(data.getBytes(Consts.ASCII));
+
+        final HttpResponse informational = parser.parse();
+        Assert.assertEquals(100, informational.getStatusLine().getStatusCode());
+        Assert.assertNull(informational.getEntity());
+
+        final HttpResponse ok = parser.parse();
+        Assert.assertEquals("OK", ok.getStatusLine().getReasonPhrase());
+        Assert.assertEquals("text/plain", ok.getEntity().getContentType().getValue());
+        Assert.assertEquals("hello", IOUtils.toString(ok.getEntity().getContent()));
+
+        final HttpResponse head = parser.parse(new BasicHttpRequest("HEAD", "/"));
+        Assert.assertEquals("1024", head.getFirstHeader("Content-Length").getValue());
+        Assert.assertNull(head.getEntity());
+
+        Assert.assertNull(parser.parse().getEntity());
+        Assert.assertEquals(304, parser.parse().getStatusLine().getStatusCode());
+
+        final HttpResponse chunked = parser.parse(new BasicHttpRequest("GET", "/"));
+        Assert.assertEquals("abc", IOUtils.toString(chunked.getEntity().getContent()));
+    }
+
+    @Test
+    public void testReadUntilClose() throws IOException, HttpException {
+        final String data = "HTTP/1.0 200 OK\r\n" +
+                "Server: legacy\r\n" +
+                "\r\n" +
+                "body delimited by the end of the connection";
+        final HttpResponse response = DefaultHttpResponseParser.create(data.getBytes(Consts.ASCII)).parse();
+        Assert.assertEquals(HttpVersion.HTTP_1_0, response.getProtocolVersion());
+        Assert.assertEquals(-1, response.getEntity().getContentLength());
+        Assert.assertEquals("body delimited by the end of the connection",
+                IOUtils.toString(response.getEntity().getContent()));
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.*;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class IncrementalHttpRequestParserTestCase {
+
+    private static final String BODY = "{\"object\": \"tag\", \"object_id\": \"moscow\"}";
+
+    private static final String POST = "POST /moscow/ HTTP/1.1\r\n" +
+            "Host: www.chin-news.com:8000\r\n" +
+            "Content-Length: " + BODY.length() + "\r\n" +
+            "content-type: application/json\r\n" +
+            "user-agent: Python-httplib2/0.8\r\n" +
+            " (gzip)\r\n" +
+            "\r\n" +
+            BODY;
+
+    private static final String GET = "GET /status HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n";
+
+    @Test
+    public void testByteByByte() throws IOException, HttpException {
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser();
+        final byte[] data = POST.getBytes(Consts.ASCII);
+        final ByteBuffer src = ByteBuffer.allocate(1);
+        IncrementalHttpRequestParser.Result result = null;
+        boolean headComplete = false;
+        for (final byte b : data) {
+            src.clear();
+            src.put(b);
+            src.flip();
+            result = parser.feed(src);
+            if (result == IncrementalHttpRequestParser.Result.HEAD_COMPLETE) {
+                headComplete = true;
+            }
+            Assert.assertFalse(src.hasRemaining());
+        }
+        Assert.assertTrue(headComplete);
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, result);
+
+        final HttpRequest request = parser.getRequest();
+        Assert.assertEquals("POST", request.getRequestLine().getMethod());
+        Assert.assertEquals("/moscow/", request.getRequestLine().getUri());
+        Assert.assertEquals("Python-httplib2/0.8 (gzip)", request.getFirstHeader("User-Agent").getValue());
+        final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        Assert.assertEquals(BODY.length(), entity.getContentLength());
+        Assert.assertEquals(BODY, IOUtils.toString(entity.getContent()));
+    }
+
+    @Test
+    public void testPipelined() throws IOException, HttpException {
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser();
+        final ByteBuffer src = ByteBuffer.wrap((GET + POST + GET).getBytes(Consts.ASCII));
+
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, parser.feed(src));
+        Assert.assertEquals("/status", parser.getRequest().getRequestLine().getUri());
+
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.HEAD_COMPLETE, parser.feed(src));
+        Assert.assertEquals("/moscow/", parser.getRequest().getRequestLine().getUri());
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, parser.feed(src));
+        Assert.assertEquals(BODY, IOUtils.toString(
+                ((HttpEntityEnclosingRequest) parser.getRequest()).getEntity().getContent()));
+
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, parser.feed(src));
+        Assert.assertEquals("GET", parser.getRequest().getRequestLine().getMethod());
+        Assert.assertFalse(src.hasRemaining());
+    }
+
+    @Test(expected = MessageConstraintException.class)
+    public void testMaxLineLength() throws IOException, HttpException {
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser(
+                MessageConstraints.lineLen(16));
+        parser.feed(ByteBuffer.wrap("GET /a/very/long/path".getBytes(Consts.ASCII)));
+    }
+
+    private static void assertBodyTooLarge(final MessageConstraints constraints, final String request)
+            throws IOException, HttpException {
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser(constraints);
+        final ByteBuffer src = ByteBuffer.wrap(request.getBytes(Consts.ASCII));
+        try {
+            while (src.hasRemaining()) {
+                parser.feed(src);
+            }
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException expected) {
+        }
+    }
+
+    @Test
+    public void testMaxBodySize() throws IOException, HttpException {
+        final MessageConstraints constraints = MessageConstraints.custom().setMaxBodySize(8).build();
+        final IncrementalHttpRequestParser parser = new IncrementalHttpRequestParser(constraints);
+        final ByteBuffer src = ByteBuffer.wrap(
+                "POST / HTTP/1.1\r\nContent-Length: 8\r\n\r\n12345678".getBytes(Consts.ASCII));
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.HEAD_COMPLETE, parser.feed(src));
+        Assert.assertEquals(IncrementalHttpRequestParser.Result.MESSAGE_COMPLETE, parser.feed(src));
+
+        assertBodyTooLarge(constraints, "POST / HTTP/1.1\r\nContent-Length: 9\r\n\r\n");
+        assertBodyTooLarge(constraints, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "5\r\n12345\r\n4\r\n");
+        assertBodyTooLarge(constraints, "POST / HTTP/1.1\r\n\r\n123456789");
+        // without a limit bodies still have to fit into an array
+        assertBodyTooLarge(MessageConstraints.DEFAULT,
+                "POST / HTTP/1.1\r\nContent-Length: 99999999999\r\n\r\n");
+        assertBodyTooLarge(MessageConstraints.DEFAULT, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "7fffffff\r\n");
+    }
+
+}
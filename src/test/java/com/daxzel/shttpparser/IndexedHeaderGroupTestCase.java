@@ -0,0 +1,177 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.BasicHeader;
+import com.daxzel.shttpparser.message.BasicLineParser;
+import com.daxzel.shttpparser.message.ByteSliceHeader;
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.Header;
+import com.daxzel.shttpparser.message.HeaderGroup;
+import com.daxzel.shttpparser.message.IndexedHeaderGroup;
+import com.daxzel.shttpparser.message.ParseException;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class IndexedHeaderGroupTestCase {
+
+    private static final String[] NAMES = {
+            "Host", "HOST", "host", "Content-Type", "content-TYPE", "Accept", "X-Custom", "x-custom",
+            "X-CUSTOM", "X-Missing", "Cookie", "Via", "Warning", ""
+    };
+
+    private static Header buffered(final String line) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(line.length());
+        buffer.append(line);
+        return BasicLineParser.INSTANCE.parseHeader(buffer);
+    }
+
+    private static Header slice(final String line) throws ParseException {
+        final byte[] b = ("xx" + line + "yy").getBytes(Consts.ASCII);
+        return ByteSliceHeader.parse(b, 2, b.length - 2);
+    }
+
+    /**
+     * Ten headers of all kinds, with repeated names in different case.
+     */
+    private static Header[] headers() throws ParseException {
+        return new Header[] {
+                new BasicHeader("Host", "example.com"),
+                buffered("Accept: text/html"),
+                slice("x-custom: 1"),
+                new BasicHeader("Cookie", "a=1"),
+                buffered("X-CUSTOM: 2"),
+                slice("content-type: text/plain"),
+                new BasicHeader("cookie", "b=2"),
+                buffered("Via: 1.1 proxy"),
+                slice("X-Custom: 3"),
+                new BasicHeader("COOKIE", "c=3")
+        };
+    }
+
+    private static HeaderGroup plain(final Header[] headers) {
+        final HeaderGroup group = new HeaderGroup();
+        group.setHeaders(headers);
+        return group;
+    }
+
+    /**
+     * Asserts that the indexed group answers every lookup exactly like a
+     * linearly scanned group with the same headers.
+     */
+    private static void assertSameLookups(final HeaderGroup expected, final HeaderGroup actual) {
+        Assert.assertArrayEquals(expected.getAllHeaders(), actual.getAllHeaders());
+        for (final String name : NAMES) {
+            Assert.assertArrayEquals(name, expected.getHeaders(name), actual.getHeaders(name));
+            Assert.assertSame(name, expected.getFirstHeader(name), actual.getFirstHeader(name));
+            Assert.assertSame(name, expected.getLastHeader(name), actual.getLastHeader(name));
+            Assert.assertEquals(name, expected.containsHeader(name), actual.containsHeader(name));
+        }
+    }
+
+    @Test
+    public void testCaseInsensitiveLookup() throws Exception {
+        final Header[] headers = headers();
+        final IndexedHeaderGroup group = new IndexedHeaderGroup();
+        group.setHeaders(headers);
+
+        Assert.assertSame(headers[0], group.getFirstHeader("hOsT"));
+        Assert.assertSame(headers[5], group.getFirstHeader("Content-Type"));
+        Assert.assertTrue(group.containsHeader("VIA"));
+        Assert.assertFalse(group.containsHeader("X-Missing"));
+        Assert.assertNull(group.getFirstHeader("X-Missing"));
+        Assert.assertNull(group.getLastHeader("X-Missing"));
+        Assert.assertEquals(0, group.getHeaders("X-Missing").length);
+        assertSameLookups(plain(headers), group);
+    }
+
+    @Test
+    public void testOrdering() throws Exception {
+        final Header[] headers = headers();
+        final IndexedHeaderGroup group = new IndexedHeaderGroup();
+        group.setHeaders(headers);
+
+        Assert.assertEquals(
+                Arrays.asList(headers[3], headers[6], headers[9]),
+                Arrays.asList(group.getHeaders("Cookie")));
+        Assert.assertEquals(
+                Arrays.asList(headers[2], headers[4], headers[8]),
+                Arrays.asList(group.getHeaders("x-Custom")));
+        Assert.assertSame(headers[2], group.getFirstHeader("X-CUSTOM"));
+        Assert.assertSame(headers[8], group.getLastHeader("x-custom"));
+        Assert.assertSame(headers[9], group.getLastHeader("cookie"));
+
+        // appending keeps the index up to date
+        final Header last = new BasicHeader("x-custom", "4");
+        group.addHeader(last);
+        Assert.assertSame(last, group.getLastHeader("X-Custom"));
+        Assert.assertEquals(4, group.getHeaders("X-Custom").length);
+    }
+
+    @Test
+    public void testModificationsAfterIndexing() throws Exception {
+        final Header[] headers = headers();
+        final IndexedHeaderGroup group = new IndexedHeaderGroup();
+        group.setHeaders(headers);
+        final HeaderGroup expected = plain(headers);
+        assertSameLookups(expected, group);
+
+        group.removeHeader(headers[2]);
+        expected.removeHeader(headers[2]);
+        assertSameLookups(expected, group);
+        Assert.assertSame(headers[4], group.getFirstHeader("x-custom"));
+
+        final Header type = new BasicHeader("CONTENT-TYPE", "application/json");
+        group.updateHeader(type);
+        expected.updateHeader(type);
+        assertSameLookups(expected, group);
+        Assert.assertSame(type, group.getFirstHeader("content-type"));
+
+        final Header warning = new BasicHeader("Warning", "199");
+        group.updateHeader(warning);
+        expected.updateHeader(warning);
+        assertSameLookups(expected, group);
+
+        final Header[] others = new Header[] {
+                new BasicHeader("A", "1"), new BasicHeader("B", "2"), new BasicHeader("C", "3"),
+                new BasicHeader("D", "4"), new BasicHeader("E", "5"), new BasicHeader("F", "6"),
+                new BasicHeader("G", "7"), new BasicHeader("host", "other"), new BasicHeader("Via", "x")
+        };
+        group.setHeaders(others);
+        expected.setHeaders(others);
+        assertSameLookups(expected, group);
+        Assert.assertNull(group.getFirstHeader("Cookie"));
+        Assert.assertSame(others[7], group.getFirstHeader("HOST"));
+
+        group.clear();
+        expected.clear();
+        assertSameLookups(expected, group);
+        Assert.assertEquals(0, group.getAllHeaders().length);
+
+        // the retained index arrays must not leak old positions
+        group.setHeaders(headers);
+        assertSameLookups(plain(headers), group);
+    }
+
+    @Test
+    public void testCopyAndCloneAfterIndexing() throws Exception {
+        final Header[] headers = headers();
+        final IndexedHeaderGroup group = new IndexedHeaderGroup();
+        group.setHeaders(headers);
+        Assert.assertSame(headers[0], group.getFirstHeader("host"));
+
+        final HeaderGroup copy = group.copy();
+        Assert.assertTrue(copy instanceof IndexedHeaderGroup);
+        assertSameLookups(group, copy);
+        copy.removeHeader(headers[0]);
+        Assert.assertNull(copy.getFirstHeader("Host"));
+        Assert.assertSame(headers[0], group.getFirstHeader("Host"));
+        assertSameLookups(plain(headers), group);
+
+        final HeaderGroup clone = (HeaderGroup) group.clone();
+        Assert.assertTrue(clone instanceof IndexedHeaderGroup);
+        assertSameLookups(plain(headers), clone);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.HttpEntityEnclosingRequest;
+import com.daxzel.shttpparser.message.HttpRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RequestSpliteratorTestCase {
+
+    @Test
+    public void testParallelKeepsOrder() throws Exception {
+        final StringBuilder archive = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            switch (i % 3) {
+                case 0:
+                    archive.append("GET /").append(i).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                    break;
+                case 1:
+                    archive.append("POST /").append(i).append(" HTTP/1.1\r\nContent-Length: 7\r\n\r\n")
+                            .append("\r\n\r\nGET");
+                    break;
+                default:
+                    archive.append("PUT /").append(i).append(" HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n")
+                            .append("4\r\n\r\n\r\n\r\n0\r\nX-Trailer: y\r\n\r\n");
+            }
+        }
+        final List<HttpRequest> requests = RequestSpliterator.stream(
+                ByteBuffer.wrap(archive.toString().getBytes(Consts.ASCII)), null, true)
+                .collect(Collectors.toList());
+        Assert.assertEquals(500, requests.size());
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals("/" + i, requests.get(i).getRequestLine().getUri());
+        }
+        Assert.assertEquals("\r\n\r\nGET", IOUtils.toString(
+                ((HttpEntityEnclosingRequest) requests.get(499)).getEntity().getContent(), "US-ASCII"));
+    }
+
+    @Test
+    public void testOversizedContentLength() throws Exception {
+        for (final String length : new String[] {"99999999999", "2147483647", "2147483648"}) {
+            final String archive = "GET /first HTTP/1.1\r\n\r\n" +
+                    "POST /second HTTP/1.1\r\nContent-Length: " + length + "\r\n\r\nabc";
+            final List<HttpRequest> requests = RequestSpliterator.stream(
+                    ByteBuffer.wrap(archive.getBytes(Consts.ASCII)), null, false)
+                    .collect(Collectors.toList());
+            Assert.assertEquals(length, 2, requests.size());
+            Assert.assertEquals("/first", requests.get(0).getRequestLine().getUri());
+            Assert.assertEquals("/second", requests.get(1).getRequestLine().getUri());
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.io.HttpTransportMetrics;
+import com.daxzel.shttpparser.io.SessionInputBuffer;
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.HttpRequest;
+import com.daxzel.shttpparser.message.HttpTransportMetricsImpl;
+import com.daxzel.shttpparser.util.ByteArrayBuffer;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+/**
+ * Checks the default methods of {@link SessionInputBuffer} against an
+ * implementation written before they were added.
+ */
+public class SessionInputBufferTestCase {
+
+    private static class LegacySessionInputBuffer implements SessionInputBuffer {
+
+        private final InputStream in;
+        private final HttpTransportMetricsImpl metrics;
+
+        LegacySessionInputBuffer(final String data) {
+            this.in = new ByteArrayInputStream(data.getBytes(Consts.ISO_8859_1));
+            this.metrics = new HttpTransportMetricsImpl();
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return this.in.read(b, off, len);
+        }
+
+        public int read(final byte[] b) throws IOException {
+            return this.in.read(b);
+        }
+
+        public int read() throws IOException {
+            return this.in.read();
+        }
+
+        public int readLine(final CharArrayBuffer buffer) throws IOException {
+            int count = 0;
+            int b = this.in.read();
+            if (b == -1) {
+                return -1;
+            }
+            while (b != -1 && b != '\n') {
+                buffer.append((char) b);
+                count++;
+                b = this.in.read();
+            }
+            if (count > 0 && buffer.charAt(buffer.length() - 1) == '\r') {
+                buffer.setLength(buffer.length() - 1);
+                count--;
+            }
+            return count;
+        }
+
+        public String readLine() throws IOException {
+            final CharArrayBuffer buffer = new CharArrayBuffer(64);
+            return readLine(buffer) != -1 ? buffer.toString() : null;
+        }
+
+        public boolean isDataAvailable(final int timeout) throws IOException {
+            return this.in.available() > 0;
+        }
+
+        public HttpTransportMetrics getMetrics() {
+            return this.metrics;
+        }
+
+    }
+
+    @Test
+    public void testDefaultReadLine() throws Exception {
+        final SessionInputBuffer inbuffer = new LegacySessionInputBuffer("first\r\n\r\nsecond\nlast");
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        Assert.assertEquals(5, inbuffer.readLine(buffer));
+        Assert.assertEquals(0, inbuffer.readLine(buffer));
+        Assert.assertEquals(6, inbuffer.readLine(buffer));
+        Assert.assertEquals(4, inbuffer.readLine(buffer));
+        Assert.assertEquals(-1, inbuffer.readLine(buffer));
+        Assert.assertEquals("firstsecondlast", new String(buffer.toByteArray(), Consts.ISO_8859_1));
+    }
+
+    @Test
+    public void testDefaultSkip() throws Exception {
+        final StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            data.append((char) ('a' + i % 26));
+        }
+        final SessionInputBuffer inbuffer = new LegacySessionInputBuffer(data.toString());
+        Assert.assertEquals(0, inbuffer.skip(0));
+        Assert.assertEquals(0, inbuffer.skip(-1));
+        Assert.assertEquals(4097, inbuffer.skip(4097));
+        Assert.assertEquals(data.charAt(4097), inbuffer.read());
+        Assert.assertEquals(5000 - 4098, inbuffer.skip(Long.MAX_VALUE));
+        Assert.assertEquals(0, inbuffer.skip(1));
+        Assert.assertEquals(-1, inbuffer.read());
+    }
+
+    @Test
+    public void testDefaultTransferTo() throws Exception {
+        final SessionInputBuffer inbuffer = new LegacySessionInputBuffer("0123456789");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(0, inbuffer.transferTo(Channels.newChannel(out), 0));
+        Assert.assertEquals(4, inbuffer.transferTo(Channels.newChannel(out), 4));
+        Assert.assertEquals('4', inbuffer.read());
+        Assert.assertEquals(5, inbuffer.transferTo(Channels.newChannel(out), 100));
+        Assert.assertEquals(0, inbuffer.transferTo(Channels.newChannel(out), 1));
+        Assert.assertEquals("012356789", new String(out.toByteArray(), Consts.ISO_8859_1));
+    }
+
+    @Test
+    public void testZeroCopyHeadersWithDefaultReadLine() throws Exception {
+        final SessionInputBuffer inbuffer = new LegacySessionInputBuffer(
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX-Folded: a\r\n b\r\n\r\n");
+        final HttpRequest request = new DefaultHttpRequestParser(inbuffer,
+                MessageConstraints.custom().setZeroCopyHeaders(true).build()).parse();
+        Assert.assertEquals("[Host: localhost, X-Folded: a b]", Arrays.toString(request.getAllHeaders()));
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.BasicLineParser;
+import com.daxzel.shttpparser.message.ByteBufferSessionInputBuffer;
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.MessageConstraintException;
+import com.daxzel.shttpparser.util.CharSlice;
+import com.daxzel.shttpparser.util.ProtocolVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StreamingHttpRequestParserTestCase {
+
+    private static final String REQUESTS = "POST /upload HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "X-Folded: one\r\n" +
+            "\ttwo\r\n" +
+            "\r\n" +
+            "5\r\nHello\r\n6\r\n world\r\n0\r\n\r\n" +
+            "GET /status HTTP/1.0\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n";
+
+    private static class RecordingListener implements HttpRequestListener {
+
+        final List<String> events = new ArrayList<String>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        public void onRequestLine(final CharSlice method, final CharSlice target, final ProtocolVersion version) {
+            events.add(method + " " + target + " " + version);
+        }
+
+        public void onHeader(final CharSlice name, final CharSlice value) {
+            events.add(name + "=" + value);
+        }
+
+        public void onHeadersComplete() {
+            events.add("headers");
+        }
+
+        public void onBody(final byte[] b, final int off, final int len) {
+            body.write(b, off, len);
+        }
+
+        public void onMessageComplete() {
+            events.add("complete");
+        }
+
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        final StreamingHttpRequestParser parser = new StreamingHttpRequestParser(
+                new ByteBufferSessionInputBuffer(REQUESTS.getBytes(Consts.ASCII)));
+
+        final RecordingListener first = new RecordingListener();
+        parser.parse(first);
+        Assert.assertEquals("[POST /upload HTTP/1.1, Host=localhost, Transfer-Encoding=chunked, " +
+                "X-Folded=one two, headers, complete]", first.events.toString());
+        Assert.assertEquals("Hello world", new String(first.body.toByteArray(), Consts.ASCII));
+
+        final RecordingListener second = new RecordingListener();
+        parser.parse(second);
+        Assert.assertEquals("[GET /status HTTP/1.0, Host=localhost, headers, complete]",
+                second.events.toString());
+        Assert.assertEquals(0, second.body.size());
+
+        try {
+            parser.parse(new RecordingListener());
+            Assert.fail("ConnectionClosedException should have been thrown");
+        } catch (final ConnectionClosedException expected) {
+        }
+    }
+
+    @Test
+    public void testCustomLineParser() throws Exception {
+        final ProtocolVersion custom = new ProtocolVersion("HTTP", 1, 1);
+        final BasicLineParser lineParser = new BasicLineParser() {
+
+            @Override
+            protected ProtocolVersion createProtocolVersion(final int major, final int minor) {
+                return major == 1 && minor == 1 ? custom : super.createProtocolVersion(major, minor);
+            }
+
+        };
+        final StreamingHttpRequestParser parser = new StreamingHttpRequestParser(
+                new ByteBufferSessionInputBuffer(REQUESTS.getBytes(Consts.ASCII)), lineParser, null);
+        final ProtocolVersion[] versions = new ProtocolVersion[1];
+        parser.parse(new RecordingListener() {
+
+            @Override
+            public void onRequestLine(final CharSlice method, final CharSlice target, final ProtocolVersion version) {
+                versions[0] = version;
+            }
+
+        });
+        Assert.assertSame(custom, versions[0]);
+    }
+
+    @Test
+    public void testLineLimitInDroppedHeader() throws Exception {
+        final StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Dropped: start\r\n");
+        for (int i = 0; i < 10; i++) {
+            request.append(" 0123456789\r\n");
+        }
+        request.append("\r\n");
+        final StreamingHttpRequestParser parser = new StreamingHttpRequestParser(
+                new ByteBufferSessionInputBuffer(request.toString().getBytes(Consts.ASCII)), null,
+                MessageConstraints.custom().setMaxLineLength(64).setInterestingHeaders("Host").build());
+        try {
+            parser.parse(new RecordingListener());
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException expected) {
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.daxzel.shttpparser;
+
+import com.daxzel.shttpparser.message.BasicLineParser;
+import com.daxzel.shttpparser.message.Consts;
+import com.daxzel.shttpparser.message.WellKnownHeaders;
+import com.daxzel.shttpparser.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public class WellKnownHeadersTestCase {
+
+    private static String mixedCase(final String name) {
+        final StringBuilder buf = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            final char ch = name.charAt(i);
+            buf.append(i % 2 == 0 ? Character.toLowerCase(ch) : Character.toUpperCase(ch));
+        }
+        return buf.toString();
+    }
+
+    private static void assertLookup(final int expected, final String name) {
+        Assert.assertEquals(name, expected, WellKnownHeaders.lookup(name));
+        // look up within a larger buffer
+        final String padded = "::" + name + "::";
+        Assert.assertEquals(name, expected,
+                WellKnownHeaders.lookup(padded.toCharArray(), 2, name.length()));
+        Assert.assertEquals(name, expected,
+                WellKnownHeaders.lookup(padded.getBytes(Consts.ISO_8859_1), 2, name.length()));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int id = 0; id < WellKnownHeaders.size(); id++) {
+            final String name = WellKnownHeaders.name(id);
+            assertLookup(id, name);
+            assertLookup(id, name.toLowerCase(Locale.ROOT));
+            assertLookup(id, name.toUpperCase(Locale.ROOT));
+            assertLookup(id, mixedCase(name));
+
+            // parsed headers report the canonical spelling
+            final CharArrayBuffer buffer = new CharArrayBuffer(64);
+            buffer.append(mixedCase(name));
+            buffer.append(": value");
+            Assert.assertSame(name, BasicLineParser.INSTANCE.parseHeader(buffer).getName());
+        }
+        Assert.assertEquals("User-Agent", WellKnownHeaders.name(WellKnownHeaders.USER_AGENT));
+        Assert.assertEquals(WellKnownHeaders.USER_AGENT, WellKnownHeaders.lookup("uSeR-aGeNt"));
+    }
+
+    @Test
+    public void testNearMiss() {
+        final Set<String> known = new HashSet<String>();
+        for (int id = 0; id < WellKnownHeaders.size(); id++) {
+            known.add(WellKnownHeaders.name(id).toLowerCase(Locale.ROOT));
+        }
+        for (int id = 0; id < WellKnownHeaders.size(); id++) {
+            final String name = WellKnownHeaders.name(id).toLowerCase(Locale.ROOT);
+            // same length and first char, one other char changed
+            for (int i = 1; i < name.length(); i++) {
+                final char ch = name.charAt(i);
+                final char other = ch == 'z' ? 'a' : ch == '-' ? '_' : (char) (ch + 1);
+                final String miss = name.substring(0, i) + other + name.substring(i + 1);
+                if (!known.contains(miss)) {
+                    assertLookup(WellKnownHeaders.UNKNOWN, miss);
+                    assertLookup(WellKnownHeaders.UNKNOWN, mixedCase(miss));
+                }
+            }
+            // prefix and extension
+            final String prefix = name.substring(0, name.length() - 1);
+            if (!known.contains(prefix)) {
+                assertLookup(WellKnownHeaders.UNKNOWN, prefix);
+            }
+            assertLookup(WellKnownHeaders.UNKNOWN, name + "x");
+        }
+        assertLookup(WellKnownHeaders.UNKNOWN, "");
+        assertLookup(WellKnownHeaders.UNKNOWN, "Host\u00e9");
+        Assert.assertEquals(WellKnownHeaders.UNKNOWN, WellKnownHeaders.lookup((String) null));
+    }
+
+}